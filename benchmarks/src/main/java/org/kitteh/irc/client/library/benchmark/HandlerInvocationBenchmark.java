@@ -0,0 +1,121 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.benchmark;
+
+import org.kitteh.irc.client.library.feature.filter.FilteringSubscriptionFactory;
+import org.kitteh.irc.lib.net.engio.mbassy.bus.MBassador;
+import org.kitteh.irc.lib.net.engio.mbassy.bus.config.BusConfiguration;
+import org.kitteh.irc.lib.net.engio.mbassy.bus.config.Feature;
+import org.kitteh.irc.lib.net.engio.mbassy.bus.error.IPublicationErrorHandler;
+import org.kitteh.irc.lib.net.engio.mbassy.listener.Handler;
+import org.kitteh.irc.lib.net.engio.mbassy.subscription.SubscriptionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares publishing to handlers invoked through MBassador's stock
+ * reflective invocation against the direct invokers of {@link
+ * FilteringSubscriptionFactory}. The benchmarks run against the shaded
+ * library, hence the relocated MBassador imports. Only classes the library
+ * itself uses survive shading, so the bus is a full {@link MBassador}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HandlerInvocationBenchmark {
+    public static class Message {
+        private final String text = "meow";
+    }
+
+    public static class Listener {
+        private final Blackhole blackhole;
+
+        public Listener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Handler
+        public void message(Message message) {
+            this.blackhole.consume(message.text);
+        }
+    }
+
+    @Param({"1", "10"})
+    private int listeners;
+
+    private MBassador<Object> reflective;
+    private MBassador<Object> direct;
+    private final Message message = new Message();
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.reflective = this.bus(new SubscriptionFactory(), blackhole);
+        this.direct = this.bus(new FilteringSubscriptionFactory(Collections.emptyMap()), blackhole);
+    }
+
+    private MBassador<Object> bus(SubscriptionFactory factory, Blackhole blackhole) {
+        MBassador<Object> bus = new MBassador<>(new BusConfiguration()
+                .addFeature(Feature.SyncPubSub.Default().setSubscriptionFactory(factory))
+                .addFeature(Feature.AsynchronousHandlerInvocation.Default())
+                .addFeature(Feature.AsynchronousMessageDispatch.Default())
+                .addPublicationErrorHandler(new IPublicationErrorHandler.ConsoleLogger()));
+        for (int i = 0; i < this.listeners; i++) {
+            bus.subscribe(new Listener(blackhole));
+        }
+        return bus;
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.reflective.shutdown();
+        this.direct.shutdown();
+    }
+
+    @Benchmark
+    public void reflective() {
+        this.reflective.publish(this.message);
+    }
+
+    @Benchmark
+    public void direct() {
+        this.direct.publish(this.message);
+    }
+}
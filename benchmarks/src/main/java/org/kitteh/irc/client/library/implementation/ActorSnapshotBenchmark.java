@@ -0,0 +1,90 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.element.Channel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rebuilding the snapshot of a channel after a change, and reading
+ * the snapshot back unchanged, for channels of various sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ActorSnapshotBenchmark {
+    @Param({"10", "1000", "50000"})
+    private int users;
+
+    private IRCClient client;
+    private ActorProvider.IRCChannel channel;
+    private boolean flip;
+
+    @Setup
+    public void setup() {
+        this.client = BenchmarkClients.create();
+        BenchmarkClients.join(this.client, "#kitteh");
+        ActorProvider provider = this.client.getActorProvider();
+        this.channel = provider.getTrackedChannel("#kitteh");
+        this.channel.setListReceived(); // Otherwise snapshots ask the server for the list
+        for (int i = 0; i < this.users; i++) {
+            this.channel.trackUser((ActorProvider.IRCUser) provider.getActor("User" + i + "!user" + i + "@host" + i + ".example"), Collections.emptySet());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.client.shutdown();
+    }
+
+    @Benchmark
+    public Channel rebuild() {
+        // Any change marks the snapshot stale
+        this.flip = !this.flip;
+        this.channel.setTopic(this.flip ? "meow" : "purr");
+        return this.channel.snapshot();
+    }
+
+    @Benchmark
+    public Channel cached() {
+        return this.channel.snapshot();
+    }
+}
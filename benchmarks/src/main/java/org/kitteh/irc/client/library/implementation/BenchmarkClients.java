@@ -0,0 +1,97 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+
+/**
+ * Clients for benchmarking the internals. They never connect, and are fed
+ * lines as if read from a server, on the calling thread. Each has a launcher
+ * it never starts, so lines it sends in reply are held rather than refused.
+ */
+final class BenchmarkClients {
+    private static final MethodHandle HANDLE_LINE;
+
+    static {
+        try {
+            Method method = IRCClient.class.getDeclaredMethod("handleLine", String.class);
+            method.setAccessible(true);
+            HANDLE_LINE = MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Cannot find IRCClient#handleLine", e);
+        }
+    }
+
+    private BenchmarkClients() {
+    }
+
+    /**
+     * Creates a client, which is not connected.
+     *
+     * @return client
+     */
+    static IRCClient create() {
+        return create(new Config());
+    }
+
+    /**
+     * Creates a client, which is not connected.
+     *
+     * @param config configuration
+     * @return client
+     */
+    static IRCClient create(Config config) {
+        config.set(Config.NAME, "Benchmark");
+        config.set(Config.LAUNCHER, new IRCClientLauncher(1, 0));
+        return new IRCClient(config);
+    }
+
+    /**
+     * Handles a line as if just read from the server.
+     *
+     * @param client client
+     * @param line line
+     */
+    static void handleLine(IRCClient client, String line) {
+        try {
+            HANDLE_LINE.invokeExact(client, line);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable thrown) {
+            throw new IllegalStateException(thrown);
+        }
+    }
+
+    /**
+     * Joins the client to a channel, as the server would tell it.
+     *
+     * @param client client
+     * @param channel channel name
+     */
+    static void join(IRCClient client, String channel) {
+        handleLine(client, ":Kitteh!kitteh@kitteh.org JOIN " + channel);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures handling a line from the server, from splitting it up to firing
+ * its events, over corpora resembling real traffic. Each corpus leaves the
+ * client's state as it found it, so state doesn't grow as it repeats.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LineParsingBenchmark {
+    private static final int LINES = 10;
+
+    private static final String[] CHAT = {
+            ":Cat!cat@cat.example PRIVMSG #kitteh :meow",
+            ":Dog!dog@dog.example PRIVMSG #kitteh :woof woof, has anyone seen the cat?",
+            ":Cat!cat@cat.example PRIVMSG #kitteh :no",
+            ":Cat!cat@cat.example PRIVMSG Kitteh :psst",
+            ":NickServ!services@services.example NOTICE Kitteh :You are now identified",
+            ":Bird!bird@bird.example JOIN #kitteh",
+            ":Bird!bird@bird.example PRIVMSG #kitteh :tweet",
+            ":Bird!bird@bird.example PART #kitteh :flew away",
+            ":Dog!dog@dog.example NOTICE #kitteh :Be nice",
+            ":Cat!cat@cat.example PRIVMSG #kitteh :purr"
+    };
+
+    private static final String[] TAGGED = {
+            "@time=2016-06-01T12:00:00.000Z :Cat!cat@cat.example PRIVMSG #kitteh :meow",
+            "@time=2016-06-01T12:00:00.100Z;account=dog :Dog!dog@dog.example PRIVMSG #kitteh :woof woof, has anyone seen the cat?",
+            "@time=2016-06-01T12:00:00.200Z;account=cat :Cat!cat@cat.example PRIVMSG #kitteh :no",
+            "@time=2016-06-01T12:00:00.300Z;msgid=abc123 :Cat!cat@cat.example PRIVMSG Kitteh :psst",
+            "@time=2016-06-01T12:00:00.400Z :NickServ!services@services.example NOTICE Kitteh :You are now identified",
+            "@time=2016-06-01T12:00:00.500Z;account=bird :Bird!bird@bird.example JOIN #kitteh",
+            "@time=2016-06-01T12:00:00.600Z;account=bird;msgid=def456 :Bird!bird@bird.example PRIVMSG #kitteh :tweet",
+            "@time=2016-06-01T12:00:00.700Z;account=bird :Bird!bird@bird.example PART #kitteh :flew away",
+            "@time=2016-06-01T12:00:00.800Z;account=dog :Dog!dog@dog.example NOTICE #kitteh :Be nice",
+            "@time=2016-06-01T12:00:00.900Z;account=cat :Cat!cat@cat.example PRIVMSG #kitteh :purr"
+    };
+
+    private static final String[] NUMERIC = {
+            ":irc.example 372 Kitteh :- Welcome to the example network",
+            ":irc.example 372 Kitteh :- Please be kind to one another",
+            ":irc.example 251 Kitteh :There are 120 users and 4000 invisible on 12 servers",
+            ":irc.example 252 Kitteh 20 :operator(s) online",
+            ":irc.example 253 Kitteh 1 :unknown connection(s)",
+            ":irc.example 254 Kitteh 900 :channels formed",
+            ":irc.example 255 Kitteh :I have 500 clients and 1 servers",
+            ":irc.example 265 Kitteh 500 900 :Current local users 500, max 900",
+            ":irc.example 266 Kitteh 4120 5000 :Current global users 4120, max 5000",
+            ":irc.example 372 Kitteh :- Enjoy your stay"
+    };
+
+    @Param({"chat", "tagged", "numeric"})
+    private String corpus;
+
+    private IRCClient client;
+    private String[] lines;
+
+    @Setup
+    public void setup() {
+        this.client = BenchmarkClients.create();
+        BenchmarkClients.join(this.client, "#kitteh");
+        for (String nick : new String[]{"Cat!cat@cat.example", "Dog!dog@dog.example"}) {
+            BenchmarkClients.handleLine(this.client, ':' + nick + " JOIN #kitteh");
+        }
+        switch (this.corpus) {
+            case "tagged":
+                this.lines = TAGGED;
+                break;
+            case "numeric":
+                this.lines = NUMERIC;
+                break;
+            default:
+                this.lines = CHAT;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.client.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void handleLine() {
+        for (String line : this.lines) {
+            BenchmarkClients.handleLine(this.client, line);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures lines per second handed from one thread to another for
+ * processing, comparing the client's {@link Mailbox} against the
+ * monitor-based processing thread it replaced. Each invocation queues a
+ * batch of lines and waits until all have been processed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueueHandoffBenchmark {
+    private static final int LINES = 1000;
+    private static final String LINE = ":Cat!cat@local PRIVMSG #kitteh :meow";
+
+    /**
+     * The previous implementation, synchronizing on the queue to add and
+     * notify, and to wait while empty.
+     */
+    private abstract static class MonitorQueueProcessingThread<Type> extends Thread {
+        private final Queue<Type> queue = new ConcurrentLinkedQueue<>();
+
+        private MonitorQueueProcessingThread(String name) {
+            this.setName(name);
+            this.start();
+        }
+
+        @Override
+        public void run() {
+            dance:
+            while (!this.isInterrupted()) {
+                synchronized (this.queue) {
+                    while (this.queue.isEmpty()) {
+                        try {
+                            this.queue.wait();
+                        } catch (InterruptedException e) {
+                            break dance;
+                        }
+                    }
+                }
+                this.processElement(this.queue.poll());
+            }
+        }
+
+        protected abstract void processElement(Type element);
+
+        public void queue(Type item) {
+            synchronized (this.queue) {
+                this.queue.add(item);
+                this.queue.notify();
+            }
+        }
+    }
+
+    private volatile long monitorProcessed;
+    private volatile long mailboxProcessed;
+    private MonitorQueueProcessingThread<String> monitor;
+    private ExecutorService executor;
+    private Mailbox<String> mailbox;
+
+    @Setup
+    public void setup() {
+        this.monitor = new MonitorQueueProcessingThread<String>("Monitor") {
+            @Override
+            protected void processElement(String element) {
+                QueueHandoffBenchmark.this.monitorProcessed++; // Only the processing thread writes
+            }
+        };
+        this.executor = Executors.newSingleThreadExecutor();
+        this.mailbox = new Mailbox<>("Benchmark", Mailbox.DEFAULT_CAPACITY, element -> this.mailboxProcessed++, this.executor); // Only one drain runs at a time
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.monitor.interrupt();
+        this.mailbox.shutdown(false);
+        this.executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void monitor() {
+        long target = this.monitorProcessed + LINES;
+        for (int i = 0; i < LINES; i++) {
+            this.monitor.queue(LINE);
+        }
+        while (this.monitorProcessed < target) {
+            Thread.yield();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void mailbox() {
+        long target = this.mailboxProcessed + LINES;
+        for (int i = 0; i < LINES; i++) {
+            this.mailbox.queue(LINE);
+        }
+        while (this.mailboxProcessed < target) {
+            Thread.yield();
+        }
+    }
+}
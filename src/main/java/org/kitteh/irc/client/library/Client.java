@@ -29,13 +29,17 @@ import org.kitteh.irc.client.library.element.User;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.element.mode.UserMode;
 import org.kitteh.irc.client.library.event.client.ClientConnectedEvent;
+import org.kitteh.irc.client.library.event.client.SlowHandlerEvent;
 import org.kitteh.irc.client.library.event.user.PrivateCTCPQueryEvent;
 import org.kitteh.irc.client.library.feature.AuthManager;
 import org.kitteh.irc.client.library.feature.CapabilityManager;
 import org.kitteh.irc.client.library.feature.EventManager;
 import org.kitteh.irc.client.library.feature.ISupportManager;
+import org.kitteh.irc.client.library.feature.Latency;
 import org.kitteh.irc.client.library.feature.MessageTagManager;
+import org.kitteh.irc.client.library.feature.Metrics;
 import org.kitteh.irc.client.library.feature.ServerInfo;
+import org.kitteh.irc.client.library.util.CaptureLog;
 import org.kitteh.irc.client.library.util.Cutter;
 import org.kitteh.irc.client.library.util.Pair;
 import org.kitteh.irc.client.library.util.Sanity;
@@ -44,10 +48,12 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.net.InetAddress;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
 /**
@@ -99,12 +105,117 @@ public interface Client {
         @Nonnull
         Builder bindPort(int port);
 
+        /**
+         * Records every line received from the server, with the time it was
+         * read, to a {@link CaptureLog}. The file is replaced when the client
+         * is built and closed when it shuts down. Capture logs can be fed
+         * back through a client with {@link Client#replay(File, boolean)}.
+         * <p>
+         * By default, lines are not captured.
+         *
+         * @param file file to write or null to not capture
+         * @return this builder
+         */
+        @Nonnull
+        Builder captureLog(@Nullable File file);
+
+        /**
+         * Sets the event bus behind the client's {@link EventManager}.
+         * <p>
+         * By default, the client uses {@link EventManager.Bus#MBASSADOR}.
+         *
+         * @param bus event bus
+         * @return this builder
+         * @throws IllegalArgumentException for null bus
+         */
+        @Nonnull
+        Builder eventBus(@Nonnull EventManager.Bus bus);
+
+        /**
+         * Dispatches the events fired from the server's messages on worker
+         * lanes instead of the thread reading from the server. Events for
+         * different channels, or private events from different users, are
+         * then handled in parallel, while those for the same channel or
+         * user keep their order. When a lane is full, reading from the
+         * server waits for it.
+         * <p>
+         * Events whose handlers are expected to act before the client
+         * continues, such as capability negotiation, remain dispatched on
+         * the reading thread.
+         * <p>
+         * By default, there are no lanes.
+         *
+         * @param lanes number of lanes, or 0 to disable
+         * @param capacity events each lane can hold
+         * @return this builder
+         * @throws IllegalArgumentException for negative lanes or capacity
+         * below 1
+         * @see EventManager#getDispatchLanes()
+         */
+        @Nonnull
+        Builder eventLanes(int lanes, int capacity);
+
+        /**
+         * Sets whether each event handler is timed, for finding the
+         * handlers holding up the client. Handlers running longer than the
+         * budget fire a {@link SlowHandlerEvent}, or are reported to the
+         * exception listener if nothing listens for that event.
+         * <p>
+         * By default, handlers are not timed.
+         *
+         * @param budget time in milliseconds a handler may take before it is
+         * reported, or 0 to not time handlers
+         * @return this builder
+         * @throws IllegalArgumentException if negative
+         * @see EventManager#getHandlerStats()
+         */
+        @Nonnull
+        Builder handlerTiming(int budget);
+
+        /**
+         * Sets the time without receiving anything from the server after
+         * which the client, once registered, sends a PING to check the
+         * connection is alive. The PING is repeated each time this much
+         * time passes in silence. These PINGs count towards the
+         * {@link #missedPongLimit(int) missed PONG limit} the same as
+         * those sent every {@link #pingInterval(int) ping interval}.
+         * <p>
+         * By default, this is 60000ms.
+         *
+         * @param threshold the threshold in milliseconds
+         * @return this builder
+         * @throws IllegalArgumentException if less than 1
+         * @see #missedPongLimit(int)
+         */
+        @Nonnull
+        Builder idleThreshold(int threshold);
+
+        /**
+         * Sets a launcher which paces this client's connection attempts,
+         * including reconnects, together with those of the other clients
+         * sharing the launcher. Lines sent before the client is admitted
+         * are held until it connects.
+         * <p>
+         * By default, no launcher is set and the client connects as soon
+         * as it is built.
+         *
+         * @param launcher launcher from {@link ClientLauncher#builder()} or
+         * null to connect immediately
+         * @return this builder
+         * @throws IllegalArgumentException if the launcher was not created
+         * by {@link ClientLauncher#builder()}
+         */
+        @Nonnull
+        Builder launcher(@Nullable ClientLauncher launcher);
+
         /**
          * Sets a listener for all thrown exceptions on this client. By default,
          * a consumer exists which calls Throwable#printStackTrace() on all
          * received exceptions.
          * <p>
-         * All exceptions are passed from a single, separate thread.
+         * All exceptions are passed from a single, separate thread. Once
+         * 1024 are waiting on the listener, further ones are dropped until
+         * it catches up.
          *
          * @param listener catcher of throwable objects or null to not listen
          * @return this builder
@@ -115,7 +226,9 @@ public interface Client {
         /**
          * Sets a listener for all incoming messages from the server.
          * <p>
-         * All messages are passed from a single, separate thread.
+         * All messages are passed from a single, separate thread. Once
+         * 1024 are waiting on the listener, further ones are dropped until
+         * it catches up.
          *
          * @param listener input listener or null to not listen
          * @return this builder
@@ -126,7 +239,9 @@ public interface Client {
         /**
          * Sets a listener for all outgoing messages to the server.
          * <p>
-         * All messages are passed from a single, separate thread.
+         * All messages are passed from a single, separate thread. Once
+         * 1024 are waiting on the listener, further ones are dropped until
+         * it catches up.
          *
          * @param listener output listener or null to not listen
          * @return this builder
@@ -144,6 +259,22 @@ public interface Client {
         @Nonnull
         Builder name(@Nonnull String name);
 
+        /**
+         * Sets how many PING messages may go unanswered before the
+         * connection is considered dead and reconnected. The limit is
+         * checked each time a PING is due.
+         * <p>
+         * By default, this is 3.
+         *
+         * @param limit maximum unanswered pings
+         * @return this builder
+         * @throws IllegalArgumentException if less than 1
+         * @see #idleThreshold(int)
+         * @see #pingInterval(int)
+         */
+        @Nonnull
+        Builder missedPongLimit(int limit);
+
         /**
          * Sets the client's nick.
          * <p>
@@ -167,6 +298,38 @@ public interface Client {
         @Nonnull
         Builder serverPassword(@Nullable String password);
 
+        /**
+         * Sets the interval between the PING messages sent once the client
+         * has registered, which keep the connection alive and measure
+         * {@link Client#getLatency()}.
+         * <p>
+         * By default, this is 60000ms.
+         *
+         * @param interval the interval in milliseconds
+         * @return this builder
+         * @throws IllegalArgumentException if less than 1
+         */
+        @Nonnull
+        Builder pingInterval(int interval);
+
+        /**
+         * Enables pipelined registration. The given capabilities are
+         * requested in the same write as the initial capability listing,
+         * instead of after the server's list arrives, and if SASL is among
+         * them an added SASL protocol sends its first AUTHENTICATE message
+         * in that write as well. This saves round trips before the client
+         * is registered. If the server rejects the request, the supported
+         * capabilities among them are requested again.
+         * <p>
+         * By default, registration is not pipelined.
+         *
+         * @param capabilities capabilities to request, or none to disable
+         * @return this builder
+         * @see org.kitteh.irc.client.library.feature.CapabilityManager.Defaults
+         */
+        @Nonnull
+        Builder pipelinedRegistration(@Nonnull String... capabilities);
+
         /**
          * Sets the realname the client uses.
          * <p>
@@ -179,6 +342,22 @@ public interface Client {
         @Nonnull
         Builder realName(@Nonnull String name);
 
+        /**
+         * Sets how long the client waits, from connecting, for the server
+         * to complete its registration. If it hasn't by then, the
+         * connection is dropped and retried, so a server which accepts the
+         * connection but stalls never holds the client, or its {@link
+         * #launcher(ClientLauncher) launcher} slot, indefinitely.
+         * <p>
+         * By default, this is 60000ms.
+         *
+         * @param timeout the timeout in milliseconds
+         * @return this builder
+         * @throws IllegalArgumentException if less than 1
+         */
+        @Nonnull
+        Builder registrationTimeout(int timeout);
+
         /**
          * Sets whether the client connects via SSL.
          * <p>
@@ -233,6 +412,20 @@ public interface Client {
         @Nonnull
         Builder secureTrustManagerFactory(@Nullable TrustManagerFactory factory);
 
+        /**
+         * Connects in-process to a server bound to a netty {@code
+         * LocalAddress} of the given name instead of over the network,
+         * for testing and benchmarking without kernel networking. The
+         * server host, server port and bind settings are ignored while set.
+         * <p>
+         * By default, the client connects over TCP.
+         *
+         * @param name local address name or null to connect over TCP
+         * @return this builder
+         */
+        @Nonnull
+        Builder localServer(@Nullable String name);
+
         /**
          * Sets the delay between messages being sent to the server
          *
@@ -242,6 +435,35 @@ public interface Client {
         @Nonnull
         Builder messageDelay(int delay);
 
+        /**
+         * Sets whether the client records the latency histograms of its
+         * {@link Metrics}: outbound wait, input lag and dispatch latency.
+         * Recording times every message, line and event, so while off the
+         * histograms stay empty and cost nothing.
+         * <p>
+         * By default, latencies are not recorded.
+         *
+         * @param record true to record latencies
+         * @return this builder
+         * @see Client#getMetrics()
+         */
+        @Nonnull
+        Builder latencyMetrics(boolean record);
+
+        /**
+         * Sets whether the client's {@link Metrics} are registered with the
+         * platform MBean server, while the client is running.
+         * <p>
+         * By default, they are not registered. Clients registering must
+         * have distinct names.
+         *
+         * @param register true to register
+         * @return this builder
+         * @see Client#getMetrics()
+         */
+        @Nonnull
+        Builder metricsMBean(boolean register);
+
         /**
          * Sets the server host to which the client will connect.
          * <p>
@@ -265,6 +487,26 @@ public interface Client {
         @Nonnull
         Builder serverPort(int port);
 
+        /**
+         * Sets the factory of every thread the client starts for itself,
+         * including its listeners, line processing, immediate sending,
+         * event lanes and asynchronous event handling. Threads shared by
+         * all clients, for network access and for launching, are not
+         * included.
+         * <p>
+         * By default, the client creates named daemon threads, and runs
+         * its listeners and line processing on a pool shared by all
+         * clients. With a factory set, the client uses a pool of its own
+         * from that factory instead. {@link
+         * org.kitteh.irc.client.library.util.VirtualThreads#factory(String)}
+         * gives virtual threads on Java 21 and later.
+         *
+         * @param factory thread factory, or null for the default
+         * @return this builder
+         */
+        @Nonnull
+        Builder threadFactory(@Nullable ThreadFactory factory);
+
         /**
          * Sets the user the client connects as.
          * <p>
@@ -318,6 +560,17 @@ public interface Client {
          */
         @Nonnull
         Client build();
+
+        /**
+         * Builds a client which never connects, to be fed the lines of a
+         * {@link CaptureLog} with {@link Client#replay(File, boolean)}.
+         * Lines the client would send go only to the output listener, and
+         * no {@link #captureLog(File) capture log} is written.
+         *
+         * @return a client for replay
+         */
+        @Nonnull
+        Client buildForReplay();
     }
 
     /**
@@ -437,6 +690,16 @@ public interface Client {
     @Nonnull
     ISupportManager getISupportManager();
 
+    /**
+     * Gets the round trip time to the server, measured with the client's
+     * periodic PING messages. Measurements restart with each connection.
+     *
+     * @return latency snapshot
+     * @see Builder#pingInterval(int)
+     */
+    @Nonnull
+    Latency getLatency();
+
     /**
      * Gets the current message cutter for multi-line messages.
      *
@@ -462,6 +725,14 @@ public interface Client {
     @Nonnull
     MessageTagManager getMessageTagManager();
 
+    /**
+     * Gets counts and timings of the client's work.
+     *
+     * @return metrics
+     */
+    @Nonnull
+    Metrics getMetrics();
+
     /**
      * Gets the client name. This name is just an internal name for reference
      * and is not visible from IRC.
@@ -545,6 +816,22 @@ public interface Client {
      */
     void removeChannel(@Nonnull String channel, @Nonnull String reason);
 
+    /**
+     * Feeds the lines of a {@link CaptureLog} to this client as if read from
+     * the server, returning once all are queued for processing.
+     *
+     * @param log capture log, as written with {@link
+     * Builder#captureLog(File)}
+     * @param realTime true to keep the recorded gaps between lines, false
+     * to replay as fast as the client takes them
+     * @return number of lines replayed
+     * @throws IOException if the log cannot be read
+     * @throws IllegalArgumentException if log is null
+     * @throws IllegalStateException if the client wasn't built with {@link
+     * Builder#buildForReplay()}
+     */
+    long replay(@Nonnull File log, boolean realTime) throws IOException;
+
     /**
      * Sends a CTCP message to a target user or channel. Automagically adds
      * the CTCP delimiter around the message and escapes the characters that
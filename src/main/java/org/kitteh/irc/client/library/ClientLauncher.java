@@ -0,0 +1,168 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits the connection attempts of many {@link Client}s, including their
+ * reconnects, at a pace a server's connection throttle tolerates. Create
+ * one with {@link #builder()} and hand it to each client via {@link
+ * Client.Builder#launcher(ClientLauncher)}.
+ * <p>
+ * Attempts are grouped by server address. For each server, a new attempt
+ * is admitted as soon as fewer than the configured number of attempts are
+ * still registering and the configured delay since the previous attempt
+ * has passed, so startup completes as fast as those limits allow.
+ */
+public interface ClientLauncher {
+    /**
+     * Builds {@link ClientLauncher}s. Create a builder with {@link
+     * ClientLauncher#builder()}.
+     */
+    interface Builder {
+        /**
+         * Sets the number of connection attempts to a single server that
+         * may be underway at once. An attempt is underway until the client
+         * completes registration or the connection fails.
+         * <p>
+         * By default, this is 4.
+         *
+         * @param max maximum concurrent attempts per server
+         * @return this builder
+         * @throws IllegalArgumentException if less than 1
+         */
+        @Nonnull
+        Builder maxConcurrentPerServer(int max);
+
+        /**
+         * Sets the minimum delay between two connection attempts to a
+         * single server.
+         * <p>
+         * By default, this is 1000ms.
+         *
+         * @param delay the delay in milliseconds
+         * @return this builder
+         * @throws IllegalArgumentException if negative
+         */
+        @Nonnull
+        Builder connectDelay(int delay);
+
+        /**
+         * Builds the launcher.
+         *
+         * @return a new launcher
+         */
+        @Nonnull
+        ClientLauncher build();
+    }
+
+    /**
+     * A snapshot of a launcher's progress.
+     */
+    interface Progress {
+        /**
+         * Gets the number of clients handed to this launcher and not since
+         * shut down.
+         *
+         * @return total clients
+         */
+        int getTotal();
+
+        /**
+         * Gets the number of clients waiting to be admitted.
+         *
+         * @return waiting clients
+         */
+        int getQueued();
+
+        /**
+         * Gets the number of admitted clients which have not yet completed
+         * registration.
+         *
+         * @return clients currently connecting
+         */
+        int getConnecting();
+
+        /**
+         * Gets the number of clients which have completed registration and
+         * have not since started reconnecting or shut down.
+         *
+         * @return registered clients
+         */
+        int getRegistered();
+
+        /**
+         * Gets the number of attempts which ended before registration.
+         *
+         * @return failed attempts
+         */
+        int getFailedAttempts();
+
+        /**
+         * Gets if no client is waiting for admission or connecting.
+         *
+         * @return true if startup has settled
+         */
+        default boolean isComplete() {
+            return (this.getQueued() == 0) && (this.getConnecting() == 0);
+        }
+    }
+
+    /**
+     * Creates a {@link Builder} to build launchers.
+     *
+     * @return a launcher builder
+     */
+    @Nonnull
+    static Builder builder() {
+        try {
+            Constructor<?> constructor = Class.forName(ClientLauncher.class.getPackage().getName() + ".implementation.ClientLauncherBuilder").getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return (Builder) constructor.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("Kitteh IRC Client Library cannot create a ClientLauncher builder.", e);
+        }
+    }
+
+    /**
+     * Gets the current progress of this launcher.
+     *
+     * @return progress snapshot
+     */
+    @Nonnull
+    Progress getProgress();
+
+    /**
+     * Waits until no client is waiting for admission or connecting.
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return true if startup settled, false if the time ran out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitStartup(long timeout, @Nonnull TimeUnit unit) throws InterruptedException;
+}
@@ -41,8 +41,7 @@ import java.util.List;
 public class ClientReceiveServerMessageEventBase extends ActorEventBase<Actor> implements ClientReceiveServerMessageEvent {
     private final List<String> args;
     private final String command;
-    private final List<MessageTag> messageTags;
-    private final String originalMessage;
+    private final ServerMessage serverMessage;
 
     /**
      * Constructs the event.
@@ -54,11 +53,25 @@ public class ClientReceiveServerMessageEventBase extends ActorEventBase<Actor> i
      * @param args args
      */
     public ClientReceiveServerMessageEventBase(@Nonnull Client client, @Nonnull ServerMessage serverMessage, @Nonnull Actor server, @Nonnull String command, @Nonnull List<String> args) {
+        this(client, serverMessage, server, command, args, true);
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param client client
+     * @param serverMessage server message
+     * @param server server
+     * @param command command
+     * @param args args
+     * @param copyArgs true to copy args, false to keep the given list,
+     * which must then be unmodifiable and never change
+     */
+    public ClientReceiveServerMessageEventBase(@Nonnull Client client, @Nonnull ServerMessage serverMessage, @Nonnull Actor server, @Nonnull String command, @Nonnull List<String> args, boolean copyArgs) {
         super(client, Collections.singletonList(serverMessage), server);
-        this.args = Collections.unmodifiableList(new ArrayList<>(args));
-        this.messageTags = serverMessage.getTags();
+        this.args = copyArgs ? Collections.unmodifiableList(new ArrayList<>(args)) : args;
         this.command = command;
-        this.originalMessage = serverMessage.getMessage();
+        this.serverMessage = serverMessage;
     }
 
     /**
@@ -86,7 +99,7 @@ public class ClientReceiveServerMessageEventBase extends ActorEventBase<Actor> i
     @Nonnull
     @Override
     public List<MessageTag> getMessageTags() {
-        return this.messageTags;
+        return this.serverMessage.getTags();
     }
 
     /**
@@ -97,6 +110,6 @@ public class ClientReceiveServerMessageEventBase extends ActorEventBase<Actor> i
     @Nonnull
     @Override
     public String getOriginalMessage() {
-        return this.originalMessage;
+        return this.serverMessage.getMessage();
     }
 }
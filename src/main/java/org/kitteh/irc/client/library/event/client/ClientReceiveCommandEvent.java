@@ -53,4 +53,19 @@ public class ClientReceiveCommandEvent extends ClientReceiveServerMessageEventBa
     public ClientReceiveCommandEvent(@Nonnull Client client, @Nonnull ServerMessage serverMessage, @Nonnull Actor actor, @Nonnull String command, @Nonnull List<String> args) {
         super(client, serverMessage, actor, command, args);
     }
+
+    /**
+     * Constructs the event.
+     *
+     * @param client client
+     * @param serverMessage server message
+     * @param actor actor
+     * @param command command
+     * @param args args
+     * @param copyArgs true to copy args, false to keep the given list,
+     * which must then be unmodifiable and never change
+     */
+    public ClientReceiveCommandEvent(@Nonnull Client client, @Nonnull ServerMessage serverMessage, @Nonnull Actor actor, @Nonnull String command, @Nonnull List<String> args, boolean copyArgs) {
+        super(client, serverMessage, actor, command, args, copyArgs);
+    }
 }
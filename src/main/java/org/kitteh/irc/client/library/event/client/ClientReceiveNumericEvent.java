@@ -58,6 +58,23 @@ public class ClientReceiveNumericEvent extends ClientReceiveServerMessageEventBa
         this.numeric = numeric;
     }
 
+    /**
+     * Constructs the event.
+     *
+     * @param client client
+     * @param serverMessage server message
+     * @param server server
+     * @param command command
+     * @param numeric numeric
+     * @param args args
+     * @param copyArgs true to copy args, false to keep the given list,
+     * which must then be unmodifiable and never change
+     */
+    public ClientReceiveNumericEvent(@Nonnull Client client, @Nonnull ServerMessage serverMessage, @Nonnull Actor server, String command, int numeric, @Nonnull List<String> args, boolean copyArgs) {
+        super(client, serverMessage, server, command, args, copyArgs);
+        this.numeric = numeric;
+    }
+
     /**
      * Gets the numeric code sent.
      *
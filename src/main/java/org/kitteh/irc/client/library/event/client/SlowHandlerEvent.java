@@ -0,0 +1,86 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.event.client;
+
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.event.abstractbase.ClientEventBase;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+
+/**
+ * An event handler took longer than the budget set with {@link
+ * Client.Builder#handlerTiming(int)}. Fired on the thread that ran the
+ * handler, once it has returned. Handlers of this event are not themselves
+ * reported.
+ */
+public class SlowHandlerEvent extends ClientEventBase {
+    private final Method handler;
+    private final Object event;
+    private final long duration;
+
+    /**
+     * Constructs the event.
+     *
+     * @param client client for which this is occurring
+     * @param handler the slow handler method
+     * @param event the event it was handling
+     * @param duration time taken, in nanoseconds
+     */
+    public SlowHandlerEvent(@Nonnull Client client, @Nonnull Method handler, @Nonnull Object event, long duration) {
+        super(client);
+        this.handler = handler;
+        this.event = event;
+        this.duration = duration;
+    }
+
+    /**
+     * Gets the slow handler method.
+     *
+     * @return handler method
+     */
+    @Nonnull
+    public Method getHandler() {
+        return this.handler;
+    }
+
+    /**
+     * Gets the event the handler was handling.
+     *
+     * @return event
+     */
+    @Nonnull
+    public Object getEvent() {
+        return this.event;
+    }
+
+    /**
+     * Gets the time the handler took.
+     *
+     * @return time taken, in nanoseconds
+     */
+    public long getDuration() {
+        return this.duration;
+    }
+}
@@ -37,4 +37,13 @@ public class KittehEventException extends Exception {
     public KittehEventException(@Nonnull Throwable cause) {
         super(cause);
     }
+
+    /**
+     * Constructs this event.
+     *
+     * @param message description of the problem
+     */
+    public KittehEventException(@Nonnull String message) {
+        super(message);
+    }
 }
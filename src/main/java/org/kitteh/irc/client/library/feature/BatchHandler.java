@@ -0,0 +1,68 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a listener method receiving events in batches rather than one at
+ * a time. The method takes a single {@code List} of the event type, and
+ * is called once the batch reaches {@link #maxSize()} events or the
+ * oldest of them has waited {@link #maxDelay()} milliseconds, whichever
+ * comes first. Filter annotations apply to each event as it is batched.
+ *
+ * The below code writes channel messages in bulk:
+ * <pre>
+ *     {@code @BatchHandler(maxSize = 500, maxDelay = 2000)}
+ *     public void log(List&lt;ChannelMessageEvent&gt; events) {
+ *         database.insertAll(events);
+ *     }
+ * </pre>
+ *
+ * Batches for one method are delivered one at a time and in order, either
+ * on the thread firing the event that fills the batch or on a timer
+ * thread. Anything still batched is delivered when the listener is
+ * unregistered or the client shuts down.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface BatchHandler {
+    /**
+     * Gets the most events delivered in one batch.
+     *
+     * @return maximum batch size, at least 1
+     */
+    int maxSize() default 100;
+
+    /**
+     * Gets the longest an event waits in a batch before the batch is
+     * delivered anyway.
+     *
+     * @return maximum delay in milliseconds, at least 1
+     */
+    long maxDelay() default 1000;
+}
@@ -0,0 +1,79 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature;
+
+import org.kitteh.irc.client.library.Client;
+
+/**
+ * Worker lanes dispatching a client's events in parallel across channels,
+ * while keeping strict order within each channel. Events about a channel
+ * always share a lane, as do private events from the same user. Other
+ * events share the first lane.
+ *
+ * @see Client.Builder#eventLanes(int, int)
+ */
+public interface DispatchLanes {
+    /**
+     * Gets the number of lanes.
+     *
+     * @return lane count
+     */
+    int getLaneCount();
+
+    /**
+     * Gets the number of events each lane can hold awaiting dispatch.
+     * Once a lane is full, reading from the server waits for it.
+     *
+     * @return lane capacity
+     */
+    int getLaneCapacity();
+
+    /**
+     * Gets the number of events awaiting dispatch in a lane.
+     *
+     * @param lane lane, from 0 to lane count exclusive
+     * @return queued events
+     * @throws IndexOutOfBoundsException for an invalid lane
+     */
+    int getQueued(int lane);
+
+    /**
+     * Gets the number of events a lane has dispatched.
+     *
+     * @param lane lane, from 0 to lane count exclusive
+     * @return dispatched events
+     * @throws IndexOutOfBoundsException for an invalid lane
+     */
+    long getDispatched(int lane);
+
+    /**
+     * Gets the number of times an event found a lane full and had to
+     * wait. A growing count means handlers for that lane cannot keep up.
+     *
+     * @param lane lane, from 0 to lane count exclusive
+     * @return times saturated
+     * @throws IndexOutOfBoundsException for an invalid lane
+     */
+    long getSaturations(int lane);
+}
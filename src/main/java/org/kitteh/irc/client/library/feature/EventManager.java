@@ -26,17 +26,62 @@ package org.kitteh.irc.client.library.feature;
 import net.engio.mbassy.listener.Handler;
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.feature.filter.FilterProcessor;
+import org.kitteh.irc.client.library.util.Flow;
 
 import javax.annotation.Nonnull;
 import java.lang.annotation.Annotation;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 /**
  * Processes and registers events for a single {@link Client} instance. This
- * event manager utilizes MBassador, a lightweight event bus.
+ * event manager utilizes MBassador, a lightweight event bus, or optionally
+ * a native bus reading the same annotations.
+ *
+ * @see Client.Builder#eventBus(Bus)
  */
 public interface EventManager {
+    /**
+     * The event bus backing an event manager.
+     */
+    enum Bus {
+        /**
+         * MBassador, supporting all its handler features.
+         */
+        MBASSADOR,
+        /**
+         * A purpose-built bus, which calls events without allocating.
+         * Supports {@link Handler} priority, delivery, subtype rejection and
+         * enabling, plus registered annotation filters. Handlers using
+         * MBassador's own filters, conditions or invocations are rejected
+         * on registration.
+         */
+        NATIVE
+    }
+
+    /**
+     * What a publisher does when a subscriber's buffer is full.
+     *
+     * @see #getPublisher(Class, int, Overflow)
+     */
+    enum Overflow {
+        /**
+         * Ends the subscription with an error, so no event is lost
+         * unnoticed. The thread firing events never waits on a subscriber.
+         */
+        ERROR,
+        /**
+         * Drops the oldest buffered event to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * Keeps only the latest event, ignoring the buffer size.
+         */
+        LATEST
+    }
+
     /**
      * Calls an event, triggering any registered methods for the event class.
      *
@@ -45,6 +90,56 @@ public interface EventManager {
      */
     void callEvent(@Nonnull Object event);
 
+    /**
+     * Gets if any registered handler would receive an event of the given
+     * class, for skipping the construction of events nobody hears. Cheap
+     * enough to call for every event.
+     *
+     * @param eventClass class of the event
+     * @return true if an event of the class has at least one handler
+     * @throws IllegalArgumentException for a null class
+     */
+    boolean hasSubscribers(@Nonnull Class<?> eventClass);
+
+    /**
+     * Gets the worker lanes dispatching the events the client fires from
+     * the server's messages, if enabled.
+     *
+     * @return dispatch lanes if enabled
+     * @see Client.Builder#eventLanes(int, int)
+     */
+    @Nonnull
+    Optional<DispatchLanes> getDispatchLanes();
+
+    /**
+     * Gets a publisher of events of the given class, subclasses included,
+     * for subscribers consuming at their own pace. Each subscriber is sent
+     * only as many events as it requests, from a buffer of its own, and on
+     * a thread other than the one firing events. Subscriptions complete
+     * when the client shuts down.
+     *
+     * @param eventClass class of events to publish
+     * @param bufferSize events buffered for each subscriber
+     * @param overflow what to do when a subscriber's buffer is full
+     * @param <T> event type
+     * @return publisher
+     * @throws IllegalArgumentException for null class or overflow or a
+     * buffer size below 1
+     */
+    @Nonnull
+    <T> Flow.Publisher<T> getPublisher(@Nonnull Class<T> eventClass, int bufferSize, @Nonnull Overflow overflow);
+
+    /**
+     * Gets the timings of each handler method, if handler timing is
+     * enabled, with the handlers taking the most time in total first.
+     * Listeners of the same class share the timings of their methods.
+     *
+     * @return handler timings, empty if not enabled
+     * @see Client.Builder#handlerTiming(int)
+     */
+    @Nonnull
+    List<HandlerStats> getHandlerStats();
+
     /**
      * Gets all registered listener objects.
      *
@@ -76,9 +171,11 @@ public interface EventManager {
     /**
      * Registers annotated with {@link Handler} with sync invocation,
      * provided they have a single parameter. This parameter is the event.
+     * Methods annotated with {@link BatchHandler} are registered too.
      *
      * @param listener listener in which to register events
-     * @throws IllegalArgumentException for a null listener
+     * @throws IllegalArgumentException for a null listener or a batch
+     * handler not taking a single list of events
      */
     void registerEventListener(@Nonnull Object listener);
 
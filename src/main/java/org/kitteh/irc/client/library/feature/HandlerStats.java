@@ -0,0 +1,75 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature;
+
+import org.kitteh.irc.client.library.Client;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+
+/**
+ * Timings of one event handler method, across every listener registered
+ * with it. Times are in nanoseconds.
+ *
+ * @see Client.Builder#handlerTiming(int)
+ * @see EventManager#getHandlerStats()
+ */
+public interface HandlerStats {
+    /**
+     * Gets the handler method.
+     *
+     * @return method
+     */
+    @Nonnull
+    Method getMethod();
+
+    /**
+     * Gets the number of times the handler has been invoked.
+     *
+     * @return invocations
+     */
+    long getInvocations();
+
+    /**
+     * Gets the number of invocations taking longer than the budget.
+     *
+     * @return slow invocations
+     */
+    long getSlowInvocations();
+
+    /**
+     * Gets the total time spent in the handler.
+     *
+     * @return total time
+     */
+    long getTotalTime();
+
+    /**
+     * Gets the distribution of the handler's invocation times.
+     *
+     * @return invocation times
+     */
+    @Nonnull
+    Metrics.Histogram getLatency();
+}
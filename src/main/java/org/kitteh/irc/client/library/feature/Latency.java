@@ -0,0 +1,74 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A snapshot of the round trip time to the server, measured by matching
+ * the client's PING messages to the server's PONG replies. Smoothing
+ * follows the retransmission timer calculation of RFC 6298.
+ */
+public interface Latency {
+    /**
+     * Gets the most recently measured round trip time.
+     *
+     * @return last round trip time if any has been measured
+     */
+    @Nonnull
+    Optional<Duration> getLastRoundTripTime();
+
+    /**
+     * Gets the smoothed round trip time.
+     *
+     * @return smoothed round trip time if any has been measured
+     */
+    @Nonnull
+    Optional<Duration> getSmoothedRoundTripTime();
+
+    /**
+     * Gets the round trip time variation, the smoothed mean deviation of
+     * measurements from the smoothed round trip time.
+     *
+     * @return round trip time variation if any has been measured
+     */
+    @Nonnull
+    Optional<Duration> getRoundTripTimeVariation();
+
+    /**
+     * Gets the number of round trips measured on the current connection.
+     *
+     * @return number of measurements
+     */
+    int getSampleCount();
+
+    /**
+     * Gets the number of PING messages still awaiting a PONG.
+     *
+     * @return unanswered pings
+     */
+    int getUnansweredPings();
+}
@@ -0,0 +1,199 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.feature;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Counts and timings of a client's work, kept for the client's lifetime
+ * across reconnections. Everything is read live, so values read together
+ * may be moments apart. Times are in nanoseconds.
+ *
+ * When enabled with {@link
+ * org.kitteh.irc.client.library.Client.Builder#metricsMBean(boolean)},
+ * the same values are available over JMX as an MXBean named
+ * {@code org.kitteh.irc.client.library:type=Metrics,name=<client name>}.
+ */
+public interface Metrics {
+    /**
+     * A distribution of recorded times, in buckets within about 3% of the
+     * values they hold.
+     */
+    interface Histogram {
+        /**
+         * Gets the number of values recorded.
+         *
+         * @return count
+         */
+        long getCount();
+
+        /**
+         * Gets the mean of the values recorded.
+         *
+         * @return mean, or 0 if none recorded
+         */
+        double getMean();
+
+        /**
+         * Gets the largest value recorded.
+         *
+         * @return maximum, or 0 if none recorded
+         */
+        long getMax();
+
+        /**
+         * Gets the median.
+         *
+         * @return value at the 50th percentile
+         */
+        long getMedian();
+
+        /**
+         * Gets the 90th percentile.
+         *
+         * @return value at the 90th percentile
+         */
+        long get90thPercentile();
+
+        /**
+         * Gets the 99th percentile.
+         *
+         * @return value at the 99th percentile
+         */
+        long get99thPercentile();
+
+        /**
+         * Gets the 99.9th percentile.
+         *
+         * @return value at the 99.9th percentile
+         */
+        long get999thPercentile();
+
+        /**
+         * Gets the value at a percentile, the largest value in the bucket
+         * the percentile falls in.
+         *
+         * @param percentile percentile, from 0 to 100
+         * @return value at the percentile, or 0 if none recorded
+         * @throws IllegalArgumentException for a percentile outside 0 to 100
+         */
+        long getValueAtPercentile(double percentile);
+    }
+
+    /**
+     * Gets the number of lines received from the server.
+     *
+     * @return lines received
+     */
+    long getLinesIn();
+
+    /**
+     * Gets the number of lines sent to the server.
+     *
+     * @return lines sent
+     */
+    long getLinesOut();
+
+    /**
+     * Gets the number of bytes received from the server, after any
+     * decryption.
+     *
+     * @return bytes received
+     */
+    long getBytesIn();
+
+    /**
+     * Gets the number of bytes sent to the server, before any encryption.
+     *
+     * @return bytes sent
+     */
+    long getBytesOut();
+
+    /**
+     * Gets the number of messages waiting in the outbound queue, which
+     * sends one message per message delay.
+     *
+     * @return messages queued
+     */
+    int getOutboundQueueDepth();
+
+    /**
+     * Gets how long messages waited in the outbound queue. Empty unless
+     * enabled with {@link
+     * org.kitteh.irc.client.library.Client.Builder#latencyMetrics(boolean)},
+     * as are the other latencies.
+     *
+     * @return outbound wait times
+     */
+    @Nonnull
+    Histogram getOutboundWait();
+
+    /**
+     * Gets how long received lines waited before processing began, if
+     * latencies are recorded.
+     *
+     * @return input lag times
+     */
+    @Nonnull
+    Histogram getInputLag();
+
+    /**
+     * Gets how long events took to reach all of their handlers, counting
+     * only handlers called on the firing thread, if latencies are
+     * recorded.
+     *
+     * @return dispatch times
+     */
+    @Nonnull
+    Histogram getDispatchLatency();
+
+    /**
+     * Gets the number of reconnections attempted.
+     *
+     * @return reconnections
+     */
+    long getReconnects();
+
+    /**
+     * Gets the number of channels tracked.
+     *
+     * @return tracked channels
+     */
+    int getTrackedChannels();
+
+    /**
+     * Gets the number of users tracked.
+     *
+     * @return tracked users
+     */
+    int getTrackedUsers();
+
+    /**
+     * Gets the number of times a snapshot of a channel or user was built
+     * because the previous one was out of date.
+     *
+     * @return snapshots built
+     */
+    long getSnapshotRebuilds();
+}
@@ -54,16 +54,14 @@ public abstract class AbstractSaslProtocol<AuthValue> extends AbstractUserProtoc
     protected class Listener {
         @Handler(priority = 1)
         public void capList(CapabilitiesSupportedListEvent event) {
-            if (event.isNegotiating() && !AbstractSaslProtocol.this.authenticating) {
-                Optional<CapabilityState> state = event.getSupportedCapabilities().stream().filter(c -> c.getName().equalsIgnoreCase(CapabilityManager.Defaults.SASL)).findFirst();
-                if (!state.isPresent()) {
-                    return;
-                }
-                Optional<String> stateValue = state.get().getValue();
-                if (stateValue.isPresent()) {
-                    if (Arrays.stream(stateValue.get().split(",")).filter(mechanism -> mechanism.equalsIgnoreCase(AbstractSaslProtocol.this.saslType)).count() == 0) {
-                        return; // Don't bother if it doesn't support our type
-                    }
+            if (!event.isNegotiating()) {
+                return;
+            }
+            Optional<CapabilityState> state = event.getSupportedCapabilities().stream().filter(c -> c.getName().equalsIgnoreCase(CapabilityManager.Defaults.SASL)).findFirst();
+            AbstractSaslProtocol.this.supported = state.isPresent() && state.get().getValue().map(value -> Arrays.stream(value.split(",")).anyMatch(mechanism -> mechanism.equalsIgnoreCase(AbstractSaslProtocol.this.saslType))).orElse(true);
+            if (!AbstractSaslProtocol.this.authenticating) {
+                if (!AbstractSaslProtocol.this.supported) {
+                    return; // Don't bother if it doesn't support our type
                 }
                 new CapabilityRequestCommand(AbstractSaslProtocol.this.getClient()).enable(CapabilityManager.Defaults.SASL).execute();
                 event.setEndingNegotiation(false);
@@ -74,14 +72,25 @@ public abstract class AbstractSaslProtocol<AuthValue> extends AbstractUserProtoc
         @Handler(priority = 1)
         public void capAck(CapabilitiesAcknowledgedEvent event) {
             if (event.getAcknowledgedCapabilities().stream().filter(c -> c.getName().equalsIgnoreCase(CapabilityManager.Defaults.SASL)).count() > 0) {
-                AbstractSaslProtocol.this.startAuthentication();
+                if (!AbstractSaslProtocol.this.authenticationSent) { // Unless already pipelined
+                    AbstractSaslProtocol.this.authenticationSent = true;
+                    AbstractSaslProtocol.this.startAuthentication();
+                }
             }
         }
 
         @Handler(priority = 1)
         public void capNak(CapabilitiesRejectedEvent event) {
             if (event.getRejectedCapabilitiesRequest().stream().filter(c -> c.getName().equalsIgnoreCase(CapabilityManager.Defaults.SASL)).count() > 0) {
-                AbstractSaslProtocol.this.authenticating = false;
+                AbstractSaslProtocol.this.authenticationSent = false;
+                if (AbstractSaslProtocol.this.pipelined && AbstractSaslProtocol.this.supported) {
+                    // The pipelined request was rejected as a whole, ask for SASL alone
+                    AbstractSaslProtocol.this.pipelined = false;
+                    new CapabilityRequestCommand(AbstractSaslProtocol.this.getClient()).enable(CapabilityManager.Defaults.SASL).execute();
+                } else {
+                    AbstractSaslProtocol.this.pipelined = false;
+                    AbstractSaslProtocol.this.authenticating = false;
+                }
             }
         }
 
@@ -121,11 +130,16 @@ public abstract class AbstractSaslProtocol<AuthValue> extends AbstractUserProtoc
         @NumericFilter(908)
         @Handler
         public void fail(ClientReceiveNumericEvent event) {
+            if (!AbstractSaslProtocol.this.authenticationSent) {
+                return; // Reply to a pipelined AUTHENTICATE whose capability request was rejected
+            }
             this.finish();
         }
 
         private void finish() {
             AbstractSaslProtocol.this.authenticating = false;
+            AbstractSaslProtocol.this.authenticationSent = false;
+            AbstractSaslProtocol.this.pipelined = false;
             AbstractSaslProtocol.this.getClient().sendRawLineImmediately("CAP END"); // TODO event decision
         }
 
@@ -140,6 +154,9 @@ public abstract class AbstractSaslProtocol<AuthValue> extends AbstractUserProtoc
     private final String saslType;
     private AuthValue authValue;
     private volatile boolean authenticating = false;
+    private volatile boolean authenticationSent = false;
+    private volatile boolean pipelined = false;
+    private volatile boolean supported = false;
 
     /**
      * Creates an instance.
@@ -167,6 +184,22 @@ public abstract class AbstractSaslProtocol<AuthValue> extends AbstractUserProtoc
         return (this.listener == null) ? (this.listener = new Listener()) : this.listener;
     }
 
+    /**
+     * Begins authentication ahead of capability negotiation, for a client
+     * requesting SASL before the server lists its capabilities. The
+     * returned message is to be sent directly after that request.
+     *
+     * @return the first AUTHENTICATE message
+     */
+    @Nonnull
+    public String startPipelinedAuthentication() {
+        this.authenticating = true;
+        this.authenticationSent = true;
+        this.pipelined = true;
+        this.supported = false;
+        return this.getAuthentication();
+    }
+
     /**
      * Gets the authentication value, be it a password or key.
      *
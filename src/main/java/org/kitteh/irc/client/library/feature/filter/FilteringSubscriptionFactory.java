@@ -27,10 +27,14 @@ import net.engio.mbassy.bus.BusRuntime;
 import net.engio.mbassy.bus.IMessagePublication;
 import net.engio.mbassy.bus.config.IBusConfiguration;
 import net.engio.mbassy.bus.error.MessageBusException;
+import net.engio.mbassy.bus.error.PublicationError;
 import net.engio.mbassy.common.StrongConcurrentSet;
 import net.engio.mbassy.common.WeakConcurrentSet;
 import net.engio.mbassy.dispatch.DelegatingMessageDispatcher;
+import net.engio.mbassy.dispatch.HandlerInvocation;
+import net.engio.mbassy.dispatch.IHandlerInvocation;
 import net.engio.mbassy.dispatch.IMessageDispatcher;
+import net.engio.mbassy.dispatch.ReflectiveHandlerInvocation;
 import net.engio.mbassy.listener.MessageHandler;
 import net.engio.mbassy.subscription.Subscription;
 import net.engio.mbassy.subscription.SubscriptionContext;
@@ -39,19 +43,50 @@ import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 public class FilteringSubscriptionFactory extends SubscriptionFactory {
     private static final Constructor<Subscription> SUBSCRIPTION_CONSTRUCTOR;
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    // Held by the listener class, so cached invokers don't keep it loaded
+    private static final ClassValue<Map<Method, Invoker>> INVOKERS = new ClassValue<Map<Method, Invoker>>() {
+        @Override
+        protected Map<Method, Invoker> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
     private final Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters;
+    private final InvocationTimer timer;
 
     public FilteringSubscriptionFactory(@Nonnull Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters) {
+        this(filters, null);
+    }
+
+    /**
+     * Creates a factory timing each handler invocation.
+     *
+     * @param filters filter processors by annotation
+     * @param timer receiver of invocation times, or null to not time
+     */
+    public FilteringSubscriptionFactory(@Nonnull Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters, @Nullable InvocationTimer timer) {
         this.filters = Sanity.nullCheck(filters, "filters");
+        this.timer = timer;
     }
 
     static {
@@ -84,6 +119,179 @@ public class FilteringSubscriptionFactory extends SubscriptionFactory {
         }
     }
 
+    @Override
+    protected IHandlerInvocation<Object, Object> createBaseHandlerInvocation(SubscriptionContext context) throws MessageBusException {
+        IHandlerInvocation<Object, Object> invocation = this.createUntimedHandlerInvocation(context);
+        return (this.timer == null) ? invocation : new TimedHandlerInvocation(context, invocation, this.timer);
+    }
+
+    @Nonnull
+    @SuppressWarnings("unchecked") // MBassador's invocations take any listener and message
+    private IHandlerInvocation<Object, Object> createUntimedHandlerInvocation(SubscriptionContext context) throws MessageBusException {
+        Method method = context.getHandler().getMethod();
+        if ((context.getHandler().getHandlerInvocation() == ReflectiveHandlerInvocation.class) && !Modifier.isStatic(method.getModifiers())) {
+            try {
+                return new DirectHandlerInvocation(context, createInvoker(method));
+            } catch (Throwable ignored) {
+                // Reflection still works where a direct invoker cannot be made
+            }
+        }
+        return (IHandlerInvocation<Object, Object>) super.createBaseHandlerInvocation(context);
+    }
+
+    /**
+     * Receives the time each handler invocation took.
+     */
+    @FunctionalInterface
+    public interface InvocationTimer {
+        /**
+         * Records an invocation, called on the thread that ran it once it
+         * has returned or thrown.
+         *
+         * @param method handler method
+         * @param message message handled
+         * @param nanos time taken, in nanoseconds
+         */
+        void record(@Nonnull Method method, @Nonnull Object message, long nanos);
+    }
+
+    /**
+     * Calls a handler method on a listener.
+     */
+    @FunctionalInterface
+    public interface Invoker {
+        /**
+         * Calls the handler method.
+         *
+         * @param listener listener owning the method
+         * @param message message to pass the method
+         * @throws Throwable anything thrown by the handler method
+         */
+        void invoke(Object listener, Object message) throws Throwable;
+    }
+
+    /**
+     * Gets an invoker calling the given handler method directly. Where
+     * the listener and event classes are public and visible to this class,
+     * the invoker is a generated class calling the method as compiled code
+     * would. Otherwise, a method handle does the job. Each method's invoker
+     * is created once and reused by every later registration.
+     *
+     * @param method handler method
+     * @return invoker
+     * @throws Throwable if the method cannot be invoked
+     */
+    @Nonnull
+    public static Invoker createInvoker(@Nonnull Method method) throws Throwable {
+        Map<Method, Invoker> invokers = INVOKERS.get(method.getDeclaringClass());
+        Invoker invoker = invokers.get(method);
+        if (invoker == null) {
+            invoker = generateInvoker(method);
+            Invoker existing = invokers.putIfAbsent(method, invoker);
+            if (existing != null) {
+                invoker = existing;
+            }
+        }
+        return invoker;
+    }
+
+    @Nonnull
+    private static Invoker generateInvoker(@Nonnull Method method) throws Throwable {
+        method.setAccessible(true);
+        MethodHandle handle = LOOKUP.unreflect(method);
+        MethodType invokerType = MethodType.methodType(void.class, Object.class, Object.class);
+        Class<?> listenerClass = method.getDeclaringClass();
+        Class<?> messageClass = method.getParameterTypes()[0];
+        if (Modifier.isPublic(method.getModifiers()) && isVisible(listenerClass) && isVisible(messageClass)) {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "invoke", MethodType.methodType(Invoker.class), invokerType, handle, MethodType.methodType(void.class, listenerClass, messageClass));
+            return (Invoker) site.getTarget().invokeExact();
+        }
+        MethodHandle generic = handle.asType(invokerType);
+        return (listener, message) -> {
+            generic.invokeExact(listener, message);
+        };
+    }
+
+    /**
+     * Creates a check of the filter annotations on the given method, for
+     * handlers invoked outside of an event bus.
+     *
+     * @param method annotated method
+     * @param filters filter processors by annotation
+     * @return predicate accepting events passing every filter on the method
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public static Predicate<Object> createFilter(@Nonnull Method method, @Nonnull Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters) {
+        Predicate<Object> predicate = event -> true;
+        for (Map.Entry<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> entry : filters.entrySet()) {
+            Annotation[] annotations = method.getAnnotationsByType(entry.getKey());
+            if (annotations.length > 0) {
+                FilterProcessor<Object, Annotation> processor = (FilterProcessor<Object, Annotation>) entry.getValue();
+                predicate = predicate.and(event -> processor.accepts(event, annotations));
+            }
+        }
+        return predicate;
+    }
+
+    private static boolean isVisible(@Nonnull Class<?> clazz) {
+        for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            // Listeners from other class loaders cannot be named by generated classes
+            return Class.forName(clazz.getName(), false, FilteringSubscriptionFactory.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static final class DirectHandlerInvocation extends HandlerInvocation<Object, Object> {
+        private final Invoker invoker;
+        private final Method method;
+
+        private DirectHandlerInvocation(SubscriptionContext context, Invoker invoker) {
+            super(context);
+            this.invoker = invoker;
+            this.method = context.getHandler().getMethod();
+        }
+
+        @Override
+        public void invoke(Object listener, Object message) {
+            try {
+                this.invoker.invoke(listener, message);
+            } catch (Throwable thrown) {
+                // Reported just as a reflective invocation would
+                this.handlePublicationError(new PublicationError(new InvocationTargetException(thrown), "Error during invocation of message handler. Message handler threw exception", this.method, listener, message));
+            }
+        }
+    }
+
+    private static final class TimedHandlerInvocation extends HandlerInvocation<Object, Object> {
+        private final IHandlerInvocation<Object, Object> invocation;
+        private final InvocationTimer timer;
+        private final Method method;
+
+        private TimedHandlerInvocation(SubscriptionContext context, IHandlerInvocation<Object, Object> invocation, InvocationTimer timer) {
+            super(context);
+            this.invocation = invocation;
+            this.timer = timer;
+            this.method = context.getHandler().getMethod();
+        }
+
+        @Override
+        public void invoke(Object listener, Object message) {
+            long start = System.nanoTime();
+            try {
+                this.invocation.invoke(listener, message);
+            } finally {
+                this.timer.record(this.method, message, System.nanoTime() - start);
+            }
+        }
+    }
+
     private final class FilteredMessageDispatcher extends DelegatingMessageDispatcher {
         private final FilterProcessorWrapper[] filters;
 
@@ -24,14 +24,16 @@
 package org.kitteh.irc.client.library.implementation;
 
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 import org.kitteh.irc.client.library.util.TriFunction;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 abstract class AbstractNameValueProcessor<NameValue> {
     protected static class Creator<NameValue> {
@@ -48,7 +50,8 @@ abstract class AbstractNameValueProcessor<NameValue> {
     }
 
     private final InternalClient client;
-    private final Map<String, Creator<NameValue>> registeredNames = new ConcurrentHashMap<>();
+    private final Object registrationLock = new Object();
+    private volatile Map<String, Creator<NameValue>> registeredNames = Collections.emptyMap(); // Copied on write
 
     AbstractNameValueProcessor(InternalClient client) {
         this.client = client;
@@ -58,10 +61,26 @@ abstract class AbstractNameValueProcessor<NameValue> {
         return this.client;
     }
 
+    /**
+     * Gets the current registrations. The map is never modified, so it can
+     * be used as a snapshot.
+     *
+     * @return registrations by name
+     */
+    @Nonnull
     protected final Map<String, Creator<NameValue>> getRegistrations() {
         return this.registeredNames;
     }
 
+    /**
+     * Called with the new registrations after each change, before other
+     * threads can see them.
+     *
+     * @param registrations registrations by name
+     */
+    protected void registrationsChanged(@Nonnull Map<String, Creator<NameValue>> registrations) {
+    }
+
     @Nonnull
     protected final Optional<TriFunction<Client, String, Optional<String>, ? extends NameValue>> getCreatorByName(@Nonnull String name) {
         return this.optional(this.registeredNames.get(name));
@@ -69,12 +88,33 @@ abstract class AbstractNameValueProcessor<NameValue> {
 
     @Nonnull
     protected final Optional<TriFunction<Client, String, Optional<String>, ? extends NameValue>> registerCreator(@Nonnull String name, @Nonnull Creator<NameValue> creator) {
-        return this.optional(this.registeredNames.put(name, creator));
+        Sanity.nullCheck(name, "Name cannot be null");
+        Sanity.nullCheck(creator, "Creator cannot be null");
+        synchronized (this.registrationLock) {
+            Map<String, Creator<NameValue>> registrations = new HashMap<>(this.registeredNames);
+            Creator<NameValue> previous = registrations.put(name, creator);
+            this.publish(registrations);
+            return this.optional(previous);
+        }
     }
 
     @Nonnull
     protected final Optional<TriFunction<Client, String, Optional<String>, ? extends NameValue>> unregisterCreator(@Nonnull String name) {
-        return this.optional(this.registeredNames.remove(name));
+        synchronized (this.registrationLock) {
+            if (!this.registeredNames.containsKey(name)) {
+                return Optional.empty();
+            }
+            Map<String, Creator<NameValue>> registrations = new HashMap<>(this.registeredNames);
+            Creator<NameValue> previous = registrations.remove(name);
+            this.publish(registrations);
+            return this.optional(previous);
+        }
+    }
+
+    private void publish(@Nonnull Map<String, Creator<NameValue>> registrations) {
+        Map<String, Creator<NameValue>> unmodifiable = Collections.unmodifiableMap(registrations);
+        this.registrationsChanged(unmodifiable);
+        this.registeredNames = unmodifiable;
     }
 
     @Nonnull
@@ -58,6 +58,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
@@ -134,7 +135,7 @@ class ActorProvider implements Resettable {
 
     private class IRCStaleable<T extends Staleable> extends IRCActor {
         @Nullable
-        private T snapshot;
+        private volatile T snapshot;
 
         IRCStaleable(@Nonnull String name) {
             super(name);
@@ -144,7 +145,8 @@ class ActorProvider implements Resettable {
             return this.snapshot != potentiallyStale;
         }
 
-        void markStale() {
+        // Waits out a snapshot being built, which may predate the change, so it is not kept
+        synchronized void markStale() {
             this.snapshot = null;
         }
 
@@ -153,7 +155,11 @@ class ActorProvider implements Resettable {
             if (this.snapshot != null) {
                 return this.snapshot;
             }
-            return this.snapshot = supplier.get();
+            ActorProvider.this.snapshotRebuilds.increment();
+            Object flight = Flight.beginStateUpdate();
+            this.snapshot = supplier.get();
+            Flight.commitStateUpdate(flight, ActorProvider.this.client, this.getName());
+            return this.snapshot;
         }
     }
 
@@ -710,6 +716,7 @@ class ActorProvider implements Resettable {
 
     private final Map<String, IRCChannel> trackedChannels;
     private final Map<String, IRCUser> trackedUsers;
+    private final LongAdder snapshotRebuilds = new LongAdder();
 
     ActorProvider(@Nonnull InternalClient client) {
         this.client = client;
@@ -723,6 +730,18 @@ class ActorProvider implements Resettable {
         this.trackedUsers.forEach((name, user) -> user.markStale());
     }
 
+    int getTrackedChannelCount() {
+        return this.trackedChannels.size();
+    }
+
+    int getTrackedUserCount() {
+        return this.trackedUsers.size();
+    }
+
+    long getSnapshotRebuilds() {
+        return this.snapshotRebuilds.sum();
+    }
+
     void trackChannel(@Nonnull IRCChannel channel) {
         this.trackedChannels.put(channel.getName(), channel);
         channel.setTracked(true);
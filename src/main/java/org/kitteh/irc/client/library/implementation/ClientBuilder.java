@@ -24,6 +24,8 @@
 package org.kitteh.irc.client.library.implementation;
 
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.ClientLauncher;
+import org.kitteh.irc.client.library.feature.EventManager;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
@@ -33,6 +35,7 @@ import javax.net.ssl.TrustManagerFactory;
 import java.io.File;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
 final class ClientBuilder implements Client.Builder, Cloneable {
@@ -71,6 +74,54 @@ final class ClientBuilder implements Client.Builder, Cloneable {
         return this;
     }
 
+    @Nonnull
+    @Override
+    public ClientBuilder captureLog(@Nullable File file) {
+        this.config.set(Config.CAPTURE_LOG, file);
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientBuilder eventBus(@Nonnull EventManager.Bus bus) {
+        this.config.set(Config.EVENT_BUS, Sanity.nullCheck(bus, "Bus cannot be null"));
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientBuilder eventLanes(int lanes, int capacity) {
+        Sanity.truthiness(lanes >= 0, "Lanes cannot be negative");
+        Sanity.truthiness(capacity > 0, "Capacity must be at least 1");
+        this.config.set(Config.EVENT_LANES, lanes);
+        this.config.set(Config.EVENT_LANE_CAPACITY, capacity);
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientBuilder handlerTiming(int budget) {
+        Sanity.truthiness(budget >= 0, "Budget cannot be negative");
+        this.config.set(Config.HANDLER_TIMING, budget);
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientBuilder idleThreshold(int threshold) {
+        Sanity.truthiness(threshold > 0, "Threshold must be at least 1");
+        this.config.set(Config.IDLE_THRESHOLD, threshold);
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientBuilder launcher(@Nullable ClientLauncher launcher) {
+        Sanity.truthiness((launcher == null) || (launcher instanceof IRCClientLauncher), "Launcher must be created via ClientLauncher.builder()");
+        this.config.set(Config.LAUNCHER, (IRCClientLauncher) launcher);
+        return this;
+    }
+
     @Nonnull
     @Override
     public ClientBuilder listenException(@Nullable Consumer<Exception> listener) {
@@ -92,6 +143,14 @@ final class ClientBuilder implements Client.Builder, Cloneable {
         return this;
     }
 
+    @Nonnull
+    @Override
+    public ClientBuilder missedPongLimit(int limit) {
+        Sanity.truthiness(limit > 0, "Limit must be at least 1");
+        this.config.set(Config.PING_MISSED_LIMIT, limit);
+        return this;
+    }
+
     @Nonnull
     @Override
     public ClientBuilder name(@Nonnull String name) {
@@ -116,6 +175,26 @@ final class ClientBuilder implements Client.Builder, Cloneable {
         return this;
     }
 
+    @Nonnull
+    @Override
+    public ClientBuilder pingInterval(int interval) {
+        Sanity.truthiness(interval > 0, "Interval must be at least 1");
+        this.config.set(Config.PING_INTERVAL, interval);
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientBuilder pipelinedRegistration(@Nonnull String... capabilities) {
+        Sanity.nullCheck(capabilities, "Capabilities cannot be null");
+        for (String capability : capabilities) {
+            Sanity.safeMessageCheck(capability, "Capability");
+            Sanity.truthiness(!capability.isEmpty() && !capability.contains(" "), "Capability cannot be empty or contain spaces");
+        }
+        this.config.set(Config.PIPELINED_CAPABILITIES, (capabilities.length == 0) ? null : String.join(" ", capabilities));
+        return this;
+    }
+
     @Nonnull
     @Override
     public ClientBuilder realName(@Nonnull String name) {
@@ -124,6 +203,14 @@ final class ClientBuilder implements Client.Builder, Cloneable {
         return this;
     }
 
+    @Nonnull
+    @Override
+    public ClientBuilder registrationTimeout(int timeout) {
+        Sanity.truthiness(timeout > 0, "Timeout must be at least 1");
+        this.config.set(Config.REGISTRATION_TIMEOUT, timeout);
+        return this;
+    }
+
     @Nonnull
     @Override
     public ClientBuilder secure(boolean ssl) {
@@ -159,6 +246,13 @@ final class ClientBuilder implements Client.Builder, Cloneable {
         return this;
     }
 
+    @Nonnull
+    @Override
+    public ClientBuilder localServer(@Nullable String name) {
+        this.config.set(Config.LOCAL_SERVER, name);
+        return this;
+    }
+
     @Nonnull
     @Override
     public ClientBuilder messageDelay(int delay) {
@@ -167,6 +261,20 @@ final class ClientBuilder implements Client.Builder, Cloneable {
         return this;
     }
 
+    @Nonnull
+    @Override
+    public ClientBuilder latencyMetrics(boolean record) {
+        this.config.set(Config.LATENCY_METRICS, record);
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientBuilder metricsMBean(boolean register) {
+        this.config.set(Config.METRICS_MBEAN, register);
+        return this;
+    }
+
     @Nonnull
     @Override
     public ClientBuilder serverHost(@Nonnull String host) {
@@ -182,6 +290,13 @@ final class ClientBuilder implements Client.Builder, Cloneable {
         return this;
     }
 
+    @Nonnull
+    @Override
+    public ClientBuilder threadFactory(@Nullable ThreadFactory factory) {
+        this.config.set(Config.THREAD_FACTORY, factory);
+        return this;
+    }
+
     @Nonnull
     @Override
     public ClientBuilder user(@Nonnull String user) {
@@ -244,6 +359,20 @@ final class ClientBuilder implements Client.Builder, Cloneable {
         return client;
     }
 
+    @Nonnull
+    @Override
+    public Client buildForReplay() {
+        this.updateInetEntries();
+        Config config = this.config.clone();
+        config.set(Config.REPLAY_ONLY, true);
+        config.set(Config.CAPTURE_LOG, null); // Would replace the log about to be replayed
+        IRCClient client = new IRCClient(config);
+        if (this.after != null) {
+            this.after.accept(client);
+        }
+        return client;
+    }
+
     @Nonnull
     @Override
     public ClientBuilder clone() {
@@ -0,0 +1,69 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.ClientLauncher;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+
+final class ClientLauncherBuilder implements ClientLauncher.Builder {
+    private static final int DEFAULT_MAX_CONCURRENT = 4;
+    private static final int DEFAULT_CONNECT_DELAY = 1000;
+
+    private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+    private int connectDelay = DEFAULT_CONNECT_DELAY;
+
+    ClientLauncherBuilder() {
+    }
+
+    @Nonnull
+    @Override
+    public ClientLauncherBuilder maxConcurrentPerServer(int max) {
+        Sanity.truthiness(max > 0, "Maximum must be at least 1");
+        this.maxConcurrent = max;
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientLauncherBuilder connectDelay(int delay) {
+        Sanity.truthiness(delay >= 0, "Delay cannot be negative");
+        this.connectDelay = delay;
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientLauncher build() {
+        return new IRCClientLauncher(this.maxConcurrent, this.connectDelay);
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("maxConcurrent", this.maxConcurrent).add("connectDelay", this.connectDelay).toString();
+    }
+}
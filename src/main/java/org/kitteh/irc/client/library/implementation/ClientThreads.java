@@ -0,0 +1,96 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates a client's threads, from the thread factory set when building it
+ * or otherwise as named daemon threads.
+ */
+final class ClientThreads {
+    private ClientThreads() {
+    }
+
+    /**
+     * Gets a factory for threads serving one purpose.
+     *
+     * @param clientName client name, for default thread names
+     * @param purpose purpose, for default thread names
+     * @param factory factory set when building the client, or null
+     * @return the given factory, or one creating named daemon threads
+     */
+    @Nonnull
+    static ThreadFactory factory(@Nonnull String clientName, @Nonnull String purpose, @Nullable ThreadFactory factory) {
+        if (factory != null) {
+            return factory;
+        }
+        String name = "Kitteh IRC Client " + purpose + " (" + clientName + ')';
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Creates a pool starting threads as needed and dropping them after a
+     * minute idle. Once the pool is shut down, tasks run on the thread
+     * submitting them.
+     *
+     * @param clientName client name, for default thread names
+     * @param purpose purpose, for default thread names
+     * @param factory factory set when building the client, or null
+     * @return pool
+     */
+    @Nonnull
+    static ExecutorService cachedPool(@Nonnull String clientName, @Nonnull String purpose, @Nullable ThreadFactory factory) {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), factory(clientName, purpose, factory), (task, pool) -> task.run());
+    }
+
+    /**
+     * Creates a pool of up to the given number of threads, queueing tasks
+     * while all are busy and dropping threads after a minute idle. Once
+     * the pool is shut down, tasks run on the thread submitting them.
+     *
+     * @param clientName client name, for default thread names
+     * @param purpose purpose, for default thread names
+     * @param factory factory set when building the client, or null
+     * @param threads maximum threads
+     * @return pool
+     */
+    @Nonnull
+    static ExecutorService fixedPool(@Nonnull String clientName, @Nonnull String purpose, @Nullable ThreadFactory factory, int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory(clientName, purpose, factory), (task, pool) -> task.run());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -24,6 +24,7 @@
 package org.kitteh.irc.client.library.implementation;
 
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.feature.EventManager;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
@@ -36,6 +37,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
 /**
@@ -130,12 +132,27 @@ final class Config {
 
     static final Entry<String> NAME = new Entry<>("Unnamed", String.class);
     static final Entry<InetSocketAddress> BIND_ADDRESS = new Entry<>(null, InetSocketAddress.class);
+    static final Entry<File> CAPTURE_LOG = new Entry<>(null, File.class);
+    static final Entry<EventManager.Bus> EVENT_BUS = new Entry<>(EventManager.Bus.MBASSADOR, EventManager.Bus.class);
+    static final Entry<Integer> EVENT_LANES = new Entry<>(0, Integer.class);
+    static final Entry<Integer> EVENT_LANE_CAPACITY = new Entry<>(1024, Integer.class);
+    static final Entry<Integer> HANDLER_TIMING = new Entry<>(0, Integer.class);
+    static final Entry<Integer> IDLE_THRESHOLD = new Entry<>(60000, Integer.class);
+    static final Entry<Boolean> LATENCY_METRICS = new Entry<>(false, Boolean.class);
+    static final Entry<IRCClientLauncher> LAUNCHER = new Entry<>(null, IRCClientLauncher.class);
     static final Entry<ExceptionConsumerWrapper> LISTENER_EXCEPTION = new Entry<>(new ExceptionConsumerWrapper(Throwable::printStackTrace), ExceptionConsumerWrapper.class);
     static final Entry<StringConsumerWrapper> LISTENER_INPUT = new Entry<>(null, StringConsumerWrapper.class);
     static final Entry<StringConsumerWrapper> LISTENER_OUTPUT = new Entry<>(null, StringConsumerWrapper.class);
+    static final Entry<String> LOCAL_SERVER = new Entry<>(null, String.class);
     static final Entry<Integer> MESSAGE_DELAY = new Entry<>(Client.DEFAULT_MESSAGE_DELAY, Integer.class);
+    static final Entry<Boolean> METRICS_MBEAN = new Entry<>(false, Boolean.class);
     static final Entry<String> NICK = new Entry<>("Kitteh", String.class);
+    static final Entry<Integer> PING_INTERVAL = new Entry<>(60000, Integer.class);
+    static final Entry<Integer> PING_MISSED_LIMIT = new Entry<>(3, Integer.class);
+    static final Entry<String> PIPELINED_CAPABILITIES = new Entry<>(null, String.class);
     static final Entry<String> REAL_NAME = new Entry<>("Kitteh", String.class);
+    static final Entry<Integer> REGISTRATION_TIMEOUT = new Entry<>(60000, Integer.class);
+    static final Entry<Boolean> REPLAY_ONLY = new Entry<>(false, Boolean.class);
     static final Entry<InetSocketAddress> SERVER_ADDRESS = new Entry<>(new InetSocketAddress("localhost", 6697), InetSocketAddress.class);
     static final Entry<String> SERVER_PASSWORD = new Entry<>(null, String.class, true);
     static final Entry<Boolean> SSL = new Entry<>(true, Boolean.class);
@@ -143,6 +160,7 @@ final class Config {
     static final Entry<File> SSL_KEY = new Entry<>(null, File.class, true);
     static final Entry<String> SSL_KEY_PASSWORD = new Entry<>(null, String.class, true);
     static final Entry<TrustManagerFactory> SSL_TRUST_MANAGER_FACTORY = new Entry<>(null, TrustManagerFactory.class);
+    static final Entry<ThreadFactory> THREAD_FACTORY = new Entry<>(null, ThreadFactory.class);
     static final Entry<String> USER = new Entry<>("Kitteh", String.class);
     static final Entry<String> WEBIRC_HOST = new Entry<>(null, String.class);
     static final Entry<InetAddress> WEBIRC_IP = new Entry<>(null, InetAddress.class);
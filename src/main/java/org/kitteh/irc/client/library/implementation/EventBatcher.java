@@ -0,0 +1,301 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.feature.BatchHandler;
+import org.kitteh.irc.client.library.feature.filter.FilterProcessor;
+import org.kitteh.irc.client.library.feature.filter.FilteringSubscriptionFactory;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Collects events for {@link BatchHandler} methods, delivering them as
+ * lists once full or once the oldest event has waited long enough. Both
+ * are delivered on the batcher's thread, never the one firing events.
+ */
+final class EventBatcher {
+    private final class Batch {
+        private final Object listener;
+        private final Method method;
+        private final Class<?> eventClass;
+        private final Predicate<Object> filter;
+        private final FilteringSubscriptionFactory.Invoker invoker;
+        private final int maxSize;
+        private final long maxDelay;
+        private final Object deliveryLock = new Object();
+        private List<Object> pending = new ArrayList<>();
+        private final Queue<List<Object>> ready = new ArrayDeque<>(); // Taken, in order, awaiting delivery
+        private ScheduledFuture<?> deadline;
+
+        private Batch(@Nonnull Object listener, @Nonnull Method method, @Nonnull Class<?> eventClass, @Nonnull BatchHandler handler) throws Throwable {
+            this.listener = listener;
+            this.method = method;
+            this.eventClass = eventClass;
+            this.filter = FilteringSubscriptionFactory.createFilter(method, EventBatcher.this.filters);
+            this.invoker = FilteringSubscriptionFactory.createInvoker(method);
+            this.maxSize = handler.maxSize();
+            this.maxDelay = handler.maxDelay();
+        }
+
+        private void offer(@Nonnull Object event) {
+            if (!this.eventClass.isInstance(event)) {
+                return;
+            }
+            try {
+                if (!this.filter.test(event)) {
+                    return;
+                }
+            } catch (Throwable thrown) {
+                EventBatcher.this.errorHandler.accept(thrown);
+                return;
+            }
+            boolean full;
+            synchronized (this) {
+                this.pending.add(event);
+                full = this.pending.size() >= this.maxSize;
+                if (full) {
+                    this.takePending();
+                } else if (this.pending.size() == 1) {
+                    this.deadline = EventBatcher.this.getScheduler().schedule(this::flush, this.maxDelay, TimeUnit.MILLISECONDS);
+                }
+            }
+            if (full) {
+                EventBatcher.this.getScheduler().execute(this::deliver);
+            }
+        }
+
+        private void flush() {
+            synchronized (this) {
+                this.takePending();
+            }
+            this.deliver();
+        }
+
+        private void takePending() {
+            if (this.pending.isEmpty()) {
+                return;
+            }
+            this.ready.add(this.pending);
+            this.pending = new ArrayList<>();
+            if (this.deadline != null) {
+                this.deadline.cancel(false);
+                this.deadline = null;
+            }
+        }
+
+        private void deliver() {
+            synchronized (this.deliveryLock) {
+                while (true) {
+                    List<Object> batch;
+                    synchronized (this) {
+                        batch = this.ready.poll();
+                    }
+                    if (batch == null) {
+                        return;
+                    }
+                    try {
+                        this.invoker.invoke(this.listener, Collections.unmodifiableList(batch));
+                    } catch (Throwable thrown) {
+                        EventBatcher.this.errorHandler.accept(new InvocationTargetException(thrown));
+                    }
+                }
+            }
+        }
+    }
+
+    private final Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters;
+    private final Consumer<Throwable> errorHandler;
+    private final String name;
+    private final ThreadFactory threadFactory;
+    private final List<Batch> batches = new CopyOnWriteArrayList<>();
+    private volatile ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * Creates a batcher.
+     *
+     * @param filters filter processors, as at the time listeners register
+     * @param errorHandler handler of exceptions from filters and from
+     * batch methods, the latter wrapped in an {@link
+     * InvocationTargetException}
+     * @param name client name, for thread naming
+     * @param threadFactory factory of the timer thread, or null for the
+     * default
+     */
+    EventBatcher(@Nonnull Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters, @Nonnull Consumer<Throwable> errorHandler, @Nonnull String name, @Nullable ThreadFactory threadFactory) {
+        this.filters = filters;
+        this.errorHandler = errorHandler;
+        this.name = name;
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Offers an event to every batch wanting it.
+     *
+     * @param event event
+     */
+    void offer(@Nonnull Object event) {
+        for (Batch batch : this.batches) {
+            batch.offer(event);
+        }
+    }
+
+    /**
+     * Gets if any batch wants events of the given class.
+     *
+     * @param eventClass event class
+     * @return true if wanted
+     */
+    boolean hasSubscribers(@Nonnull Class<?> eventClass) {
+        for (Batch batch : this.batches) {
+            if (batch.eventClass.isAssignableFrom(eventClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts batching for the listener's {@link BatchHandler} methods.
+     *
+     * @param listener listener
+     * @throws IllegalArgumentException if a method does not take a single
+     * list of events or has bad batch limits
+     */
+    void register(@Nonnull Object listener) {
+        List<Batch> added = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Class<?> clazz = listener.getClass(); (clazz != null) && (clazz != Object.class); clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (Modifier.isStatic(method.getModifiers()) || method.isBridge() || method.isSynthetic()) {
+                    continue;
+                }
+                if (!seen.add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+                    continue;
+                }
+                BatchHandler handler = method.getAnnotation(BatchHandler.class);
+                if (handler != null) {
+                    added.add(this.batch(listener, method, handler));
+                }
+            }
+        }
+        this.batches.addAll(added);
+    }
+
+    /**
+     * Stops batching for the listener, delivering what it has batched.
+     *
+     * @param listener listener
+     */
+    void unregister(@Nonnull Object listener) {
+        for (Batch batch : this.batches) {
+            if (batch.listener == listener) {
+                this.batches.remove(batch);
+                batch.flush();
+            }
+        }
+    }
+
+    /**
+     * Stops batching, delivering everything batched, and stops the timer.
+     */
+    void shutdown() {
+        for (Batch batch : this.batches) {
+            this.batches.remove(batch);
+            batch.flush();
+        }
+        ScheduledThreadPoolExecutor scheduler = this.scheduler;
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Nonnull
+    private Batch batch(@Nonnull Object listener, @Nonnull Method method, @Nonnull BatchHandler handler) {
+        Type[] parameters = method.getGenericParameterTypes();
+        if ((parameters.length != 1) || !(parameters[0] instanceof ParameterizedType) || (((ParameterizedType) parameters[0]).getRawType() != List.class)) {
+            throw new IllegalArgumentException("Batch handler " + method + " must have exactly one List parameter");
+        }
+        Type element = ((ParameterizedType) parameters[0]).getActualTypeArguments()[0];
+        if (element instanceof ParameterizedType) {
+            element = ((ParameterizedType) element).getRawType();
+        }
+        if (!(element instanceof Class)) {
+            throw new IllegalArgumentException("Batch handler " + method + " must name its event type");
+        }
+        if ((handler.maxSize() < 1) || (handler.maxDelay() < 1)) {
+            throw new IllegalArgumentException("Batch handler " + method + " must have a size and delay of at least 1");
+        }
+        try {
+            return new Batch(listener, method, (Class<?>) element, handler);
+        } catch (Throwable thrown) {
+            throw new IllegalArgumentException("Cannot invoke batch handler " + method, thrown);
+        }
+    }
+
+    @Nonnull
+    private ScheduledThreadPoolExecutor getScheduler() {
+        ScheduledThreadPoolExecutor scheduler = this.scheduler;
+        if (scheduler == null) {
+            synchronized (this) {
+                scheduler = this.scheduler;
+                if (scheduler == null) {
+                    scheduler = new ScheduledThreadPoolExecutor(1, ClientThreads.factory(this.name, "Event Batcher", this.threadFactory), (task, pool) -> task.run());
+                    scheduler.setRemoveOnCancelPolicy(true);
+                    this.scheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("batches", this.batches.size()).toString();
+    }
+}
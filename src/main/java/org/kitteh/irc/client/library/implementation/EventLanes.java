@@ -0,0 +1,242 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.element.User;
+import org.kitteh.irc.client.library.event.helper.ActorEvent;
+import org.kitteh.irc.client.library.event.helper.ChannelEvent;
+import org.kitteh.irc.client.library.exception.KittehEventException;
+import org.kitteh.irc.client.library.feature.DispatchLanes;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches events on worker lanes, one thread each, partitioned by
+ * channel or by user.
+ */
+final class EventLanes implements DispatchLanes {
+    private final class Lane implements Runnable {
+        private final int index;
+        private final Deque<Object> queue = new ArrayDeque<>(); // Guarded by lock
+        private final Lock lock = new ReentrantLock();
+        private final Condition notEmpty = this.lock.newCondition();
+        private final Condition notFull = this.lock.newCondition();
+        private boolean stopping; // Guarded by lock
+        private final AtomicLong dispatched = new AtomicLong();
+        private final AtomicLong saturations = new AtomicLong();
+
+        private Lane(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Object event;
+                this.lock.lock();
+                try {
+                    while (this.queue.isEmpty()) {
+                        if (this.stopping) {
+                            return;
+                        }
+                        this.notEmpty.await();
+                    }
+                    event = this.queue.poll();
+                    this.notFull.signal();
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    this.lock.unlock();
+                }
+                try {
+                    EventLanes.this.dispatcher.accept(event);
+                } catch (Exception e) {
+                    EventLanes.this.client.getExceptionListener().queue(new KittehEventException(e));
+                }
+                this.dispatched.incrementAndGet();
+            }
+        }
+
+        /**
+         * Queues an event, waiting for room unless the lane is stopping.
+         *
+         * @param event event
+         * @return false if the lane is stopping and the event was not queued
+         */
+        private boolean queue(@Nonnull Object event) {
+            this.lock.lock();
+            try {
+                if (!this.stopping && (this.queue.size() >= EventLanes.this.capacity)) {
+                    this.saturations.incrementAndGet();
+                    do {
+                        this.notFull.await();
+                    } while (!this.stopping && (this.queue.size() >= EventLanes.this.capacity));
+                }
+                if (this.stopping) {
+                    return false;
+                }
+                this.queue.add(event);
+                this.notEmpty.signal();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                EventLanes.this.client.getExceptionListener().queue(new KittehEventException("Interrupted waiting for room on lane " + this.index + ", dropped " + event.getClass().getSimpleName()));
+            } finally {
+                this.lock.unlock();
+            }
+            return true;
+        }
+
+        private int size() {
+            this.lock.lock();
+            try {
+                return this.queue.size();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private void stop() {
+            this.lock.lock();
+            try {
+                this.stopping = true;
+                this.notEmpty.signalAll();
+                this.notFull.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    private final InternalClient client;
+    private final Consumer<Object> dispatcher;
+    private final int capacity;
+    private final Lane[] lanes;
+
+    /**
+     * Creates and starts lanes.
+     *
+     * @param client client, for case mapping and thread naming
+     * @param dispatcher dispatches each event on its lane
+     * @param count number of lanes
+     * @param capacity events each lane can hold
+     * @param threadFactory factory of lane threads, or null for the default
+     */
+    EventLanes(@Nonnull InternalClient client, @Nonnull Consumer<Object> dispatcher, int count, int capacity, @Nullable ThreadFactory threadFactory) {
+        this.client = client;
+        this.dispatcher = dispatcher;
+        this.capacity = capacity;
+        this.lanes = new Lane[count];
+        for (int i = 0; i < count; i++) {
+            this.lanes[i] = new Lane(i);
+            ClientThreads.factory(client.getName(), "Event Lane " + i, threadFactory).newThread(this.lanes[i]).start();
+        }
+    }
+
+    /**
+     * Queues an event on its lane, waiting if that lane is full. Once the
+     * lanes are shutting down, including while waiting, the event is
+     * dispatched on the calling thread instead. If interrupted while
+     * waiting, the event is dropped and reported to the exception
+     * listener.
+     *
+     * @param event event to dispatch
+     */
+    void queue(@Nonnull Object event) {
+        if (!this.lanes[this.laneFor(event)].queue(event)) {
+            this.dispatcher.accept(event);
+        }
+    }
+
+    /**
+     * Stops the lanes once they have dispatched everything queued.
+     */
+    void shutdown() {
+        for (Lane lane : this.lanes) {
+            lane.stop();
+        }
+    }
+
+    private int laneFor(@Nonnull Object event) {
+        String key = null;
+        if (event instanceof ChannelEvent) {
+            key = ((ChannelEvent) event).getChannel().getName();
+        } else if ((event instanceof ActorEvent) && (((ActorEvent<?>) event).getActor() instanceof User)) {
+            key = ((ActorEvent<?>) event).getActor().getName();
+        }
+        if (key == null) {
+            return 0;
+        }
+        key = this.client.getServerInfo().getCaseMapping().toLowerCase(key);
+        return (key.hashCode() & Integer.MAX_VALUE) % this.lanes.length;
+    }
+
+    @Override
+    public int getLaneCount() {
+        return this.lanes.length;
+    }
+
+    @Override
+    public int getLaneCapacity() {
+        return this.capacity;
+    }
+
+    @Override
+    public int getQueued(int lane) {
+        return this.lane(lane).size();
+    }
+
+    @Override
+    public long getDispatched(int lane) {
+        return this.lane(lane).dispatched.get();
+    }
+
+    @Override
+    public long getSaturations(int lane) {
+        return this.lane(lane).saturations.get();
+    }
+
+    @Nonnull
+    private Lane lane(int lane) {
+        if ((lane < 0) || (lane >= this.lanes.length)) {
+            throw new IndexOutOfBoundsException("Lane " + lane + " of " + this.lanes.length);
+        }
+        return this.lanes[lane];
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("lanes", this.lanes.length).add("capacity", this.capacity).toString();
+    }
+}
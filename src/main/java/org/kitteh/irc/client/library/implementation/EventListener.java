@@ -91,6 +91,7 @@ import org.kitteh.irc.client.library.event.user.WallopsEvent;
 import org.kitteh.irc.client.library.event.user.WhoisEvent;
 import org.kitteh.irc.client.library.exception.KittehServerMessageException;
 import org.kitteh.irc.client.library.feature.CapabilityManager;
+import org.kitteh.irc.client.library.feature.EventManager;
 import org.kitteh.irc.client.library.feature.filter.CommandFilter;
 import org.kitteh.irc.client.library.feature.filter.NumericFilter;
 import org.kitteh.irc.client.library.util.StringUtil;
@@ -101,12 +102,14 @@ import java.time.DateTimeException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @net.engio.mbassy.listener.Listener(references = References.Strong)
@@ -151,7 +154,7 @@ class EventListener {
             this.trackException(event, "Server address and version missing.");
         }
         this.client.sendRawLineImmediately("WHOIS " + this.client.getNick());
-        this.fire(new ClientConnectedEvent(this.client, event.getActor(), this.client.getServerInfo()));
+        this.fire(ClientConnectedEvent.class, () -> new ClientConnectedEvent(this.client, event.getActor(), this.client.getServerInfo()));
         this.client.startSending();
     }
 
@@ -189,7 +192,7 @@ class EventListener {
     @NumericFilter(306) // NOWAWAY
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void away(ClientReceiveNumericEvent event) {
-        this.fire(new ClientAwayStatusChangeEvent(this.client, event.getOriginalMessages(), event.getNumeric() == 306));
+        this.fire(ClientAwayStatusChangeEvent.class, () -> new ClientAwayStatusChangeEvent(this.client, event.getOriginalMessages(), event.getNumeric() == 306));
     }
 
     private WhoisBuilder whoisBuilder;
@@ -322,7 +325,7 @@ class EventListener {
         if (this.client.getServerInfo().getCaseMapping().areEqualIgnoringCase(whois.getNick(), this.client.getNick()) && (this.client.getActorProvider().getUser(whois.getNick()) == null)) {
             this.client.getActorProvider().trackUser((ActorProvider.IRCUser) this.client.getActorProvider().getActor(whois.getName()));
         }
-        this.fire(new WhoisEvent(this.client, whois));
+        this.fire(WhoisEvent.class, () -> new WhoisEvent(this.client, whois));
         this.whoisBuilder = null;
     }
 
@@ -387,7 +390,7 @@ class EventListener {
         if (whoChannel != null) {
             whoChannel.setListReceived();
             this.whoMessages.add(messageFromEvent(event));
-            this.fire(new ChannelUsersUpdatedEvent(this.client, this.whoMessages, whoChannel.snapshot()));
+            this.fire(ChannelUsersUpdatedEvent.class, () -> new ChannelUsersUpdatedEvent(this.client, this.whoMessages, whoChannel.snapshot()));
             this.whoMessages.clear();
         } // No else, server might send other WHO information about non-channels.
     }
@@ -439,7 +442,7 @@ class EventListener {
         ActorProvider.IRCChannel topicSetChannel = this.client.getActorProvider().getChannel(event.getParameters().get(1));
         if (topicSetChannel != null) {
             topicSetChannel.setTopic(Long.parseLong(event.getParameters().get(3)) * 1000, this.client.getActorProvider().getActor(event.getParameters().get(2)).snapshot());
-            this.fire(new ChannelTopicEvent(this.client, event.getOriginalMessages(), topicSetChannel.snapshot(), false));
+            this.fire(ChannelTopicEvent.class, () -> new ChannelTopicEvent(this.client, event.getOriginalMessages(), topicSetChannel.snapshot(), false));
         } else {
             this.trackException(event, "Topic message sent for invalid channel name");
         }
@@ -486,7 +489,7 @@ class EventListener {
         ActorProvider.IRCChannel channel = this.client.getActorProvider().getChannel(event.getParameters().get(1));
         if (channel != null) {
             this.namesMessages.add(messageFromEvent(event));
-            this.fire(new ChannelNamesUpdatedEvent(this.client, this.namesMessages, channel.snapshot()));
+            this.fire(ChannelNamesUpdatedEvent.class, () -> new ChannelNamesUpdatedEvent(this.client, this.namesMessages, channel.snapshot()));
             this.namesMessages.clear();
         } else {
             this.trackException(event, "NAMES response sent for invalid channel name");
@@ -597,7 +600,7 @@ class EventListener {
             Optional<ChannelMode> channelMode = this.client.getServerInfo().getChannelMode(mode);
             if (channelMode.isPresent()) {
                 List<ModeInfo> modeInfos = new ArrayList<>(infoList);
-                this.fire(new ChannelModeInfoListEvent(this.client, messageList, channel.snapshot(), channelMode.get(), modeInfos));
+                this.fire(ChannelModeInfoListEvent.class, () -> new ChannelModeInfoListEvent(this.client, messageList, channel.snapshot(), channelMode.get(), modeInfos));
                 channel.setModeInfoList(mode, modeInfos);
             } else {
                 this.trackException(event, name + " can't list if there's no '" + mode + "' mode");
@@ -635,7 +638,7 @@ class EventListener {
     public void motdEnd(ClientReceiveNumericEvent event) {
         this.motdMessages.add(messageFromEvent(event));
         this.client.getServerInfo().setMOTD(new ArrayList<>(this.motd));
-        this.fire(new ClientReceiveMOTDEvent(this.client, this.motdMessages));
+        this.fire(ClientReceiveMOTDEvent.class, () -> new ClientReceiveMOTDEvent(this.client, this.motdMessages));
     }
 
     @NumericFilter(431) // No nick given
@@ -658,7 +661,7 @@ class EventListener {
         ActorProvider.IRCChannel channel = this.client.getActorProvider().getChannel(event.getParameters().get(1));
         if (channel != null) {
             ActorProvider.IRCUser user = (ActorProvider.IRCUser) this.client.getActorProvider().getActor(event.getParameters().get(2));
-            this.fire(new ChannelKnockEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user.snapshot()));
+            this.fire(ChannelKnockEvent.class, () -> new ChannelKnockEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user.snapshot()));
         } else {
             this.trackException(event, "KNOCK message sent for invalid channel name");
         }
@@ -701,7 +704,7 @@ class EventListener {
     @NumericFilter(733) // Monitor list end
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void monitorListEnd(ClientReceiveNumericEvent event) {
-        this.fire(new MonitoredNickListEvent(this.client, this.monitorListMessages, this.monitorList));
+        this.fire(MonitoredNickListEvent.class, () -> new MonitoredNickListEvent(this.client, this.monitorListMessages, this.monitorList));
         this.monitorList.clear();
         this.monitorListMessages.clear();
     }
@@ -720,7 +723,7 @@ class EventListener {
             this.trackException(event, "MONITOR list full message using non-int limit");
             return;
         }
-        this.fire(new MonitoredNickListFullEvent(this.client, event.getOriginalMessages(), limit, Arrays.stream(event.getParameters().get(2).split(",")).collect(Collectors.toList())));
+        this.fire(MonitoredNickListFullEvent.class, () -> new MonitoredNickListFullEvent(this.client, event.getOriginalMessages(), limit, Arrays.stream(event.getParameters().get(2).split(",")).collect(Collectors.toList())));
     }
 
     private final List<CapabilityState> capList = new ArrayList<>();
@@ -750,6 +753,7 @@ class EventListener {
         List<CapabilityState> capabilityStateList = Arrays.stream(event.getParameters().get(capabilityListIndex).split(" ")).filter(string -> !string.isEmpty()).map(capability -> new ManagerCapability.IRCCapabilityState(this.client, capability)).collect(Collectors.toCollection(ArrayList::new));
         switch (event.getParameters().get(1).toLowerCase()) {
             case "ack":
+                this.client.getCapabilityManager().answerRequests(capabilityStateList);
                 this.client.getCapabilityManager().updateCapabilities(capabilityStateList);
                 responseEvent = new CapabilitiesAcknowledgedEvent(this.client, event.getOriginalMessages(), this.client.getCapabilityManager().isNegotiating(), capabilityStateList);
                 this.fire(responseEvent);
@@ -767,7 +771,7 @@ class EventListener {
                         states.addAll(capabilityStateList);
                     }
                     this.client.getCapabilityManager().setCapabilities(states);
-                    this.fire(new CapabilitiesListEvent(this.client, this.capListMessages, states));
+                    this.fire(CapabilitiesListEvent.class, () -> new CapabilitiesListEvent(this.client, this.capListMessages, states));
                     states.clear();
                 }
                 break;
@@ -789,9 +793,13 @@ class EventListener {
                 }
                 break;
             case "nak":
+                Set<String> rejectedSpeculation = this.client.getCapabilityManager().answerRequests(capabilityStateList);
                 this.client.getCapabilityManager().updateCapabilities(capabilityStateList);
                 responseEvent = new CapabilitiesRejectedEvent(this.client, event.getOriginalMessages(), this.client.getCapabilityManager().isNegotiating(), capabilityStateList);
                 this.fire(responseEvent);
+                if (!rejectedSpeculation.isEmpty()) {
+                    this.capReqSupported(rejectedSpeculation);
+                }
                 break;
             case "new":
                 List<CapabilityState> statesAdded = new ArrayList<>(this.client.getCapabilityManager().getSupportedCapabilities());
@@ -809,7 +817,7 @@ class EventListener {
                 break;
         }
         if (responseEvent != null) {
-            if (responseEvent.isNegotiating() && responseEvent.isEndingNegotiation()) {
+            if (responseEvent.isNegotiating() && responseEvent.isEndingNegotiation() && !this.client.getCapabilityManager().hasPendingRequests()) {
                 this.client.sendRawLineImmediately("CAP END");
                 this.client.getCapabilityManager().endNegotiation();
             }
@@ -820,6 +828,7 @@ class EventListener {
         Set<String> capabilities = this.client.getCapabilityManager().getSupportedCapabilities().stream().map(CapabilityState::getName).collect(Collectors.toCollection(HashSet::new));
         capabilities.retainAll(CapabilityManager.Defaults.getDefaults());
         capabilities.removeAll(this.client.getCapabilityManager().getCapabilities().stream().map(CapabilityState::getName).collect(Collectors.toList()));
+        capabilities.removeAll(this.client.getCapabilityManager().getPendingRequests());
         if (!capabilities.isEmpty()) {
             responseEvent.setEndingNegotiation(false);
             capabilities.forEach(responseEvent::addRequest);
@@ -827,12 +836,33 @@ class EventListener {
         this.fire(responseEvent);
         List<String> requests = responseEvent.getRequests();
         if (!requests.isEmpty()) {
-            CapabilityRequestCommand capabilityRequestCommand = new CapabilityRequestCommand(this.client);
-            requests.forEach(capabilityRequestCommand::enable);
-            capabilityRequestCommand.execute();
+            this.capReq(requests);
+        }
+    }
+
+    /**
+     * Requests again those speculatively requested capabilities which the
+     * server lists as supported, after the speculative request was rejected
+     * as a whole. SASL is left to its authentication protocol.
+     *
+     * @param rejected rejected speculative requests
+     */
+    private void capReqSupported(@Nonnull Set<String> rejected) {
+        Set<String> capabilities = this.client.getCapabilityManager().getSupportedCapabilities().stream().map(CapabilityState::getName).collect(Collectors.toCollection(HashSet::new));
+        capabilities.retainAll(rejected);
+        capabilities.removeIf(CapabilityManager.Defaults.SASL::equalsIgnoreCase);
+        if (!capabilities.isEmpty()) {
+            this.capReq(capabilities);
         }
     }
 
+    private void capReq(@Nonnull Collection<String> capabilities) {
+        CapabilityRequestCommand capabilityRequestCommand = new CapabilityRequestCommand(this.client);
+        capabilities.forEach(capabilityRequestCommand::enable);
+        capabilityRequestCommand.execute();
+        this.client.getCapabilityManager().addPendingRequests(capabilities);
+    }
+
     @CommandFilter("CHGHOST")
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void chghost(ClientReceiveCommandEvent event) {
@@ -903,7 +933,7 @@ class EventListener {
                     this.trackException(event, "Server sent a CTCP message and I panicked");
                     return;
                 }
-                this.fire(new ServerNoticeEvent(this.client, event.getOriginalMessages(), (Server) event.getActor(), message));
+                this.fire(ServerNoticeEvent.class, () -> new ServerNoticeEvent(this.client, event.getOriginalMessages(), (Server) event.getActor(), message));
             } else {
                 this.trackException(event, "Message from neither server nor user");
             }
@@ -916,13 +946,13 @@ class EventListener {
         User user = (User) event.getActor();
         MessageTargetInfo messageTargetInfo = this.getTypeByTarget(event.getParameters().get(0));
         if (messageTargetInfo instanceof MessageTargetInfo.Private) {
-            this.fire(new PrivateNoticeEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), message));
+            this.fire(PrivateNoticeEvent.class, () -> new PrivateNoticeEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), message));
         } else if (messageTargetInfo instanceof MessageTargetInfo.Channel) {
             MessageTargetInfo.Channel channelInfo = (MessageTargetInfo.Channel) messageTargetInfo;
-            this.fire(new ChannelNoticeEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), message));
+            this.fire(ChannelNoticeEvent.class, () -> new ChannelNoticeEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), message));
         } else if (messageTargetInfo instanceof MessageTargetInfo.TargetedChannel) {
             MessageTargetInfo.TargetedChannel channelInfo = (MessageTargetInfo.TargetedChannel) messageTargetInfo;
-            this.fire(new ChannelTargetedNoticeEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), channelInfo.getPrefix(), message));
+            this.fire(ChannelTargetedNoticeEvent.class, () -> new ChannelTargetedNoticeEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), channelInfo.getPrefix(), message));
         }
     }
 
@@ -944,13 +974,13 @@ class EventListener {
         User user = (User) event.getActor();
         MessageTargetInfo messageTargetInfo = this.getTypeByTarget(event.getParameters().get(0));
         if (messageTargetInfo instanceof MessageTargetInfo.Private) {
-            this.fire(new PrivateMessageEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), event.getParameters().get(1)));
+            this.fire(PrivateMessageEvent.class, () -> new PrivateMessageEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), event.getParameters().get(1)));
         } else if (messageTargetInfo instanceof MessageTargetInfo.Channel) {
             MessageTargetInfo.Channel channelInfo = (MessageTargetInfo.Channel) messageTargetInfo;
-            this.fire(new ChannelMessageEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), event.getParameters().get(1)));
+            this.fire(ChannelMessageEvent.class, () -> new ChannelMessageEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), event.getParameters().get(1)));
         } else if (messageTargetInfo instanceof MessageTargetInfo.TargetedChannel) {
             MessageTargetInfo.TargetedChannel channelInfo = (MessageTargetInfo.TargetedChannel) messageTargetInfo;
-            this.fire(new ChannelTargetedMessageEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), channelInfo.getPrefix(), event.getParameters().get(1)));
+            this.fire(ChannelTargetedMessageEvent.class, () -> new ChannelTargetedMessageEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), channelInfo.getPrefix(), event.getParameters().get(1)));
         }
     }
 
@@ -961,7 +991,7 @@ class EventListener {
         switch (event.getCommand()) {
             case "NOTICE":
                 if (messageTargetInfo instanceof MessageTargetInfo.Private) {
-                    this.fire(new PrivateCTCPReplyEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), ctcpMessage));
+                    this.fire(PrivateCTCPReplyEvent.class, () -> new PrivateCTCPReplyEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), ctcpMessage));
                 }
                 break;
             case "PRIVMSG":
@@ -989,10 +1019,10 @@ class EventListener {
                     }
                 } else if (messageTargetInfo instanceof MessageTargetInfo.Channel) {
                     MessageTargetInfo.Channel channelInfo = (MessageTargetInfo.Channel) messageTargetInfo;
-                    this.fire(new ChannelCTCPEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), ctcpMessage));
+                    this.fire(ChannelCTCPEvent.class, () -> new ChannelCTCPEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), ctcpMessage));
                 } else if (messageTargetInfo instanceof MessageTargetInfo.TargetedChannel) {
                     MessageTargetInfo.TargetedChannel channelInfo = (MessageTargetInfo.TargetedChannel) messageTargetInfo;
-                    this.fire(new ChannelTargetedCTCPEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), channelInfo.getPrefix(), ctcpMessage));
+                    this.fire(ChannelTargetedCTCPEvent.class, () -> new ChannelTargetedCTCPEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), channelInfo.getPrefix(), ctcpMessage));
                 }
                 break;
         }
@@ -1014,7 +1044,7 @@ class EventListener {
                 this.trackException(event, e.getMessage());
                 return;
             }
-            this.fire(new UserModeEvent(this.client, event.getOriginalMessages(), event.getActor(), event.getParameters().get(0), statusList));
+            this.fire(UserModeEvent.class, () -> new UserModeEvent(this.client, event.getOriginalMessages(), event.getActor(), event.getParameters().get(0), statusList));
             this.client.updateUserModes(statusList);
         } else if (messageTargetInfo instanceof MessageTargetInfo.Channel) {
             ActorProvider.IRCChannel channel = ((MessageTargetInfo.Channel) messageTargetInfo).getChannel();
@@ -1026,7 +1056,7 @@ class EventListener {
                 return;
             }
             Channel channelSnapshot = channel.snapshot();
-            this.fire(new ChannelModeEvent(this.client, event.getOriginalMessages(), event.getActor(), channelSnapshot, statusList));
+            this.fire(ChannelModeEvent.class, () -> new ChannelModeEvent(this.client, event.getOriginalMessages(), event.getActor(), channelSnapshot, statusList));
             statusList.getStatuses().stream().filter(status -> status.getMode().getType() == ChannelMode.Type.A_MASK).forEach(status -> channel.trackModeInfo(status.isSetting(), new ModeData.IRCModeInfo(this.client, channelSnapshot, status.getMode(), status.getParameter().get(), Optional.of(event.getActor().getName()), Optional.of(Instant.now()))));
             channel.updateChannelModes(statusList);
         } else {
@@ -1046,14 +1076,12 @@ class EventListener {
             if (event.getActor() instanceof User) {
                 ActorProvider.IRCUser user = (ActorProvider.IRCUser) this.client.getActorProvider().getActor(event.getActor().getName());
                 channel.trackUser(user, new HashSet<>());
-                ChannelJoinEvent joinEvent = null;
+                boolean requested = false;
                 if (user.getNick().equals(this.client.getNick())) {
                     this.client.getActorProvider().trackChannel(channel);
                     this.client.sendRawLine("MODE " + channel.getName());
                     this.client.sendRawLine("WHO " + channel.getName() + (this.client.getServerInfo().hasWhoXSupport() ? " %cuhsnfar" : ""));
-                    if (this.client.getIntendedChannels().contains(channel.getName())) {
-                        joinEvent = new RequestedChannelJoinCompleteEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user.snapshot());
-                    }
+                    requested = this.client.getIntendedChannels().contains(channel.getName());
                 }
                 if (event.getParameters().size() > 2) {
                     if (!"*".equals(event.getParameters().get(1))) {
@@ -1061,10 +1089,11 @@ class EventListener {
                     }
                     user.setRealName(event.getParameters().get(2));
                 }
-                if (joinEvent == null) {
-                    joinEvent = new ChannelJoinEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user.snapshot());
+                if (requested) {
+                    this.fire(RequestedChannelJoinCompleteEvent.class, () -> new RequestedChannelJoinCompleteEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user.snapshot()));
+                } else {
+                    this.fire(ChannelJoinEvent.class, () -> new ChannelJoinEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user.snapshot()));
                 }
-                this.fire(joinEvent);
             } else {
                 this.trackException(event, "JOIN message sent for non-user");
             }
@@ -1086,13 +1115,11 @@ class EventListener {
                 User user = (User) event.getActor();
                 boolean isSelf = user.getNick().equals(this.client.getNick());
                 String partReason = (event.getParameters().size() > 1) ? event.getParameters().get(1) : "";
-                ChannelPartEvent partEvent;
                 if (isSelf && this.client.getIntendedChannels().contains(channel.getName())) {
-                    partEvent = new RequestedChannelLeaveViaPartEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user, partReason);
+                    this.fire(RequestedChannelLeaveViaPartEvent.class, () -> new RequestedChannelLeaveViaPartEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user, partReason));
                 } else {
-                    partEvent = new ChannelPartEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user, partReason);
+                    this.fire(ChannelPartEvent.class, () -> new ChannelPartEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user, partReason));
                 }
-                this.fire(partEvent);
                 channel.trackUserPart(user.getNick());
                 if (isSelf) {
                     this.client.getActorProvider().unTrackChannel(channel);
@@ -1109,7 +1136,7 @@ class EventListener {
     @Handler(priority = Integer.MAX_VALUE - 1)
     public void quit(ClientReceiveCommandEvent event) {
         if (event.getActor() instanceof User) {
-            this.fire(new UserQuitEvent(this.client, event.getOriginalMessages(), (User) event.getActor(), (event.getParameters().isEmpty()) ? "" : event.getParameters().get(0)));
+            this.fire(UserQuitEvent.class, () -> new UserQuitEvent(this.client, event.getOriginalMessages(), (User) event.getActor(), (event.getParameters().isEmpty()) ? "" : event.getParameters().get(0)));
             this.client.getActorProvider().trackUserQuit(((User) event.getActor()).getNick());
         } else {
             this.trackException(event, "QUIT message sent for non-user");
@@ -1128,14 +1155,12 @@ class EventListener {
             ActorProvider.IRCUser kickedUser = this.client.getActorProvider().getUser(event.getParameters().get(1));
             if (kickedUser != null) {
                 boolean isSelf = event.getParameters().get(1).equals(this.client.getNick());
-                ChannelKickEvent kickEvent;
                 String kickReason = (event.getParameters().size() > 2) ? event.getParameters().get(2) : "";
                 if (isSelf && this.client.getIntendedChannels().contains(channel.getName())) {
-                    kickEvent = new RequestedChannelLeaveViaKickEvent(this.client, event.getOriginalMessages(), channel.snapshot(), (User) event.getActor(), kickedUser.snapshot(), kickReason);
+                    this.fire(RequestedChannelLeaveViaKickEvent.class, () -> new RequestedChannelLeaveViaKickEvent(this.client, event.getOriginalMessages(), channel.snapshot(), (User) event.getActor(), kickedUser.snapshot(), kickReason));
                 } else {
-                    kickEvent = new ChannelKickEvent(this.client, event.getOriginalMessages(), channel.snapshot(), (User) event.getActor(), kickedUser.snapshot(), kickReason);
+                    this.fire(ChannelKickEvent.class, () -> new ChannelKickEvent(this.client, event.getOriginalMessages(), channel.snapshot(), (User) event.getActor(), kickedUser.snapshot(), kickReason));
                 }
-                this.fire(kickEvent);
                 channel.trackUserPart(event.getParameters().get(1));
                 if (isSelf) {
                     this.client.getActorProvider().unTrackChannel(channel);
@@ -1169,7 +1194,7 @@ class EventListener {
             User oldUser = user.snapshot();
             this.client.getActorProvider().trackUserNickChange(user.getNick(), event.getParameters().get(0));
             User newUser = user.snapshot();
-            this.fire(new UserNickChangeEvent(this.client, event.getOriginalMessages(), oldUser, newUser));
+            this.fire(UserNickChangeEvent.class, () -> new UserNickChangeEvent(this.client, event.getOriginalMessages(), oldUser, newUser));
             if (isSelf) {
                 this.client.setCurrentNick(event.getParameters().get(0));
             }
@@ -1190,7 +1215,7 @@ class EventListener {
             if (this.client.getNick().equalsIgnoreCase(event.getParameters().get(0)) && this.client.getIntendedChannels().contains(channel.getName())) {
                 this.client.sendRawLine("JOIN " + channel.getName());
             }
-            this.fire(new ChannelInviteEvent(this.client, event.getOriginalMessages(), channel.snapshot(), event.getActor(), event.getParameters().get(0)));
+            this.fire(ChannelInviteEvent.class, () -> new ChannelInviteEvent(this.client, event.getOriginalMessages(), channel.snapshot(), event.getActor(), event.getParameters().get(0)));
         } else {
             this.trackException(event, "INVITE message sent for invalid channel name");
         }
@@ -1207,7 +1232,7 @@ class EventListener {
         if (channel != null) {
             channel.setTopic(event.getParameters().get(1));
             channel.setTopic(System.currentTimeMillis(), event.getActor());
-            this.fire(new ChannelTopicEvent(this.client, event.getOriginalMessages(), channel.snapshot(), true));
+            this.fire(ChannelTopicEvent.class, () -> new ChannelTopicEvent(this.client, event.getOriginalMessages(), channel.snapshot(), true));
         } else {
             this.trackException(event, "TOPIC message sent for invalid channel name");
         }
@@ -1220,7 +1245,7 @@ class EventListener {
             this.trackException(event, "WALLOPS message of incorrect length");
             return;
         }
-        this.fire(new WallopsEvent(this.client, event.getOriginalMessages(), event.getActor(), event.getParameters().get(0)));
+        this.fire(WallopsEvent.class, () -> new WallopsEvent(this.client, event.getOriginalMessages(), event.getActor(), event.getParameters().get(0)));
     }
 
     private static class MessageTargetInfo {
@@ -1293,6 +1318,19 @@ class EventListener {
         this.client.getEventManager().callEvent(event);
     }
 
+    // Skips building events, and their snapshots, that no one would hear
+    private <E extends ClientEvent> void fire(@Nonnull Class<? extends E> eventClass, @Nonnull Supplier<E> event) {
+        EventManager eventManager = this.client.getEventManager();
+        if (eventManager.hasSubscribers(eventClass)) {
+            if (eventManager instanceof ManagerEvent) {
+                // Nothing is read back from these events, so lanes may take them
+                ((ManagerEvent) eventManager).callEventInOrder(event.get());
+            } else {
+                eventManager.callEvent(event.get());
+            }
+        }
+    }
+
     @Nonnull
     private MessageTargetInfo getTypeByTarget(@Nonnull String target) {
         ActorProvider.IRCChannel channel = this.client.getActorProvider().getChannel(target);
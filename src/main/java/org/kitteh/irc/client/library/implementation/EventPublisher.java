@@ -0,0 +1,236 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.exception.KittehEventException;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.util.Flow;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes events of one class to subscribers at the pace they request,
+ * buffering a bounded number for each.
+ *
+ * @param <T> event type
+ */
+final class EventPublisher<T> implements Flow.Publisher<T> {
+    /**
+     * One subscriber's buffer and demand. Events are offered by whichever
+     * thread fires them, which never waits, and delivered serially on the
+     * executor.
+     *
+     * @param <T> event type
+     */
+    static final class EventSubscription<T> implements Flow.Subscription {
+        private final EventPublisher<T> publisher;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final ArrayDeque<T> buffer = new ArrayDeque<>();
+        private final Object lock = new Object();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile Throwable error;
+
+        private EventSubscription(@Nonnull EventPublisher<T> publisher, @Nonnull Flow.Subscriber<? super T> subscriber) {
+            this.publisher = publisher;
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Gets if events of the given class would be offered here.
+         *
+         * @param eventClass event class
+         * @return true if wanted
+         */
+        boolean wants(@Nonnull Class<?> eventClass) {
+            return this.publisher.eventClass.isAssignableFrom(eventClass);
+        }
+
+        /**
+         * Offers an event, buffering it if of the right class.
+         *
+         * @param event event
+         */
+        void offer(@Nonnull Object event) {
+            if (!this.publisher.eventClass.isInstance(event)) {
+                return;
+            }
+            T item = this.publisher.eventClass.cast(event);
+            boolean overflowed = false;
+            synchronized (this.lock) {
+                if (this.cancelled || this.done) {
+                    return;
+                }
+                if (this.buffer.size() >= this.publisher.capacity) {
+                    if (this.publisher.overflow == EventManager.Overflow.ERROR) {
+                        overflowed = true;
+                    } else {
+                        this.buffer.pollFirst();
+                    }
+                }
+                if (!overflowed) {
+                    this.buffer.addLast(item);
+                }
+            }
+            if (overflowed) {
+                this.fail(new KittehEventException("Subscriber fell more than " + this.publisher.capacity + " events behind"));
+            } else {
+                this.drain();
+            }
+        }
+
+        /**
+         * Completes the subscription once the buffer is delivered.
+         */
+        void complete() {
+            this.done = true;
+            this.drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                this.fail(new IllegalArgumentException("Requested " + n + " items, must request more than zero"));
+                return;
+            }
+            this.requested.getAndUpdate(current -> ((current + n) < 0) ? Long.MAX_VALUE : (current + n));
+            this.drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            this.publisher.manager.removeSubscription(this);
+            synchronized (this.lock) {
+                this.buffer.clear();
+            }
+        }
+
+        private void fail(@Nonnull Throwable throwable) {
+            this.error = throwable;
+            synchronized (this.lock) {
+                this.buffer.clear();
+            }
+            this.complete();
+        }
+
+        private void drain() {
+            if (this.wip.getAndIncrement() == 0) {
+                this.publisher.executor.execute(this::drainLoop);
+            }
+        }
+
+        private void drainLoop() {
+            int missed = 1;
+            do {
+                while (!this.cancelled) {
+                    T item = null;
+                    boolean finished;
+                    synchronized (this.lock) {
+                        if (this.requested.get() > 0) {
+                            item = this.buffer.pollFirst();
+                        }
+                        finished = this.done && this.buffer.isEmpty();
+                    }
+                    if (item != null) {
+                        if (this.requested.get() != Long.MAX_VALUE) {
+                            this.requested.decrementAndGet();
+                        }
+                        try {
+                            this.subscriber.onNext(item);
+                        } catch (Throwable thrown) {
+                            this.cancel();
+                            this.publisher.manager.reportException(new KittehEventException(thrown));
+                        }
+                        continue;
+                    }
+                    if (finished) {
+                        this.cancel();
+                        Throwable error = this.error;
+                        if (error == null) {
+                            this.subscriber.onComplete();
+                        } else {
+                            this.subscriber.onError(error);
+                        }
+                    }
+                    break;
+                }
+                missed = this.wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("eventClass", this.publisher.eventClass).add("requested", this.requested.get()).add("cancelled", this.cancelled).toString();
+        }
+    }
+
+    private final ManagerEvent manager;
+    private final Class<T> eventClass;
+    private final int capacity;
+    private final EventManager.Overflow overflow;
+    private final Executor executor;
+
+    /**
+     * Creates a publisher.
+     *
+     * @param manager manager offering events
+     * @param eventClass class of events published
+     * @param capacity events buffered per subscriber
+     * @param overflow what to do when a buffer is full
+     * @param executor executor delivering to subscribers
+     */
+    EventPublisher(@Nonnull ManagerEvent manager, @Nonnull Class<T> eventClass, int capacity, @Nonnull EventManager.Overflow overflow, @Nonnull Executor executor) {
+        this.manager = manager;
+        this.eventClass = eventClass;
+        this.capacity = (overflow == EventManager.Overflow.LATEST) ? 1 : capacity;
+        this.overflow = overflow;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Sanity.nullCheck(subscriber, "Subscriber cannot be null");
+        EventSubscription<T> subscription = new EventSubscription<>(this, subscriber);
+        subscriber.onSubscribe(subscription);
+        if (!subscription.cancelled) {
+            this.manager.addSubscription(subscription);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("eventClass", this.eventClass).add("capacity", this.capacity).add("overflow", this.overflow).toString();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Records the path of lines through the client as Flight Recorder events,
+ * where the JVM supports them. Events are begun only while a recording
+ * has them enabled, otherwise each call costs a field check.
+ *
+ * @see FlightEvents
+ */
+final class Flight {
+    private static final boolean AVAILABLE = isAvailable();
+
+    private Flight() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, Flight.class.getClassLoader());
+            FlightEvents.command(""); // Registers the event types
+            return true;
+        } catch (Throwable ignored) {
+            // No Flight Recorder, or not permitted to use it
+            return false;
+        }
+    }
+
+    /**
+     * Begins timing the handoff of a line read from the server to the
+     * client. Reading the line is not timed.
+     *
+     * @return event to commit, or null if not recording
+     */
+    @Nullable
+    static Object beginHandoff() {
+        return AVAILABLE ? FlightEvents.beginHandoff() : null;
+    }
+
+    /**
+     * Commits a line handed off.
+     *
+     * @param event event from {@link #beginHandoff()}
+     * @param client client
+     * @param line line received
+     * @param lineNumber number of the line, or 0 if none
+     */
+    static void commitHandoff(@Nullable Object event, @Nonnull InternalClient client, @Nonnull String line, long lineNumber) {
+        if (event != null) {
+            FlightEvents.commitHandoff(event, client.getName(), line, lineNumber);
+        }
+    }
+
+    /**
+     * Begins timing the parsing of a line.
+     *
+     * @return event to commit, or null if not recording
+     */
+    @Nullable
+    static Object beginParsed() {
+        return AVAILABLE ? FlightEvents.beginParsed() : null;
+    }
+
+    /**
+     * Commits a line parsed.
+     *
+     * @param event event from {@link #beginParsed()}
+     * @param client client
+     * @param line line parsed
+     * @param lineNumber number of the line, or 0 if none
+     */
+    static void commitParsed(@Nullable Object event, @Nonnull InternalClient client, @Nonnull String line, long lineNumber) {
+        if (event != null) {
+            FlightEvents.commitParsed(event, client.getName(), line, lineNumber);
+        }
+    }
+
+    /**
+     * Begins timing the dispatch of an event.
+     *
+     * @return event to commit, or null if not recording
+     */
+    @Nullable
+    static Object beginDispatched() {
+        return AVAILABLE ? FlightEvents.beginDispatched() : null;
+    }
+
+    /**
+     * Commits an event dispatched, with the number of the line the calling
+     * thread is processing, if any.
+     *
+     * @param event event from {@link #beginDispatched()}
+     * @param client client
+     * @param dispatched event dispatched
+     */
+    static void commitDispatched(@Nullable Object event, @Nonnull InternalClient client, @Nonnull Object dispatched) {
+        if (event != null) {
+            FlightEvents.commitDispatched(event, client.getName(), client.getProcessingLine(), dispatched);
+        }
+    }
+
+    /**
+     * Begins timing the rebuilding of an actor's state.
+     *
+     * @return event to commit, or null if not recording
+     */
+    @Nullable
+    static Object beginStateUpdate() {
+        return AVAILABLE ? FlightEvents.beginStateUpdate() : null;
+    }
+
+    /**
+     * Commits an actor's state rebuilt.
+     *
+     * @param event event from {@link #beginStateUpdate()}
+     * @param client client
+     * @param actor name of the actor
+     */
+    static void commitStateUpdate(@Nullable Object event, @Nonnull InternalClient client, @Nonnull String actor) {
+        if (event != null) {
+            FlightEvents.commitStateUpdate(event, client.getName(), actor);
+        }
+    }
+
+    /**
+     * Records a line queued to send.
+     *
+     * @param client client
+     * @param line line
+     * @param immediate true if skipping the message delay
+     */
+    static void queued(@Nonnull InternalClient client, @Nonnull String line, boolean immediate) {
+        if (AVAILABLE) {
+            FlightEvents.queued(client.getName(), line, immediate);
+        }
+    }
+
+    /**
+     * Records a line sent.
+     *
+     * @param client client
+     * @param line line
+     * @param queueTime nanoseconds spent waiting for the message delay
+     */
+    static void sent(@Nonnull InternalClient client, @Nonnull String line, long queueTime) {
+        if (AVAILABLE) {
+            FlightEvents.sent(client.getName(), line, queueTime);
+        }
+    }
+}
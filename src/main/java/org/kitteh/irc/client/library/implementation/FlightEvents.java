@@ -0,0 +1,274 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Flight Recorder events following a line through the client. Only loaded
+ * where the JVM has {@code jdk.jfr}, by way of {@link Flight}.
+ *
+ * The handoff, parsing and dispatch events of a line share its number
+ * within the client, so one line can be followed across threads.
+ */
+final class FlightEvents {
+    private static final String LINE_DESCRIPTION = "Number of the line within the client, zero if none";
+
+    @Name("org.kitteh.irc.LineHandoff")
+    @Label("Line Handoff")
+    @Description("A line read from the server was handed to the client to be parsed, timing the handoff only")
+    @Category({"IRC", "Lines"})
+    @StackTrace(false)
+    static final class LineHandoff extends Event {
+        @Label("Client")
+        String client;
+        @Label("Line")
+        @Description(LINE_DESCRIPTION)
+        long line;
+        @Label("Command")
+        String command;
+    }
+
+    @Name("org.kitteh.irc.LineParsed")
+    @Label("Line Parsed")
+    @Description("A line from the server was parsed and its events fired")
+    @Category({"IRC", "Lines"})
+    @StackTrace(false)
+    static final class LineParsed extends Event {
+        @Label("Client")
+        String client;
+        @Label("Line")
+        @Description(LINE_DESCRIPTION)
+        long line;
+        @Label("Command")
+        String command;
+    }
+
+    @Name("org.kitteh.irc.EventDispatched")
+    @Label("Event Dispatched")
+    @Description("An event was dispatched to its handlers")
+    @Category({"IRC", "Events"})
+    @StackTrace(false)
+    static final class EventDispatched extends Event {
+        @Label("Client")
+        String client;
+        @Label("Line")
+        @Description(LINE_DESCRIPTION)
+        long line;
+        @Label("Event Type")
+        String eventType;
+    }
+
+    @Name("org.kitteh.irc.StateUpdated")
+    @Label("State Updated")
+    @Description("The snapshot of a channel or user was rebuilt after changes")
+    @Category({"IRC", "State"})
+    @StackTrace(false)
+    static final class StateUpdated extends Event {
+        @Label("Client")
+        String client;
+        @Label("Actor")
+        String actor;
+    }
+
+    @Name("org.kitteh.irc.LineQueued")
+    @Label("Line Queued")
+    @Description("A line was queued to be sent to the server")
+    @Category({"IRC", "Lines"})
+    @StackTrace(false)
+    static final class LineQueued extends Event {
+        @Label("Client")
+        String client;
+        @Label("Command")
+        String command;
+        @Label("Immediate")
+        boolean immediate;
+    }
+
+    @Name("org.kitteh.irc.LineSent")
+    @Label("Line Sent")
+    @Description("A line was written to the server")
+    @Category({"IRC", "Lines"})
+    @StackTrace(false)
+    static final class LineSent extends Event {
+        @Label("Client")
+        String client;
+        @Label("Command")
+        String command;
+        @Label("Queue Time")
+        @Description("Time spent waiting for the message delay, zero for lines sent immediately")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueTime;
+    }
+
+    private static final EventType HANDOFF = EventType.getEventType(LineHandoff.class);
+    private static final EventType PARSED = EventType.getEventType(LineParsed.class);
+    private static final EventType DISPATCHED = EventType.getEventType(EventDispatched.class);
+    private static final EventType STATE_UPDATED = EventType.getEventType(StateUpdated.class);
+    private static final EventType QUEUED = EventType.getEventType(LineQueued.class);
+    private static final EventType SENT = EventType.getEventType(LineSent.class);
+
+    private FlightEvents() {
+    }
+
+    @Nullable
+    static Object beginHandoff() {
+        if (!HANDOFF.isEnabled()) {
+            return null;
+        }
+        LineHandoff event = new LineHandoff();
+        event.begin();
+        return event;
+    }
+
+    static void commitHandoff(@Nonnull Object flight, @Nonnull String client, @Nonnull String line, long lineNumber) {
+        LineHandoff event = (LineHandoff) flight;
+        event.end();
+        if (event.shouldCommit()) {
+            event.client = client;
+            event.line = lineNumber;
+            event.command = command(line);
+            event.commit();
+        }
+    }
+
+    @Nullable
+    static Object beginParsed() {
+        if (!PARSED.isEnabled()) {
+            return null;
+        }
+        LineParsed event = new LineParsed();
+        event.begin();
+        return event;
+    }
+
+    static void commitParsed(@Nonnull Object flight, @Nonnull String client, @Nonnull String line, long lineNumber) {
+        LineParsed event = (LineParsed) flight;
+        event.end();
+        if (event.shouldCommit()) {
+            event.client = client;
+            event.line = lineNumber;
+            event.command = command(line);
+            event.commit();
+        }
+    }
+
+    @Nullable
+    static Object beginDispatched() {
+        if (!DISPATCHED.isEnabled()) {
+            return null;
+        }
+        EventDispatched event = new EventDispatched();
+        event.begin();
+        return event;
+    }
+
+    static void commitDispatched(@Nonnull Object flight, @Nonnull String client, long lineNumber, @Nonnull Object dispatched) {
+        EventDispatched event = (EventDispatched) flight;
+        event.end();
+        if (event.shouldCommit()) {
+            event.client = client;
+            event.line = lineNumber;
+            event.eventType = dispatched.getClass().getName();
+            event.commit();
+        }
+    }
+
+    @Nullable
+    static Object beginStateUpdate() {
+        if (!STATE_UPDATED.isEnabled()) {
+            return null;
+        }
+        StateUpdated event = new StateUpdated();
+        event.begin();
+        return event;
+    }
+
+    static void commitStateUpdate(@Nonnull Object flight, @Nonnull String client, @Nonnull String actor) {
+        StateUpdated event = (StateUpdated) flight;
+        event.end();
+        if (event.shouldCommit()) {
+            event.client = client;
+            event.actor = actor;
+            event.commit();
+        }
+    }
+
+    static void queued(@Nonnull String client, @Nonnull String line, boolean immediate) {
+        if (!QUEUED.isEnabled()) {
+            return;
+        }
+        LineQueued event = new LineQueued();
+        event.client = client;
+        event.command = command(line);
+        event.immediate = immediate;
+        event.commit();
+    }
+
+    static void sent(@Nonnull String client, @Nonnull String line, long queueTime) {
+        if (!SENT.isEnabled()) {
+            return;
+        }
+        LineSent event = new LineSent();
+        event.client = client;
+        event.command = command(line);
+        event.queueTime = queueTime;
+        event.commit();
+    }
+
+    /**
+     * Gets the command or numeric of a line, skipping any tags and prefix.
+     *
+     * @param line line
+     * @return command, or an empty string if none
+     */
+    @Nonnull
+    static String command(@Nonnull String line) {
+        int start = 0;
+        if (line.startsWith("@")) {
+            start = line.indexOf(' ') + 1;
+            if (start == 0) {
+                return "";
+            }
+        }
+        if (line.startsWith(":", start)) {
+            start = line.indexOf(' ', start) + 1;
+            if (start == 0) {
+                return "";
+            }
+        }
+        int end = line.indexOf(' ', start);
+        return (end < 0) ? line.substring(start) : line.substring(start, end);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.event.client.SlowHandlerEvent;
+import org.kitteh.irc.client.library.feature.HandlerStats;
+import org.kitteh.irc.client.library.feature.Metrics;
+import org.kitteh.irc.client.library.feature.filter.FilteringSubscriptionFactory;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the invocation times of each handler method, and reports those
+ * running over budget.
+ *
+ * Times are kept by method, so every listener instance of a class adds to
+ * the same stats. That is intended: the method is what gets optimized, and
+ * stats kept by instance would hold on to listeners after they are
+ * unregistered.
+ */
+final class HandlerTimings implements FilteringSubscriptionFactory.InvocationTimer {
+    private static final class Stats implements HandlerStats {
+        private final Method method;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder slow = new LongAdder();
+
+        private Stats(@Nonnull Method method) {
+            this.method = method;
+        }
+
+        @Nonnull
+        @Override
+        public Method getMethod() {
+            return this.method;
+        }
+
+        @Override
+        public long getInvocations() {
+            return this.latency.getCount();
+        }
+
+        @Override
+        public long getSlowInvocations() {
+            return this.slow.sum();
+        }
+
+        @Override
+        public long getTotalTime() {
+            return this.latency.getSum();
+        }
+
+        @Nonnull
+        @Override
+        public Metrics.Histogram getLatency() {
+            return this.latency;
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("method", this.method).add("invocations", this.getInvocations()).add("totalTime", this.getTotalTime()).toString();
+        }
+    }
+
+    private final Map<Method, Stats> stats = new ConcurrentHashMap<>();
+    private final ManagerEvent manager;
+    private final long budget;
+
+    /**
+     * Creates timings.
+     *
+     * @param manager manager reporting slow handlers
+     * @param budget milliseconds a handler may take before it is reported
+     */
+    HandlerTimings(@Nonnull ManagerEvent manager, int budget) {
+        this.manager = manager;
+        this.budget = TimeUnit.MILLISECONDS.toNanos(budget);
+    }
+
+    @Override
+    public void record(@Nonnull Method method, @Nonnull Object message, long nanos) {
+        Stats stats = this.stats.get(method);
+        if (stats == null) {
+            stats = this.stats.computeIfAbsent(method, Stats::new);
+        }
+        stats.latency.record(nanos);
+        if (nanos > this.budget) {
+            stats.slow.increment();
+            // Reporting slow handlers of the report could go on forever
+            if (!(message instanceof SlowHandlerEvent)) {
+                this.manager.reportSlowHandler(method, message, nanos);
+            }
+        }
+    }
+
+    /**
+     * Gets the timings of each handler, most total time first.
+     *
+     * @return timings
+     */
+    @Nonnull
+    List<HandlerStats> getStats() {
+        List<HandlerStats> list = new ArrayList<>(this.stats.values());
+        list.sort(Comparator.comparingLong(HandlerStats::getTotalTime).reversed());
+        return list;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("budget", this.budget).add("handlers", this.stats.size()).toString();
+    }
+}
@@ -24,7 +24,6 @@
 package org.kitteh.irc.client.library.implementation;
 
 import org.kitteh.irc.client.library.element.Channel;
-import org.kitteh.irc.client.library.element.MessageTag;
 import org.kitteh.irc.client.library.element.User;
 import org.kitteh.irc.client.library.element.mode.ModeStatus;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
@@ -34,50 +33,51 @@ import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
 import org.kitteh.irc.client.library.exception.KittehServerMessageException;
 import org.kitteh.irc.client.library.exception.KittehServerMessageTagException;
 import org.kitteh.irc.client.library.feature.AuthManager;
+import org.kitteh.irc.client.library.feature.CapabilityManager;
 import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.Latency;
+import org.kitteh.irc.client.library.feature.Metrics;
 import org.kitteh.irc.client.library.feature.MessageTagManager;
+import org.kitteh.irc.client.library.feature.auth.AbstractSaslProtocol;
 import org.kitteh.irc.client.library.util.CISet;
+import org.kitteh.irc.client.library.util.CaptureLog;
 import org.kitteh.irc.client.library.util.Cutter;
 import org.kitteh.irc.client.library.util.Pair;
-import org.kitteh.irc.client.library.util.QueueProcessingThread;
 import org.kitteh.irc.client.library.util.Sanity;
-import org.kitteh.irc.client.library.util.StringUtil;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 final class IRCClient extends InternalClient {
-    private final class InputProcessor extends QueueProcessingThread<String> {
-        private InputProcessor() {
-            super("Kitteh IRC Client Input Processor (" + IRCClient.this.getName() + ')');
-        }
-
-        @Override
-        protected void processElement(@Nonnull String element) {
-            try {
-                IRCClient.this.handleLine(element);
-            } catch (final Exception thrown) {
-                IRCClient.this.exceptionListener.queue(thrown);
-            }
-        }
-    }
-
-    private final String[] pingPurr = new String[]{"MEOW", "MEOW!", "PURR", "PURRRRRRR", "MEOWMEOW", ":3", "HISS"};
-    private int pingPurrCount;
+    private final PingTracker pingTracker = new PingTracker();
 
     private final Config config;
-    private final InputProcessor processor;
+    private final Mailbox<String> processor;
+    private final ExecutorService mailboxExecutor;
     private IRCServerInfo serverInfo = new IRCServerInfo(this);
 
     private String goalNick;
@@ -86,13 +86,15 @@ final class IRCClient extends InternalClient {
 
     private final Set<String> channelsIntended = new CISet(this);
 
-    private NettyManager.ClientConnection connection;
+    private volatile NettyManager.ClientConnection connection;
+    private final Queue<Consumer<NettyManager.ClientConnection>> awaitingConnection = new ArrayDeque<>(); // Guarded by itself
+    private volatile boolean holdingLines; // Until the launcher admits the connection and registration is sent
 
     private Cutter messageCutter = new Cutter.DefaultWordCutter();
 
     private final AuthManager authManager = new ManagerAuth(this);
     private final ManagerCapability capabilityManager = new ManagerCapability(this);
-    private final EventManager eventManager = new ManagerEvent(this);
+    private final ManagerEvent eventManager;
     private final ManagerISupport iSupportManager = new ManagerISupport(this);
     private final ManagerMessageTag messageTagManager = new ManagerMessageTag(this);
 
@@ -101,24 +103,56 @@ final class IRCClient extends InternalClient {
     private final Listener<String> outputListener;
 
     private final ActorProvider actorProvider = new ActorProvider(this);
+    private final IRCClientMetrics metrics;
+    private final CaptureLog.Writer captureLog;
+    private final boolean replayOnly;
+    private ObjectName metricsName;
 
     private Map<Character, ModeStatus<UserMode>> userModes;
 
     IRCClient(@Nonnull Config config) {
         this.config = config;
+        this.metrics = new IRCClientMetrics(this, config.getNotNull(Config.LATENCY_METRICS));
+        this.holdingLines = config.get(Config.LAUNCHER) != null;
         this.currentNick = this.requestedNick = this.goalNick = this.config.get(Config.NICK);
+        this.replayOnly = this.config.getNotNull(Config.REPLAY_ONLY);
 
         final String name = this.config.getNotNull(Config.NAME);
+        ThreadFactory threadFactory = this.config.get(Config.THREAD_FACTORY);
+        // The client's own, so a blocking listener holds up no other client
+        this.mailboxExecutor = ClientThreads.cachedPool(name, "Mailbox", threadFactory);
 
         Config.ExceptionConsumerWrapper exceptionListenerWrapper = this.config.get(Config.LISTENER_EXCEPTION);
-        this.exceptionListener = new Listener<>(name, (exceptionListenerWrapper == null) ? null : exceptionListenerWrapper.getConsumer());
+        this.exceptionListener = new Listener<>(name, (exceptionListenerWrapper == null) ? null : exceptionListenerWrapper.getConsumer(), this.mailboxExecutor);
         Config.StringConsumerWrapper inputListenerWrapper = this.config.get(Config.LISTENER_INPUT);
-        this.inputListener = new Listener<>(name, (inputListenerWrapper == null) ? null : inputListenerWrapper.getConsumer());
+        this.inputListener = new Listener<>(name, (inputListenerWrapper == null) ? null : inputListenerWrapper.getConsumer(), this.mailboxExecutor);
         Config.StringConsumerWrapper outputListenerWrapper = this.config.get(Config.LISTENER_OUTPUT);
-        this.outputListener = new Listener<>(name, (outputListenerWrapper == null) ? null : outputListenerWrapper.getConsumer());
+        this.outputListener = new Listener<>(name, (outputListenerWrapper == null) ? null : outputListenerWrapper.getConsumer(), this.mailboxExecutor);
 
-        this.processor = new InputProcessor();
+        this.processor = new Mailbox<>("Input Processor (" + name + ')', Mailbox.DEFAULT_CAPACITY, this::processElement, this.mailboxExecutor, this.metrics.getInputLagRecorder(), full -> this.setReading(!full));
+        this.eventManager = new ManagerEvent(this, this.config);
         this.eventManager.registerEventListener(new EventListener(this));
+
+        if (this.config.getNotNull(Config.METRICS_MBEAN)) {
+            try {
+                ObjectName metricsName = new ObjectName("org.kitteh.irc.client.library:type=Metrics,name=" + ObjectName.quote(name));
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(this.metrics, Metrics.class, true), metricsName);
+                this.metricsName = metricsName;
+            } catch (JMException e) {
+                this.exceptionListener.queue(e);
+            }
+        }
+
+        File captureFile = this.config.get(Config.CAPTURE_LOG);
+        CaptureLog.Writer captureLog = null;
+        if (captureFile != null) {
+            try {
+                captureLog = new CaptureLog.Writer(captureFile);
+            } catch (IOException e) {
+                this.exceptionListener.queue(e);
+            }
+        }
+        this.captureLog = captureLog;
     }
 
     @Override
@@ -207,6 +241,12 @@ final class IRCClient extends InternalClient {
         return this.iSupportManager;
     }
 
+    @Nonnull
+    @Override
+    public Latency getLatency() {
+        return this.pingTracker.getLatency();
+    }
+
     @Nonnull
     @Override
     public Cutter getMessageCutter() {
@@ -224,6 +264,12 @@ final class IRCClient extends InternalClient {
         return this.messageTagManager;
     }
 
+    @Nonnull
+    @Override
+    public IRCClientMetrics getMetrics() {
+        return this.metrics;
+    }
+
     @Nonnull
     @Override
     public String getName() {
@@ -275,6 +321,38 @@ final class IRCClient extends InternalClient {
         this.removeChannelPlease(channelName, reason);
     }
 
+    @Override
+    public long replay(@Nonnull File log, boolean realTime) throws IOException {
+        Sanity.nullCheck(log, "Log cannot be null");
+        if (!this.replayOnly) {
+            throw new IllegalStateException("Only clients built for replay can replay");
+        }
+        long lines = 0;
+        try (CaptureLog.Reader reader = new CaptureLog.Reader(log)) {
+            long firstCaptured = 0;
+            long started = 0;
+            CaptureLog.Entry entry;
+            while ((entry = reader.next()) != null) {
+                if (realTime) {
+                    if (started == 0) {
+                        firstCaptured = entry.getNanos();
+                        started = System.nanoTime();
+                    }
+                    long wait;
+                    while ((wait = (entry.getNanos() - firstCaptured) - (System.nanoTime() - started)) > 0) {
+                        LockSupport.parkNanos(wait);
+                        if (Thread.currentThread().isInterrupted()) {
+                            return lines;
+                        }
+                    }
+                }
+                this.processLine(entry.getLine());
+                lines++;
+            }
+        }
+        return lines;
+    }
+
     private void removeChannelPlease(@Nonnull String channelName, @Nullable String reason) {
         Sanity.nullCheck(channelName, "Channel cannot be null");
         ActorProvider.IRCChannel channel = this.actorProvider.getChannel(channelName);
@@ -338,19 +416,19 @@ final class IRCClient extends InternalClient {
     @Override
     public void sendRawLine(@Nonnull String message) {
         this.sendRawLineCheck(message);
-        this.connection.sendMessage(message, false);
+        this.send(message, connection -> connection.sendMessage(message, false));
     }
 
     @Override
     public void sendRawLineAvoidingDuplication(@Nonnull String message) {
         this.sendRawLineCheck(message);
-        this.connection.sendMessage(message, false, true);
+        this.send(message, connection -> connection.sendMessage(message, false, true));
     }
 
     @Override
     public void sendRawLineImmediately(@Nonnull String message) {
         this.sendRawLineCheck(message);
-        this.connection.sendMessage(message, true);
+        this.send(message, connection -> connection.sendMessage(message, true));
     }
 
     private void sendRawLineCheck(@Nonnull String message) {
@@ -358,11 +436,29 @@ final class IRCClient extends InternalClient {
         if (!message.isEmpty() && (message.length() > ((message.charAt(0) == '@') ? 1022 : 510))) {
             throw new IllegalArgumentException("Message too long: " + message.length());
         }
-        if (this.connection == null) {
+        if ((this.connection == null) && (this.config.get(Config.LAUNCHER) == null) && !this.replayOnly) {
             throw new IllegalStateException("Cannot send messages prior to connection");
         }
     }
 
+    private void send(@Nonnull String message, @Nonnull Consumer<NettyManager.ClientConnection> sender) {
+        if (this.replayOnly) {
+            // Never connects, let the output listener see what would be sent
+            this.outputListener.queue(message);
+            return;
+        }
+        if (this.holdingLines) {
+            synchronized (this.awaitingConnection) {
+                if (this.holdingLines) {
+                    // Waiting on the launcher, hold the line until connected
+                    this.awaitingConnection.add(sender);
+                    return;
+                }
+            }
+        }
+        sender.accept(this.connection);
+    }
+
     @Override
     public void setExceptionListener(@Nullable Consumer<Exception> listener) {
         if (listener == null) {
@@ -423,16 +519,54 @@ final class IRCClient extends InternalClient {
     }
 
     private void shutdownInternal(@Nullable String reason) {
-        this.processor.interrupt();
+        this.processor.shutdown(false);
+
+        IRCClientLauncher launcher = this.config.get(Config.LAUNCHER);
+        if (launcher != null) {
+            launcher.cancel(this);
+        }
+        synchronized (this.awaitingConnection) {
+            this.awaitingConnection.clear();
+        }
 
         if (this.connection != null) { // In case shutdown is called while building.
             this.connection.shutdown(reason);
         }
 
         // Shut these down last, so they get any last firings
+        this.eventManager.shutdown();
         this.exceptionListener.shutdown();
         this.inputListener.shutdown();
         this.outputListener.shutdown();
+
+        if (this.metricsName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.metricsName);
+            } catch (JMException ignored) {
+                // Already gone
+            }
+            this.metricsName = null;
+        }
+
+        if (this.captureLog != null) {
+            try {
+                this.captureLog.close();
+            } catch (IOException e) {
+                this.exceptionListener.queue(e);
+            }
+        }
+
+        this.mailboxExecutor.shutdown(); // Items already queued are still delivered
+    }
+
+    private void processElement(@Nonnull String element) {
+        Object flight = Flight.beginParsed();
+        try {
+            this.handleLine(element);
+        } catch (final Exception thrown) {
+            this.exceptionListener.queue(thrown);
+        }
+        Flight.commitParsed(flight, this, element, this.processor.getSequence());
     }
 
     @Override
@@ -445,13 +579,29 @@ final class IRCClient extends InternalClient {
      * Queue up a line for processing.
      *
      * @param line line to be processed
+     * @return number of the line, or 0 if not queued
      */
     @Override
-    void processLine(@Nonnull String line) {
+    long processLine(@Nonnull String line) {
+        this.pingTracker.checkLine(line);
         if (line.startsWith("PING ")) {
             this.sendRawLineImmediately("PONG " + line.substring(5));
         } else if (!line.isEmpty()) {
-            this.processor.queue(line);
+            return this.processor.queue(line);
+        }
+        return 0;
+    }
+
+    @Override
+    long getProcessingLine() {
+        return this.processor.getSequence();
+    }
+
+    // Paused while lines arrive faster than they are processed, rather than waiting on the network thread
+    private void setReading(boolean reading) {
+        NettyManager.ClientConnection connection = this.connection;
+        if (connection != null) {
+            connection.setReading(reading);
         }
     }
 
@@ -461,6 +611,12 @@ final class IRCClient extends InternalClient {
         return this.actorProvider;
     }
 
+    @Nullable
+    @Override
+    CaptureLog.Writer getCaptureLog() {
+        return this.captureLog;
+    }
+
     @Nonnull
     @Override
     Config getConfig() {
@@ -499,30 +655,79 @@ final class IRCClient extends InternalClient {
 
     @Override
     void connect() {
+        IRCClientLauncher launcher = this.config.get(Config.LAUNCHER);
+        if (launcher == null) {
+            this.connectNow();
+        } else {
+            launcher.queue(this, this::connectNow);
+        }
+    }
+
+    private void connectNow() {
+        this.pingTracker.reset();
         this.connection = NettyManager.connect(this);
         this.processor.queue("");
 
-        this.sendRawLineImmediately("CAP LS 302");
+        // Registration goes out as a single write
+        List<String> registration = new ArrayList<>();
+        registration.add("CAP LS 302");
 
         // If we have WebIRC information, send it before PASS, USER, and NICK.
         if (this.config.get(Config.WEBIRC_PASSWORD) != null) {
-            this.sendRawLineImmediately("WEBIRC " + this.config.get(Config.WEBIRC_PASSWORD) + ' ' + this.config.get(Config.WEBIRC_USER) + ' ' + this.config.get(Config.WEBIRC_HOST) + ' ' + this.config.getNotNull(Config.WEBIRC_IP).getHostAddress());
+            registration.add("WEBIRC " + this.config.get(Config.WEBIRC_PASSWORD) + ' ' + this.config.get(Config.WEBIRC_USER) + ' ' + this.config.get(Config.WEBIRC_HOST) + ' ' + this.config.getNotNull(Config.WEBIRC_IP).getHostAddress());
         }
 
         // If the server has a password, send that along before USER and NICK.
         String password = this.config.get(Config.SERVER_PASSWORD);
         if (password != null) {
-            this.sendRawLineImmediately("PASS " + (password.contains(" ") ? ":" : "") + password);
+            registration.add("PASS " + (password.contains(" ") ? ":" : "") + password);
+        }
+
+        // Request capabilities without waiting for CAP LS, and start SASL right behind them.
+        String pipelined = this.config.get(Config.PIPELINED_CAPABILITIES);
+        List<String> capabilities = (pipelined == null) ? Collections.emptyList() : Arrays.asList(pipelined.split(" "));
+        this.capabilityManager.setSpeculativeRequests(capabilities);
+        if (pipelined != null) {
+            registration.add("CAP REQ :" + pipelined);
+            if (capabilities.stream().anyMatch(CapabilityManager.Defaults.SASL::equalsIgnoreCase)) {
+                this.authManager.getProtocols().stream().filter(protocol -> protocol instanceof AbstractSaslProtocol).findFirst()
+                        .ifPresent(protocol -> registration.add(((AbstractSaslProtocol<?>) protocol).startPipelinedAuthentication()));
+            }
         }
 
         // Initial USER and NICK messages. Let's just assume we want +iw (send 8)
-        this.sendRawLineImmediately("USER " + this.config.get(Config.USER) + " 8 * :" + this.config.get(Config.REAL_NAME));
-        this.sendNickChange(this.goalNick);
+        registration.add("USER " + this.config.get(Config.USER) + " 8 * :" + this.config.get(Config.REAL_NAME));
+        registration.add(this.nickChange(this.goalNick));
+
+        registration.forEach(this::sendRawLineCheck);
+        this.connection.sendMessages(registration);
+
+        // Lines held for the launcher follow registration, in order
+        synchronized (this.awaitingConnection) {
+            Consumer<NettyManager.ClientConnection> sender;
+            while ((sender = this.awaitingConnection.poll()) != null) {
+                sender.accept(this.connection);
+            }
+            this.holdingLines = false;
+        }
     }
 
     @Override
     void ping() {
-        this.sendRawLine("PING " + this.pingPurr[this.pingPurrCount++ % this.pingPurr.length]); // Connection's asleep, post cat sounds
+        NettyManager.ClientConnection connection = this.connection;
+        if (connection == null) {
+            return;
+        }
+        long idleThreshold = TimeUnit.MILLISECONDS.toNanos(this.config.getNotNull(Config.IDLE_THRESHOLD));
+        long interval = TimeUnit.MILLISECONDS.toNanos(this.config.getNotNull(Config.PING_INTERVAL));
+        if (!this.pingTracker.isPingDue(System.nanoTime(), idleThreshold, interval)) {
+            return;
+        }
+        if (this.pingTracker.getUnanswered() >= this.config.getNotNull(Config.PING_MISSED_LIMIT)) {
+            connection.shutdown("Ping timeout", true);
+            return;
+        }
+        this.sendRawLineImmediately("PING :" + this.pingTracker.nextToken());
     }
 
     @Override
@@ -532,8 +737,19 @@ final class IRCClient extends InternalClient {
 
     @Override
     void sendNickChange(@Nonnull String newNick) {
+        this.sendRawLineImmediately(this.nickChange(newNick));
+    }
+
+    /**
+     * Notes a nick as requested, for sending the line returned.
+     *
+     * @param newNick nick to request
+     * @return line requesting the nick
+     */
+    @Nonnull
+    private String nickChange(@Nonnull String newNick) {
         this.requestedNick = newNick;
-        this.sendRawLineImmediately("NICK " + newNick);
+        return "NICK " + newNick;
     }
 
     @Override
@@ -549,6 +765,10 @@ final class IRCClient extends InternalClient {
     @Override
     void startSending() {
         this.connection.startSending();
+        IRCClientLauncher launcher = this.config.get(Config.LAUNCHER);
+        if (launcher != null) {
+            launcher.release(this, true);
+        }
     }
 
     @Override
@@ -565,22 +785,6 @@ final class IRCClient extends InternalClient {
         }
     }
 
-    private List<String> handleArgs(@Nonnull String[] split, int start) {
-        final List<String> argsList = new ArrayList<>();
-
-        int index = start;
-        for (; index < split.length; index++) {
-            if (split[index].startsWith(":")) {
-                split[index] = split[index].substring(1);
-                argsList.add(StringUtil.combineSplit(split, index));
-                break;
-            }
-            argsList.add(split[index]);
-        }
-
-        return argsList;
-    }
-
     private void handleLine(@Nonnull final String line) {
         if (line.isEmpty()) {
             this.actorProvider.reset();
@@ -588,49 +792,65 @@ final class IRCClient extends InternalClient {
             this.serverInfo.reset();
         }
 
-        final String[] split = line.split(" ");
-
-        int index = 0;
+        int end = line.length();
+        while ((end > 0) && (line.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        int position = 0;
 
-        List<MessageTag> tags;
-        if (split[index].startsWith("@")) {
-            if (split.length <= index) {
-                throw new KittehServerMessageException(line, "Server sent a message without a command");
-            }
-            String tagSection = split[index];
-            if (tagSection.length() < 2) {
+        final IRCServerMessage serverMessage;
+        if (line.startsWith("@")) {
+            int tagsEnd = nextSpace(line, position, end);
+            if (tagsEnd < 2) {
                 throw new KittehServerMessageTagException(line, "Server sent an empty tag section");
             }
-            tags = this.messageTagManager.getTags(tagSection.substring(1));
-            index++;
+            serverMessage = new IRCServerMessage(line, this.messageTagManager, tagsEnd);
+            position = tagsEnd + 1;
         } else {
-            tags = Collections.unmodifiableList(new ArrayList<>());
+            serverMessage = new IRCServerMessage(line, null, 0);
         }
 
         final String actorName;
-        if (split[index].startsWith(":")) {
-            actorName = split[index].substring(1);
-            index++;
+        if ((position < end) && (line.charAt(position) == ':')) {
+            int actorEnd = nextSpace(line, position, end);
+            actorName = line.substring(position + 1, actorEnd);
+            position = actorEnd + 1;
         } else {
             actorName = "";
         }
-        final ActorProvider.IRCActor actor = this.actorProvider.getActor(actorName);
 
-        if (split.length <= index) {
+        if (position > end) {
             throw new KittehServerMessageException(line, "Server sent a message without a command");
         }
+        final ActorProvider.IRCActor actor = this.actorProvider.getActor(actorName);
+
+        int commandEnd = nextSpace(line, position, end);
+        final String commandString = line.substring(position, commandEnd);
 
-        final String commandString = split[index++];
+        final List<String> args = new ServerMessageParameters(line, commandEnd + 1, end);
 
-        final List<String> args = this.handleArgs(split, index);
+        if (isNumeric(commandString)) {
+            this.eventManager.callEvent(new ClientReceiveNumericEvent(this, serverMessage, actor.snapshot(), commandString, Integer.parseInt(commandString), args, false));
+        } else {
+            this.eventManager.callEvent(new ClientReceiveCommandEvent(this, serverMessage, actor.snapshot(), commandString, args, false));
+        }
+    }
 
-        final IRCServerMessage serverMessage = new IRCServerMessage(line, tags);
+    private static int nextSpace(@Nonnull String line, int start, int end) {
+        int space = line.indexOf(' ', start);
+        return ((space < 0) || (space > end)) ? end : space;
+    }
 
-        try {
-            int numeric = Integer.parseInt(commandString);
-            this.eventManager.callEvent(new ClientReceiveNumericEvent(this, serverMessage, actor.snapshot(), commandString, numeric, args));
-        } catch (NumberFormatException exception) {
-            this.eventManager.callEvent(new ClientReceiveCommandEvent(this, serverMessage, actor.snapshot(), commandString, args));
+    private static boolean isNumeric(@Nonnull String command) {
+        if (command.isEmpty() || (command.length() > 9)) {
+            return false;
+        }
+        for (int i = 0; i < command.length(); i++) {
+            char c = command.charAt(i);
+            if ((c < '0') || (c > '9')) {
+                return false;
+            }
         }
+        return true;
     }
 }
@@ -0,0 +1,262 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.ClientLauncher;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits client connection attempts per server, limited by concurrency and
+ * by a minimum delay between attempts.
+ */
+final class IRCClientLauncher implements ClientLauncher {
+    private static final class Attempt {
+        private final InternalClient client;
+        private final Runnable connector;
+
+        private Attempt(@Nonnull InternalClient client, @Nonnull Runnable connector) {
+            this.client = client;
+            this.connector = connector;
+        }
+    }
+
+    private static final class ServerQueue {
+        private final Deque<Attempt> waiting = new ArrayDeque<>();
+        private final Set<InternalClient> connecting = new HashSet<>();
+        private long nextAdmission = System.nanoTime();
+        private boolean scheduled;
+    }
+
+    private static final class IRCProgress implements Progress {
+        private final int total;
+        private final int queued;
+        private final int connecting;
+        private final int registered;
+        private final int failedAttempts;
+
+        private IRCProgress(int total, int queued, int connecting, int registered, int failedAttempts) {
+            this.total = total;
+            this.queued = queued;
+            this.connecting = connecting;
+            this.registered = registered;
+            this.failedAttempts = failedAttempts;
+        }
+
+        @Override
+        public int getTotal() {
+            return this.total;
+        }
+
+        @Override
+        public int getQueued() {
+            return this.queued;
+        }
+
+        @Override
+        public int getConnecting() {
+            return this.connecting;
+        }
+
+        @Override
+        public int getRegistered() {
+            return this.registered;
+        }
+
+        @Override
+        public int getFailedAttempts() {
+            return this.failedAttempts;
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("total", this.total).add("queued", this.queued).add("connecting", this.connecting).add("registered", this.registered).add("failedAttempts", this.failedAttempts).toString();
+        }
+    }
+
+    private final int maxConcurrent;
+    private final long connectDelayNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Map<SocketAddress, ServerQueue> servers = new HashMap<>();
+    private final Set<InternalClient> clients = new HashSet<>();
+    private final Set<InternalClient> registered = new HashSet<>();
+    private int failedAttempts;
+
+    IRCClientLauncher(int maxConcurrent, int connectDelay) {
+        this.maxConcurrent = maxConcurrent;
+        this.connectDelayNanos = TimeUnit.MILLISECONDS.toNanos(connectDelay);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Kitteh IRC Client Launcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.scheduler = executor;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized Progress getProgress() {
+        int queued = 0;
+        int connecting = 0;
+        for (ServerQueue server : this.servers.values()) {
+            queued += server.waiting.size();
+            connecting += server.connecting.size();
+        }
+        return new IRCProgress(this.clients.size(), queued, connecting, this.registered.size(), this.failedAttempts);
+    }
+
+    @Override
+    public synchronized boolean awaitStartup(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        Sanity.nullCheck(unit, "Unit cannot be null");
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!this.getProgress().isComplete()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Queues a connection attempt for the client.
+     *
+     * @param client client wishing to connect
+     * @param connector runs the actual connection attempt once admitted
+     */
+    synchronized void queue(@Nonnull InternalClient client, @Nonnull Runnable connector) {
+        this.clients.add(client);
+        this.registered.remove(client); // Reconnecting
+        ServerQueue server = this.getServer(client);
+        if (server.connecting.contains(client) || server.waiting.stream().anyMatch(attempt -> attempt.client == client)) {
+            return;
+        }
+        server.waiting.add(new Attempt(client, connector));
+        this.admit(server);
+    }
+
+    /**
+     * Marks the client's connection attempt as finished, freeing its slot.
+     *
+     * @param client client whose attempt ended
+     * @param registered true if the client completed registration
+     */
+    synchronized void release(@Nonnull InternalClient client, boolean registered) {
+        ServerQueue server = this.servers.get(client.getConfig().getNotNull(Config.SERVER_ADDRESS));
+        if ((server == null) || !server.connecting.remove(client)) {
+            return;
+        }
+        if (registered) {
+            this.registered.add(client);
+        } else {
+            this.failedAttempts++;
+        }
+        this.admit(server);
+        this.notifyAll();
+    }
+
+    /**
+     * Drops any queued or underway attempt of a client which is shutting
+     * down, and forgets the client.
+     *
+     * @param client client shutting down
+     */
+    synchronized void cancel(@Nonnull InternalClient client) {
+        this.clients.remove(client);
+        this.registered.remove(client);
+        SocketAddress address = client.getConfig().getNotNull(Config.SERVER_ADDRESS);
+        ServerQueue server = this.servers.get(address);
+        if (server == null) {
+            return;
+        }
+        Iterator<Attempt> iterator = server.waiting.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().client == client) {
+                iterator.remove();
+            }
+        }
+        server.connecting.remove(client);
+        this.admit(server);
+        if (server.waiting.isEmpty() && server.connecting.isEmpty() && !server.scheduled) {
+            this.servers.remove(address);
+        }
+        this.notifyAll();
+    }
+
+    private void admit(@Nonnull ServerQueue server) {
+        while (!server.waiting.isEmpty() && (server.connecting.size() < this.maxConcurrent)) {
+            long wait = server.nextAdmission - System.nanoTime();
+            if (wait > 0) {
+                if (!server.scheduled) {
+                    server.scheduled = true;
+                    this.scheduler.schedule(() -> {
+                        synchronized (IRCClientLauncher.this) {
+                            server.scheduled = false;
+                            this.admit(server);
+                        }
+                    }, wait, TimeUnit.NANOSECONDS);
+                }
+                return;
+            }
+            Attempt attempt = server.waiting.poll();
+            server.connecting.add(attempt.client);
+            server.nextAdmission = System.nanoTime() + this.connectDelayNanos;
+            this.scheduler.execute(() -> {
+                try {
+                    attempt.connector.run();
+                } catch (Exception thrown) {
+                    attempt.client.getExceptionListener().queue(thrown);
+                    this.release(attempt.client, false);
+                }
+            });
+        }
+    }
+
+    @Nonnull
+    private ServerQueue getServer(@Nonnull InternalClient client) {
+        return this.servers.computeIfAbsent(client.getConfig().getNotNull(Config.SERVER_ADDRESS), address -> new ServerQueue());
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("maxConcurrent", this.maxConcurrent).add("connectDelay", TimeUnit.NANOSECONDS.toMillis(this.connectDelayNanos)).toString();
+    }
+}
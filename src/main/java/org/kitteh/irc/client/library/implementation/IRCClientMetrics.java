@@ -0,0 +1,185 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.feature.Metrics;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A client's metrics. Traffic is counted here by the connection, while
+ * the event manager and actor provider keep their own figures, read on
+ * request.
+ */
+final class IRCClientMetrics implements Metrics {
+    // Shared by every client not recording latencies
+    static final LatencyHistogram EMPTY = new LatencyHistogram();
+
+    private final InternalClient client;
+    private final LongAdder linesIn = new LongAdder();
+    private final LongAdder linesOut = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    @Nullable
+    private final LatencyHistogram outboundWait;
+    @Nullable
+    private final LatencyHistogram inputLag;
+    private final AtomicReference<Queue<?>> outboundQueue = new AtomicReference<>();
+
+    IRCClientMetrics(@Nonnull InternalClient client, boolean latency) {
+        this.client = client;
+        this.outboundWait = latency ? new LatencyHistogram() : null;
+        this.inputLag = latency ? new LatencyHistogram() : null;
+    }
+
+    void lineIn() {
+        this.linesIn.increment();
+    }
+
+    void lineOut() {
+        this.linesOut.increment();
+    }
+
+    void bytesIn(int bytes) {
+        this.bytesIn.add(bytes);
+    }
+
+    void bytesOut(int bytes) {
+        this.bytesOut.add(bytes);
+    }
+
+    void reconnect() {
+        this.reconnects.increment();
+    }
+
+    @Nullable
+    LatencyHistogram getOutboundWaitRecorder() {
+        return this.outboundWait;
+    }
+
+    @Nullable
+    LatencyHistogram getInputLagRecorder() {
+        return this.inputLag;
+    }
+
+    /**
+     * Sets the outbound queue of the current connection.
+     *
+     * @param queue queue
+     */
+    void setOutboundQueue(@Nonnull Queue<?> queue) {
+        this.outboundQueue.set(queue);
+    }
+
+    /**
+     * Clears the outbound queue, if still the given one.
+     *
+     * @param queue queue of a closed connection
+     */
+    void clearOutboundQueue(@Nonnull Queue<?> queue) {
+        this.outboundQueue.compareAndSet(queue, null);
+    }
+
+    @Override
+    public long getLinesIn() {
+        return this.linesIn.sum();
+    }
+
+    @Override
+    public long getLinesOut() {
+        return this.linesOut.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return this.bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return this.bytesOut.sum();
+    }
+
+    @Override
+    public int getOutboundQueueDepth() {
+        Queue<?> queue = this.outboundQueue.get();
+        return (queue == null) ? 0 : queue.size();
+    }
+
+    @Nonnull
+    @Override
+    public Histogram getOutboundWait() {
+        return (this.outboundWait == null) ? EMPTY : this.outboundWait;
+    }
+
+    @Nonnull
+    @Override
+    public Histogram getInputLag() {
+        return (this.inputLag == null) ? EMPTY : this.inputLag;
+    }
+
+    @Nonnull
+    @Override
+    public Histogram getDispatchLatency() {
+        ManagerEvent eventManager = this.getManagerEvent();
+        return (eventManager == null) ? EMPTY : eventManager.getDispatchLatency();
+    }
+
+    @Override
+    public long getReconnects() {
+        return this.reconnects.sum();
+    }
+
+    @Override
+    public int getTrackedChannels() {
+        return this.client.getActorProvider().getTrackedChannelCount();
+    }
+
+    @Override
+    public int getTrackedUsers() {
+        return this.client.getActorProvider().getTrackedUserCount();
+    }
+
+    @Override
+    public long getSnapshotRebuilds() {
+        return this.client.getActorProvider().getSnapshotRebuilds();
+    }
+
+    @Nullable
+    private ManagerEvent getManagerEvent() {
+        return (this.client.getEventManager() instanceof ManagerEvent) ? (ManagerEvent) this.client.getEventManager() : null;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("linesIn", this.getLinesIn()).add("linesOut", this.getLinesOut()).add("reconnects", this.getReconnects()).toString();
+    }
+}
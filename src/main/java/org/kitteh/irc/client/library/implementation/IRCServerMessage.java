@@ -29,16 +29,24 @@ import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
- * Represents a message sent by the server.
+ * Represents a message sent by the server. Tags may be left in the message
+ * until first requested, and are then parsed on the requesting thread with
+ * the tag creators registered when the message was received. Failures in
+ * tag creators go to the client's exception listener as when parsed
+ * eagerly.
  */
 final class IRCServerMessage implements ServerMessage {
     private final String message;
-    private final List<MessageTag> tags;
+    private final ManagerMessageTag tagManager;
+    private final ManagerMessageTag.TagTable tagTable;
+    private final int tagsEnd;
+    private volatile List<MessageTag> tags;
 
     /**
      * Constructs a server message.
@@ -50,9 +58,32 @@ final class IRCServerMessage implements ServerMessage {
         Sanity.nullCheck(message, "Message cannot be null");
         Sanity.nullCheck(tags, "Tags cannot be null");
         this.message = message;
+        this.tagManager = null;
+        this.tagTable = null;
+        this.tagsEnd = 0;
         this.tags = Collections.unmodifiableList(new ArrayList<>(tags));
     }
 
+    /**
+     * Constructs a server message, with tags processed on first request.
+     *
+     * @param message full message sent
+     * @param tagManager tag manager to process tags, or null if none sent
+     * @param tagsEnd end of the tag section in the message, exclusive
+     */
+    IRCServerMessage(@Nonnull String message, @Nullable ManagerMessageTag tagManager, int tagsEnd) {
+        Sanity.nullCheck(message, "Message cannot be null");
+        this.message = message;
+        this.tagManager = tagManager;
+        this.tagsEnd = tagsEnd;
+        if (tagManager == null) {
+            this.tagTable = null;
+            this.tags = Collections.emptyList();
+        } else {
+            this.tagTable = tagManager.getTagTable();
+        }
+    }
+
     /**
      * Gets the full content of the line sent by the server, minus linebreak
      * characters \r and \n.
@@ -73,12 +104,17 @@ final class IRCServerMessage implements ServerMessage {
     @Nonnull
     @Override
     public List<MessageTag> getTags() {
-        return this.tags;
+        List<MessageTag> tags = this.tags;
+        if (tags == null) {
+            this.tags = tags = this.tagManager.getTags(this.tagTable, this.message, 1, this.tagsEnd);
+        }
+        return tags;
     }
 
     @Nonnull
     @Override
     public String toString() {
+        // Tags not yet parsed are still in the message, so don't parse here
         return new ToStringer(this).add("message", this.message).add("tags", this.tags).toString();
     }
 }
@@ -26,8 +26,10 @@ package org.kitteh.irc.client.library.implementation;
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.element.mode.UserMode;
+import org.kitteh.irc.client.library.util.CaptureLog;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Set;
 
 abstract class InternalClient implements Client {
@@ -40,6 +42,9 @@ abstract class InternalClient implements Client {
     @Override
     public abstract ManagerCapability getCapabilityManager();
 
+    @Nullable
+    abstract CaptureLog.Writer getCaptureLog();
+
     @Nonnull
     abstract Config getConfig();
 
@@ -56,6 +61,10 @@ abstract class InternalClient implements Client {
     @Nonnull
     public abstract ManagerISupport getISupportManager();
 
+    @Nonnull
+    @Override
+    public abstract IRCClientMetrics getMetrics();
+
     @Nonnull
     abstract Listener<String> getOutputListener();
 
@@ -66,9 +75,28 @@ abstract class InternalClient implements Client {
     @Nonnull
     public abstract IRCServerInfo getServerInfo();
 
+    /**
+     * Called periodically once registered, sends a PING if one is due or
+     * reconnects if too many have gone unanswered.
+     */
     abstract void ping();
 
-    abstract void processLine(@Nonnull String line);
+    /**
+     * Handles a line from the server, queueing it to be processed.
+     *
+     * @param line line
+     * @return number of the line, shared by its Flight Recorder events, or
+     * 0 if not queued
+     */
+    abstract long processLine(@Nonnull String line);
+
+    /**
+     * Gets the number of the line being processed on the calling thread.
+     *
+     * @return number of the line, or 0 if not processing one
+     * @see #processLine(String)
+     */
+    abstract long getProcessingLine();
 
     abstract void resetServerInfo();
 
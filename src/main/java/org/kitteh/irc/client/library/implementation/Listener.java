@@ -23,75 +23,54 @@
  */
 package org.kitteh.irc.client.library.implementation;
 
-import org.kitteh.irc.client.library.util.QueueProcessingThread;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.Queue;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 class Listener<Type> {
-    private final class ListenerThread extends QueueProcessingThread<Type> {
-        private volatile Consumer<Type> consumer;
-
-        private ListenerThread(@Nonnull String clientName, @Nonnull Consumer<Type> consumer) {
-            super("Kitteh IRC Client Listener (" + clientName + ')');
-            this.consumer = consumer;
-        }
-
-        @Override
-        protected void processElement(Type element) {
-            try {
-                this.consumer.accept(element);
-            } catch (final Throwable thrown) {
-                // NOOP
-            }
-        }
-
-        @Override
-        protected void cleanup(Queue<Type> remainingQueue) {
-            while (!remainingQueue.isEmpty()) {
-                try {
-                    this.consumer.accept(remainingQueue.poll());
-                } catch (final Throwable thrown) {
-                    // NOOP
-                }
-            }
-        }
-    }
-
     private final String clientName;
+    private final Executor executor;
     @Nullable
-    private ListenerThread thread;
+    private volatile Mailbox<Type> mailbox;
 
-    Listener(@Nonnull String clientName, @Nullable Consumer<Type> consumer) {
+    Listener(@Nonnull String clientName, @Nullable Consumer<Type> consumer, @Nonnull Executor executor) {
         this.clientName = clientName;
-        this.thread = (consumer == null) ? null : new ListenerThread(clientName, consumer);
+        this.executor = executor;
+        this.mailbox = (consumer == null) ? null : this.createMailbox(consumer);
+    }
+
+    @Nonnull
+    private Mailbox<Type> createMailbox(@Nonnull Consumer<Type> consumer) {
+        return new Mailbox<>("Listener (" + this.clientName + ')', Mailbox.DEFAULT_CAPACITY, consumer, this.executor);
     }
 
     void queue(@Nonnull Type item) {
-        if (this.thread != null) {
-            this.thread.queue(item);
+        Mailbox<Type> mailbox = this.mailbox;
+        if (mailbox != null) {
+            mailbox.queue(item);
         }
     }
 
-    void removeConsumer() {
+    synchronized void removeConsumer() {
         this.shutdown();
-        this.thread = null;
+        this.mailbox = null;
     }
 
-    void setConsumer(@Nonnull Consumer<Type> consumer) {
-        if (this.thread == null) {
-            this.thread = new ListenerThread(this.clientName, consumer);
+    synchronized void setConsumer(@Nonnull Consumer<Type> consumer) {
+        if (this.mailbox == null) {
+            this.mailbox = this.createMailbox(consumer);
         } else {
-            this.thread.consumer = consumer;
+            this.mailbox.setConsumer(consumer);
         }
     }
 
     void shutdown() {
-        if (this.thread != null) {
-            this.thread.interrupt();
+        Mailbox<Type> mailbox = this.mailbox;
+        if (mailbox != null) {
+            mailbox.shutdown(true);
         }
     }
 
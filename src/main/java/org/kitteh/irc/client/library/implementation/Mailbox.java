@@ -0,0 +1,282 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A queue of items handed one at a time, in order, to a consumer.
+ * Instead of a thread of its own, a mailbox borrows one from an executor,
+ * only while it has items, and takes them a batch at a time. Each client
+ * has an executor of its own, so a consumer which blocks holds up only its
+ * own mailbox.
+ *
+ * Queueing takes no lock and never waits, as the thread queueing may be a
+ * network thread shared by every client. Capacity is enforced in one of
+ * two ways. A mailbox with a pressure listener tells it once the mailbox
+ * holds its capacity and again once it has drained to half, so the source
+ * can pause, and keeps what the source still queues while pausing. A
+ * mailbox without one drops, and counts, items queued while it holds its
+ * capacity.
+ *
+ * Items of a mailbox recording lag or with a pressure listener are also
+ * numbered, from one, in the order queued. The consumer can get the number of the item it is given
+ * from {@link #getSequence()}.
+ *
+ * @param <Type> type of items queued
+ */
+final class Mailbox<Type> {
+    /**
+     * Default number of items a mailbox holds before it is full.
+     */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int BATCH = 64;
+
+    private static final class Entry {
+        private final Object item;
+        private final long time;
+        private final long sequence;
+
+        private Entry(@Nonnull Object item, long time, long sequence) {
+            this.item = item;
+            this.time = time;
+            this.sequence = sequence;
+        }
+    }
+
+    private final String name;
+    private final Executor executor;
+    private final int capacity;
+    @Nullable
+    private final Consumer<Boolean> pressure;
+    @Nullable
+    private final LatencyHistogram lag;
+    private final boolean numbered;
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    // Items queued and not yet consumed. Nonzero while a drain is scheduled.
+    private final AtomicInteger count = new AtomicInteger();
+    // Items held against the capacity, when dropping while full
+    private final AtomicInteger held = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Object pressureLock = new Object();
+    private final AtomicLong sequence = new AtomicLong();
+    // Written only by the thread consuming, which is all that reads them meaningfully
+    private Thread consumingThread;
+    private long consuming;
+    private volatile Consumer<? super Type> consumer;
+    private volatile boolean open = true;
+    private volatile boolean discard;
+    private volatile boolean full;
+
+    /**
+     * Creates a mailbox dropping items queued while it is full.
+     *
+     * @param name name, for debugging
+     * @param capacity items held before the mailbox is full
+     * @param consumer consumer of items, exceptions from which are ignored
+     * @param executor executor running the consumer
+     */
+    Mailbox(@Nonnull String name, int capacity, @Nonnull Consumer<? super Type> consumer, @Nonnull Executor executor) {
+        this(name, capacity, consumer, executor, null, null);
+    }
+
+    /**
+     * Creates a mailbox recording how long items wait and telling a
+     * listener when it fills and drains.
+     *
+     * @param name name, for debugging
+     * @param capacity items held before the mailbox is full
+     * @param consumer consumer of items, exceptions from which are ignored
+     * @param executor executor running the consumer
+     * @param lag histogram of nanoseconds from queueing to consuming, or
+     * null to not record
+     * @param pressure listener told true once the mailbox is full and
+     * false once it has drained to half, or null to instead drop items
+     * queued while full
+     */
+    Mailbox(@Nonnull String name, int capacity, @Nonnull Consumer<? super Type> consumer, @Nonnull Executor executor, @Nullable LatencyHistogram lag, @Nullable Consumer<Boolean> pressure) {
+        this.name = name;
+        this.executor = executor;
+        this.capacity = Math.max(1, capacity);
+        this.lag = lag;
+        this.pressure = pressure;
+        this.numbered = (lag != null) || (pressure != null);
+        this.consumer = consumer;
+    }
+
+    /**
+     * Sets the consumer of items not yet taken.
+     *
+     * @param consumer consumer, exceptions from which are ignored
+     */
+    void setConsumer(@Nonnull Consumer<? super Type> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Queues an item, never waiting. Items queued after shutdown, or while
+     * full without a pressure listener, are ignored.
+     *
+     * @param item item to queue
+     * @return number of the item, or 0 if not numbered or ignored
+     */
+    long queue(@Nonnull Type item) {
+        if (!this.open) {
+            return 0;
+        }
+        if (this.pressure == null) {
+            int held;
+            do {
+                held = this.held.get();
+                if (held >= this.capacity) {
+                    this.dropped.incrementAndGet();
+                    return 0;
+                }
+            } while (!this.held.compareAndSet(held, held + 1));
+        }
+        long sequence = 0;
+        if (this.numbered) {
+            sequence = this.sequence.incrementAndGet();
+            this.queue.add(new Entry(item, (this.lag == null) ? 0 : System.nanoTime(), sequence));
+        } else {
+            this.queue.add(item);
+        }
+        // Counted only once added, so the drain never counts an item it cannot poll
+        int queued = this.count.getAndIncrement();
+        if (queued == 0) {
+            this.executor.execute(this::drain);
+        }
+        if ((this.pressure != null) && ((queued + 1) >= this.capacity) && !this.full) {
+            this.updatePressure();
+        }
+        return sequence;
+    }
+
+    /**
+     * Stops accepting items.
+     *
+     * @param deliverRemaining true to still deliver items already queued,
+     * false to discard them
+     */
+    void shutdown(boolean deliverRemaining) {
+        this.open = false;
+        if (!deliverRemaining) {
+            this.discard = true;
+        }
+    }
+
+    /**
+     * Gets the number of the item being consumed on the calling thread.
+     *
+     * @return number of the item, or 0 if the calling thread is not
+     * consuming a numbered item from this mailbox
+     */
+    long getSequence() {
+        return (this.consumingThread == Thread.currentThread()) ? this.consuming : 0;
+    }
+
+    /**
+     * Gets the number of items dropped because the mailbox was full.
+     *
+     * @return number of items
+     */
+    long getDropped() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Gets the number of items queued and not yet consumed.
+     *
+     * @return number of items
+     */
+    int size() {
+        return this.count.get();
+    }
+
+    // Only on crossing a threshold, and decided from the count at the time, so late callers cannot undo a newer state
+    private void updatePressure() {
+        synchronized (this.pressureLock) {
+            int queued = this.count.get();
+            if (!this.full && (queued >= this.capacity)) {
+                this.full = true;
+                this.pressure.accept(true);
+            } else if (this.full && (queued <= (this.capacity / 2))) {
+                this.full = false;
+                this.pressure.accept(false);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        int taken = Math.min(this.count.get(), BATCH);
+        for (int i = 0; i < taken; i++) {
+            Object polled = this.queue.poll();
+            if (this.numbered) {
+                Entry entry = (Entry) polled;
+                if (this.lag != null) {
+                    this.lag.record(System.nanoTime() - entry.time);
+                }
+                polled = entry.item;
+                this.consumingThread = Thread.currentThread();
+                this.consuming = entry.sequence;
+            }
+            if (!this.discard) {
+                try {
+                    this.consumer.accept((Type) polled);
+                } catch (final Throwable thrown) {
+                    // NOOP
+                }
+            }
+        }
+        this.consumingThread = null;
+        if (this.pressure == null) {
+            this.held.addAndGet(-taken);
+        }
+        int remaining = this.count.addAndGet(-taken);
+        if (this.full) {
+            this.updatePressure();
+        }
+        if (remaining > 0) {
+            // Back of the line, so one busy mailbox cannot starve the rest
+            this.executor.execute(this::drain);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("name", this.name).add("size", this.count.get()).add("dropped", this.dropped.get()).toString();
+    }
+}
@@ -30,9 +30,12 @@ import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 final class ManagerCapability implements CapabilityManager, Resettable {
@@ -111,6 +114,8 @@ final class ManagerCapability implements CapabilityManager, Resettable {
     private final Map<String, CapabilityState> capabilities = new ConcurrentHashMap<>();
     private List<CapabilityState> supportedCapabilities = new ArrayList<>();
     private boolean negotiating = true;
+    private final Set<String> pendingRequests = ConcurrentHashMap.newKeySet();
+    private final Set<String> speculativeRequests = ConcurrentHashMap.newKeySet();
 
     ManagerCapability(InternalClient client) {
         this.client = client;
@@ -142,6 +147,55 @@ final class ManagerCapability implements CapabilityManager, Resettable {
         this.negotiating = false;
     }
 
+    /**
+     * Gets if any capability request is awaiting ACK or NAK.
+     *
+     * @return true if a request is pending
+     */
+    boolean hasPendingRequests() {
+        return !this.pendingRequests.isEmpty();
+    }
+
+    @Nonnull
+    Set<String> getPendingRequests() {
+        return new HashSet<>(this.pendingRequests);
+    }
+
+    void addPendingRequests(@Nonnull Collection<String> capabilities) {
+        this.pendingRequests.addAll(capabilities);
+    }
+
+    /**
+     * Sets the capabilities requested before the server listed what it
+     * supports, forgetting requests pending from an earlier connection.
+     *
+     * @param capabilities speculatively requested capabilities
+     */
+    void setSpeculativeRequests(@Nonnull Collection<String> capabilities) {
+        this.pendingRequests.clear();
+        this.speculativeRequests.clear();
+        this.pendingRequests.addAll(capabilities);
+        this.speculativeRequests.addAll(capabilities);
+    }
+
+    /**
+     * Marks requests as answered by an ACK or NAK.
+     *
+     * @param capabilityStates capabilities in the answer
+     * @return the speculatively requested capabilities among them
+     */
+    @Nonnull
+    Set<String> answerRequests(@Nonnull List<CapabilityState> capabilityStates) {
+        Set<String> speculative = new HashSet<>();
+        for (CapabilityState capabilityState : capabilityStates) {
+            this.pendingRequests.remove(capabilityState.getName());
+            if (this.speculativeRequests.remove(capabilityState.getName())) {
+                speculative.add(capabilityState.getName());
+            }
+        }
+        return speculative;
+    }
+
     void updateCapabilities(@Nonnull List<CapabilityState> capabilityStates) {
         for (CapabilityState capabilityState : capabilityStates) {
             if (capabilityState.isDisabled()) {
@@ -23,47 +23,60 @@
  */
 package org.kitteh.irc.client.library.implementation;
 
+import net.engio.mbassy.bus.BusRuntime;
+import net.engio.mbassy.bus.IMessagePublication;
 import net.engio.mbassy.bus.MBassador;
 import net.engio.mbassy.bus.config.BusConfiguration;
 import net.engio.mbassy.bus.config.Feature;
 import net.engio.mbassy.bus.error.IPublicationErrorHandler;
+import net.engio.mbassy.bus.error.MessageBusException;
 import net.engio.mbassy.bus.error.PublicationError;
+import net.engio.mbassy.listener.MessageHandler;
 import net.engio.mbassy.subscription.Subscription;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.event.client.SlowHandlerEvent;
 import org.kitteh.irc.client.library.event.helper.ClientEvent;
 import org.kitteh.irc.client.library.exception.KittehEventException;
 import org.kitteh.irc.client.library.exception.KittehServerMessageException;
+import org.kitteh.irc.client.library.feature.DispatchLanes;
 import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.HandlerStats;
 import org.kitteh.irc.client.library.feature.filter.CommandFilter;
 import org.kitteh.irc.client.library.feature.filter.FilteringSubscriptionFactory;
 import org.kitteh.irc.client.library.feature.filter.FilterProcessor;
 import org.kitteh.irc.client.library.feature.filter.NumericFilter;
 import org.kitteh.irc.client.library.feature.filter.ToSelfOnly;
+import org.kitteh.irc.client.library.util.Flow;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 class ManagerEvent implements EventManager {
     private class Exceptional implements IPublicationErrorHandler {
         @Override
         public void handleError(@Nonnull PublicationError publicationError) {
-            Exception exceptional;
-            Throwable thrown = publicationError.getCause();
-            if ((thrown instanceof InvocationTargetException) && (thrown.getCause() instanceof KittehServerMessageException)) {
-                exceptional = (KittehServerMessageException) thrown.getCause();
-            } else {
-                exceptional = new KittehEventException(thrown);
-            }
-            ManagerEvent.this.client.getExceptionListener().queue(exceptional);
+            ManagerEvent.this.handleException(publicationError.getCause());
         }
 
         @Nonnull
@@ -73,32 +86,415 @@ class ManagerEvent implements EventManager {
         }
     }
 
-    private final MBassador<Object> bus;
+    /**
+     * The event bus behind the manager, chosen by {@link EventManager.Bus}.
+     */
+    interface Backend {
+        /**
+         * Calls an event.
+         *
+         * @param event event
+         */
+        void call(@Nonnull Object event);
+
+        /**
+         * Gets if events of a class have any handlers.
+         *
+         * @param eventClass event class
+         * @return true if handled
+         */
+        boolean hasSubscribers(@Nonnull Class<?> eventClass);
+
+        /**
+         * Registers a listener's handlers.
+         *
+         * @param listener listener
+         */
+        void register(@Nonnull Object listener);
+
+        /**
+         * Unregisters a listener's handlers.
+         *
+         * @param listener listener
+         */
+        void unregister(@Nonnull Object listener);
+
+        /**
+         * Notes a change to the registered filter processors.
+         */
+        void filtersChanged();
+
+        /**
+         * Stops any threads the bus started. Events called afterward are
+         * still delivered.
+         */
+        void shutdown();
+    }
+
+    /**
+     * Subscriptions for one event class, with those of the line events
+     * split out by the numeric or command their filters accept.
+     */
+    private static final class DispatchIndex {
+        private final Collection<Subscription> all;
+        private final Collection<Subscription> unkeyed;
+        private final Map<Object, Collection<Subscription>> keyed;
+
+        private DispatchIndex(@Nonnull Collection<Subscription> all, @Nonnull Collection<Subscription> unkeyed, @Nonnull Map<Object, Collection<Subscription>> keyed) {
+            this.all = all;
+            this.unkeyed = unkeyed;
+            this.keyed = keyed;
+        }
+
+        @Nonnull
+        private Collection<Subscription> get(@Nullable Object key) {
+            if (key == null) {
+                return this.all;
+            }
+            Collection<Subscription> subscriptions = this.keyed.get(key);
+            return (subscriptions == null) ? this.unkeyed : subscriptions;
+        }
+    }
+
+    /**
+     * Hands each line event only to the handlers whose {@link NumericFilter}
+     * or {@link CommandFilter} can accept it, rather than having every
+     * filter of every handler checked.
+     */
+    private final class IndexedBus extends MBassador<Object> implements Backend {
+        private final Map<Class<?>, DispatchIndex> indexes = new ConcurrentHashMap<>();
+        private int generation;
+
+        private IndexedBus(@Nonnull BusConfiguration configuration) {
+            super(configuration);
+        }
+
+        @Override
+        protected IMessagePublication createMessagePublication(Object message) {
+            DispatchIndex index = this.getIndex(message.getClass());
+            if (index.all.isEmpty()) {
+                return super.createMessagePublication(message); // Dead message handling
+            }
+            Object key = null;
+            if (message instanceof ClientReceiveNumericEvent) {
+                key = ((ClientReceiveNumericEvent) message).getNumeric();
+            } else if (message instanceof ClientReceiveCommandEvent) {
+                key = ((ClientReceiveCommandEvent) message).getCommand().toUpperCase(Locale.ENGLISH);
+            }
+            return this.getPublicationFactory().createPublication(this.getRuntime(), index.get(key), message);
+        }
+
+        @Override
+        public void call(@Nonnull Object event) {
+            this.publish(event);
+        }
+
+        @Override
+        public boolean hasSubscribers(@Nonnull Class<?> eventClass) {
+            return !this.getIndex(eventClass).all.isEmpty();
+        }
+
+        @Nonnull
+        private DispatchIndex getIndex(@Nonnull Class<?> messageClass) {
+            DispatchIndex index = this.indexes.get(messageClass);
+            return (index == null) ? this.buildIndex(messageClass) : index;
+        }
+
+        @Override
+        public void register(@Nonnull Object listener) {
+            this.subscribe(listener);
+            this.invalidate();
+        }
+
+        @Override
+        public void unregister(@Nonnull Object listener) {
+            this.unsubscribe(listener);
+            this.invalidate();
+        }
+
+        @Override
+        public void filtersChanged() {
+            this.invalidate();
+        }
+
+        private void invalidate() {
+            synchronized (this.indexes) {
+                this.generation++;
+                this.indexes.clear();
+            }
+        }
+
+        @Nonnull
+        private DispatchIndex buildIndex(@Nonnull Class<?> messageClass) {
+            int generation;
+            synchronized (this.indexes) {
+                generation = this.generation;
+            }
+            // Already sorted by priority, which each subset keeps
+            List<Subscription> all = new ArrayList<>(this.getSubscriptionsByMessageType(messageClass));
+            all.removeIf(subscription -> subscription.size() == 0); // Unsubscribed listeners leave their subscriptions behind
+            List<Subscription> unkeyed = new ArrayList<>();
+            Map<Object, List<Subscription>> keyed = new HashMap<>();
+            boolean numeric = ClientReceiveNumericEvent.class.isAssignableFrom(messageClass) && (ManagerEvent.this.filters.get(NumericFilter.class) instanceof NumericFilter.Processor);
+            boolean command = ClientReceiveCommandEvent.class.isAssignableFrom(messageClass) && (ManagerEvent.this.filters.get(CommandFilter.class) instanceof CommandFilter.Processor);
+            for (Subscription subscription : all) {
+                Method method = ManagerEvent.this.handlerMethods.get(subscription);
+                Set<Object> keys = new HashSet<>();
+                if ((method != null) && numeric) {
+                    for (NumericFilter filter : method.getAnnotationsByType(NumericFilter.class)) {
+                        keys.add(filter.value());
+                    }
+                } else if ((method != null) && command) {
+                    for (CommandFilter filter : method.getAnnotationsByType(CommandFilter.class)) {
+                        keys.add(filter.value().toUpperCase(Locale.ENGLISH));
+                    }
+                }
+                if (keys.isEmpty()) {
+                    unkeyed.add(subscription);
+                    keyed.values().forEach(list -> list.add(subscription));
+                } else {
+                    for (Object key : keys) {
+                        keyed.computeIfAbsent(key, k -> new ArrayList<>(unkeyed)).add(subscription);
+                    }
+                }
+            }
+            Map<Object, Collection<Subscription>> keyedFinal = new HashMap<>();
+            keyed.forEach((key, list) -> keyedFinal.put(key, Collections.unmodifiableList(list)));
+            DispatchIndex index = new DispatchIndex(Collections.unmodifiableList(all), Collections.unmodifiableList(unkeyed), keyedFinal);
+            synchronized (this.indexes) {
+                if (generation == this.generation) {
+                    this.indexes.put(messageClass, index);
+                }
+            }
+            return index;
+        }
+    }
+
+    private final Backend bus;
+    private final EventLanes lanes;
+    private final EventBatcher batcher;
+    @Nullable
+    private final LatencyHistogram dispatchLatency;
+    private final HandlerTimings timings;
+    private final List<EventPublisher.EventSubscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile ExecutorService publisherExecutor;
+    private final Map<Subscription, Method> handlerMethods = new ConcurrentHashMap<>();
     private final InternalClient client;
+    private final ThreadFactory threadFactory;
     private final Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters = new ConcurrentHashMap<>();
     private final Set<Object> listeners = new HashSet<>();
 
     ManagerEvent(@Nonnull InternalClient client) {
-        BusConfiguration configuration = new BusConfiguration()
-                .addFeature(Feature.SyncPubSub.Default().setSubscriptionFactory(new FilteringSubscriptionFactory(this.filters)))
-                .addFeature(Feature.AsynchronousHandlerInvocation.Default())
-                .addFeature(Feature.AsynchronousMessageDispatch.Default())
-                .addPublicationErrorHandler(new Exceptional());
-        this.bus = new MBassador<>(configuration);
+        this(client, new Config());
+    }
+
+    ManagerEvent(@Nonnull InternalClient client, @Nonnull Config config) {
         this.client = client;
+        this.threadFactory = config.get(Config.THREAD_FACTORY);
+        this.dispatchLatency = config.getNotNull(Config.LATENCY_METRICS) ? new LatencyHistogram() : null;
+        int budget = config.getNotNull(Config.HANDLER_TIMING);
+        this.timings = (budget > 0) ? new HandlerTimings(this, budget) : null;
+        this.bus = (config.getNotNull(Config.EVENT_BUS) == EventManager.Bus.NATIVE) ? new NativeEventBus(this.filters, this::handleException, client.getName(), this.threadFactory, this.timings) : this.createMBassador();
+        this.batcher = new EventBatcher(this.filters, this::handleException, client.getName(), this.threadFactory);
+        int lanes = config.getNotNull(Config.EVENT_LANES);
+        this.lanes = (lanes > 0) ? new EventLanes(client, this::dispatch, lanes, config.getNotNull(Config.EVENT_LANE_CAPACITY), this.threadFactory) : null;
         // Defaults!
         this.registerAnnotationFilter(CommandFilter.class, new CommandFilter.Processor());
         this.registerAnnotationFilter(NumericFilter.class, new NumericFilter.Processor());
         this.registerAnnotationFilter(ToSelfOnly.class, new ToSelfOnly.Processor());
     }
 
+    @Nonnull
+    private Backend createMBassador() {
+        BusConfiguration configuration = new BusConfiguration()
+                .addFeature(Feature.SyncPubSub.Default().setSubscriptionFactory(new FilteringSubscriptionFactory(this.filters, this.timings) {
+                    @Override
+                    public Subscription createSubscription(BusRuntime runtime, MessageHandler handlerMetadata) throws MessageBusException {
+                        Subscription subscription = super.createSubscription(runtime, handlerMetadata);
+                        ManagerEvent.this.handlerMethods.put(subscription, handlerMetadata.getMethod());
+                        return subscription;
+                    }
+                }))
+                .addFeature(this.asyncHandlerInvocation())
+                .addFeature(this.asyncMessageDispatch())
+                .addPublicationErrorHandler(new Exceptional());
+        return new IndexedBus(configuration);
+    }
+
+    @Nonnull
+    private Feature.AsynchronousHandlerInvocation asyncHandlerInvocation() {
+        // Sized as MBassador's default pool, but shut down with the bus
+        return new Feature.AsynchronousHandlerInvocation().setExecutor(ClientThreads.fixedPool(this.client.getName(), "Async Handler", this.threadFactory, Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Nonnull
+    private Feature.AsynchronousMessageDispatch asyncMessageDispatch() {
+        Feature.AsynchronousMessageDispatch feature = Feature.AsynchronousMessageDispatch.Default();
+        if (this.threadFactory != null) {
+            feature.setDispatcherThreadFactory(this.threadFactory);
+        }
+        return feature;
+    }
+
+    /**
+     * Reports an exception to the client's exception listener.
+     *
+     * @param exception exception
+     */
+    void reportException(@Nonnull Exception exception) {
+        this.client.getExceptionListener().queue(exception);
+    }
+
+    /**
+     * Reports a handler running over budget, by event if anything listens
+     * and otherwise to the exception listener.
+     *
+     * @param method handler method
+     * @param event event handled
+     * @param nanos time taken
+     */
+    void reportSlowHandler(@Nonnull Method method, @Nonnull Object event, long nanos) {
+        if (this.hasSubscribers(SlowHandlerEvent.class)) {
+            this.callEvent(new SlowHandlerEvent(this.client, method, event, nanos));
+        } else {
+            this.reportException(new KittehEventException("Handler " + method.getDeclaringClass().getName() + '#' + method.getName() + " took " + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms handling " + event.getClass().getSimpleName()));
+        }
+    }
+
+    private void handleException(@Nonnull Throwable thrown) {
+        Exception exceptional;
+        if ((thrown instanceof InvocationTargetException) && (thrown.getCause() instanceof KittehServerMessageException)) {
+            exceptional = (KittehServerMessageException) thrown.getCause();
+        } else {
+            exceptional = new KittehEventException(thrown);
+        }
+        this.client.getExceptionListener().queue(exceptional);
+    }
+
     @Override
     public void callEvent(@Nonnull Object event) {
         Sanity.nullCheck(event, "Event cannot be null");
         if (event instanceof ClientEvent) {
             Sanity.truthiness(((ClientEvent) event).getClient() == this.client, "Event cannot be from another client!");
         }
-        this.bus.publish(event);
+        this.dispatch(event);
+    }
+
+    private void dispatch(@Nonnull Object event) {
+        Object flight = Flight.beginDispatched();
+        LatencyHistogram latency = this.dispatchLatency;
+        long start = (latency == null) ? 0 : System.nanoTime();
+        this.bus.call(event);
+        this.batcher.offer(event);
+        for (EventPublisher.EventSubscription<?> subscription : this.subscriptions) {
+            subscription.offer(event);
+        }
+        if (latency != null) {
+            latency.record(System.nanoTime() - start);
+        }
+        Flight.commitDispatched(flight, this.client, event);
+    }
+
+    /**
+     * Gets the times taken to dispatch events.
+     *
+     * @return dispatch times, empty if not recorded
+     */
+    @Nonnull
+    LatencyHistogram getDispatchLatency() {
+        return (this.dispatchLatency == null) ? IRCClientMetrics.EMPTY : this.dispatchLatency;
+    }
+
+    @Nonnull
+    @Override
+    public List<HandlerStats> getHandlerStats() {
+        return (this.timings == null) ? Collections.emptyList() : this.timings.getStats();
+    }
+
+    @Nonnull
+    @Override
+    public <T> Flow.Publisher<T> getPublisher(@Nonnull Class<T> eventClass, int bufferSize, @Nonnull Overflow overflow) {
+        Sanity.nullCheck(eventClass, "Event class cannot be null");
+        Sanity.truthiness(bufferSize > 0, "Buffer size must be at least 1");
+        Sanity.nullCheck(overflow, "Overflow cannot be null");
+        return new EventPublisher<>(this, eventClass, bufferSize, overflow, this.getPublisherExecutor());
+    }
+
+    void addSubscription(@Nonnull EventPublisher.EventSubscription<?> subscription) {
+        this.subscriptions.add(subscription);
+    }
+
+    void removeSubscription(@Nonnull EventPublisher.EventSubscription<?> subscription) {
+        this.subscriptions.remove(subscription);
+    }
+
+    @Nonnull
+    private ExecutorService getPublisherExecutor() {
+        ExecutorService executor = this.publisherExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.publisherExecutor;
+                if (executor == null) {
+                    executor = ClientThreads.cachedPool(this.client.getName(), "Event Publisher", this.threadFactory);
+                    this.publisherExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Calls an event on its dispatch lane, if lanes are enabled. Only for
+     * events nothing reads back after firing.
+     *
+     * @param event event to call
+     */
+    void callEventInOrder(@Nonnull Object event) {
+        if (this.lanes == null) {
+            this.callEvent(event);
+        } else {
+            Sanity.nullCheck(event, "Event cannot be null");
+            this.lanes.queue(event);
+        }
+    }
+
+    /**
+     * Stops the dispatch lanes, if any, once they finish queued events,
+     * delivers batched events, completes publisher subscriptions once
+     * they deliver buffered events and stops the bus's threads. Events
+     * delivered to subscribers afterward run on the requesting thread.
+     */
+    void shutdown() {
+        if (this.lanes != null) {
+            this.lanes.shutdown();
+        }
+        this.batcher.shutdown();
+        this.subscriptions.forEach(EventPublisher.EventSubscription::complete);
+        ExecutorService publisherExecutor = this.publisherExecutor;
+        if (publisherExecutor != null) {
+            publisherExecutor.shutdown();
+        }
+        this.bus.shutdown();
+    }
+
+    @Nonnull
+    @Override
+    public Optional<DispatchLanes> getDispatchLanes() {
+        return Optional.ofNullable(this.lanes);
+    }
+
+    @Override
+    public boolean hasSubscribers(@Nonnull Class<?> eventClass) {
+        Sanity.nullCheck(eventClass, "Event class cannot be null");
+        if (this.bus.hasSubscribers(eventClass) || this.batcher.hasSubscribers(eventClass)) {
+            return true;
+        }
+        for (EventPublisher.EventSubscription<?> subscription : this.subscriptions) {
+            if (subscription.wants(eventClass)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Nonnull
@@ -116,20 +512,28 @@ class ManagerEvent implements EventManager {
     @Override
     public <A extends Annotation> void registerAnnotationFilter(Class<A> annotationClass, FilterProcessor<?, A> filterProcessor) {
         this.filters.put(annotationClass, filterProcessor);
+        this.bus.filtersChanged();
     }
 
     @Override
     public synchronized void registerEventListener(@Nonnull Object listener) {
         Sanity.nullCheck(listener, "Listener cannot be null");
+        this.bus.register(listener);
+        try {
+            this.batcher.register(listener);
+        } catch (IllegalArgumentException e) {
+            this.bus.unregister(listener);
+            throw e;
+        }
         this.listeners.add(listener);
-        this.bus.subscribe(listener);
     }
 
     @Override
     public synchronized void unregisterEventListener(@Nonnull Object listener) {
         Sanity.nullCheck(listener, "Listener cannot be null");
         this.listeners.remove(listener);
-        this.bus.unsubscribe(listener);
+        this.bus.unregister(listener);
+        this.batcher.unregister(listener);
     }
 
     @Nonnull
@@ -31,22 +31,24 @@ import org.kitteh.irc.client.library.util.ToStringer;
 import org.kitteh.irc.client.library.util.TriFunction;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 final class ManagerMessageTag extends AbstractNameValueProcessor<MessageTag> implements MessageTagManager {
     private static class IRCMessageTag implements MessageTag {
         private final String name;
-        private final Optional<String> value;
+        private final String value;
 
-        private IRCMessageTag(@Nonnull String name, @Nonnull Optional<String> value) {
+        private IRCMessageTag(@Nonnull String name, @Nullable String value) {
             this.name = name;
             this.value = value;
         }
@@ -60,7 +62,7 @@ final class ManagerMessageTag extends AbstractNameValueProcessor<MessageTag> imp
         @Nonnull
         @Override
         public Optional<String> getValue() {
-            return this.value;
+            return Optional.ofNullable(this.value);
         }
 
         @Nonnull
@@ -71,19 +73,96 @@ final class ManagerMessageTag extends AbstractNameValueProcessor<MessageTag> imp
     }
 
     private static class IRCMessageTagTime extends IRCMessageTag implements MessageTag.Time {
-        private static final TriFunction<Client, String, Optional<String>, IRCMessageTagTime> FUNCTION = (client, name, value) -> new IRCMessageTagTime(name, value, Instant.parse(value.get()));
+        private static final TriFunction<Client, String, Optional<String>, IRCMessageTagTime> FUNCTION = (client, name, value) -> IRCMessageTagTime.create(name, value.get());
 
-        private final Instant time;
+        private static final int LENGTH = "YYYY-MM-DDThh:mm:ss.sssZ".length();
 
-        private IRCMessageTagTime(@Nonnull String name, @Nonnull Optional<String> value, @Nonnull Instant time) {
-            super(name, value);
+        private final String timestamp;
+        private Instant time; // Parsed from the timestamp on first request
+
+        private IRCMessageTagTime(@Nonnull String name, @Nonnull String timestamp, @Nullable Instant time) {
+            super(name, timestamp);
+            this.timestamp = timestamp;
             this.time = time;
         }
 
+        @Nonnull
+        private static IRCMessageTagTime create(@Nonnull String name, @Nonnull String timestamp) {
+            if (isFixedFormat(timestamp)) {
+                return new IRCMessageTagTime(name, timestamp, null);
+            }
+            return new IRCMessageTagTime(name, timestamp, Instant.parse(timestamp));
+        }
+
         @Nonnull
         @Override
         public Instant getTime() {
-            return this.time;
+            Instant time = this.time;
+            if (time == null) {
+                this.time = time = parseFixedFormat(this.timestamp);
+            }
+            return time;
+        }
+
+        /**
+         * Gets if a timestamp is a valid YYYY-MM-DDThh:mm:ss.sssZ, as sent
+         * by servers. Leap seconds and any other shape are left for
+         * {@link Instant#parse(CharSequence)}.
+         *
+         * @param timestamp timestamp
+         * @return true if it can be parsed by {@link #parseFixedFormat}
+         */
+        private static boolean isFixedFormat(@Nonnull String timestamp) {
+            if ((timestamp.length() != LENGTH) || (timestamp.charAt(4) != '-') || (timestamp.charAt(7) != '-') || (timestamp.charAt(10) != 'T') ||
+                    (timestamp.charAt(13) != ':') || (timestamp.charAt(16) != ':') || (timestamp.charAt(19) != '.') || (timestamp.charAt(23) != 'Z')) {
+                return false;
+            }
+            int year = digits(timestamp, 0, 4);
+            int month = digits(timestamp, 5, 2);
+            int day = digits(timestamp, 8, 2);
+            if ((year < 0) || (month < 1) || (month > 12) || (day < 1) || (day > daysInMonth(year, month))) {
+                return false;
+            }
+            int hour = digits(timestamp, 11, 2);
+            int minute = digits(timestamp, 14, 2);
+            int second = digits(timestamp, 17, 2);
+            return (hour >= 0) && (hour < 24) && (minute >= 0) && (minute < 60) && (second >= 0) && (second < 60) && (digits(timestamp, 20, 3) >= 0);
+        }
+
+        @Nonnull
+        private static Instant parseFixedFormat(@Nonnull String timestamp) {
+            long days = epochDay(digits(timestamp, 0, 4), digits(timestamp, 5, 2), digits(timestamp, 8, 2));
+            long seconds = (days * 86400) + (digits(timestamp, 11, 2) * 3600) + (digits(timestamp, 14, 2) * 60) + digits(timestamp, 17, 2);
+            return Instant.ofEpochSecond(seconds, digits(timestamp, 20, 3) * 1_000_000L);
+        }
+
+        private static int digits(@Nonnull String string, int start, int count) {
+            int value = 0;
+            for (int i = start; i < (start + count); i++) {
+                int digit = string.charAt(i) - '0';
+                if ((digit < 0) || (digit > 9)) {
+                    return -1;
+                }
+                value = (value * 10) + digit;
+            }
+            return value;
+        }
+
+        private static int daysInMonth(int year, int month) {
+            if (month == 2) {
+                return (((year % 4) == 0) && (((year % 100) != 0) || ((year % 400) == 0))) ? 29 : 28;
+            }
+            return ((month == 4) || (month == 6) || (month == 9) || (month == 11)) ? 30 : 31;
+        }
+
+        private static long epochDay(int year, int month, int day) {
+            // Days since 1970-01-01, counting years from March so leap days fall last
+            int y = (month <= 2) ? (year - 1) : year;
+            int era = Math.floorDiv(y, 400);
+            int yearOfEra = y - (era * 400);
+            int dayOfYear = ((153 * (month + ((month > 2) ? -3 : 9))) + 2) / 5 + (day - 1);
+            int dayOfEra = (yearOfEra * 365) + (yearOfEra / 4) - (yearOfEra / 100) + dayOfYear;
+            return ((long) era * 146097) + dayOfEra - 719468;
         }
     }
 
@@ -107,7 +186,63 @@ final class ManagerMessageTag extends AbstractNameValueProcessor<MessageTag> imp
         }
     }
 
-    private static final Pattern TAG_ESCAPE = Pattern.compile("\\\\([\\\\s:])");
+    /**
+     * Tag names seen on nearly every line of an IRCv3 network, and the
+     * registered names, each stored once and found by hash straight from
+     * the line. Rebuilt whenever the registrations change.
+     */
+    static final class TagTable {
+        private static final String[] COMMON_NAMES = {"account", "batch", "label", "msgid", "time", "+draft/reply", "+typing"};
+
+        private final String[] names;
+        private final TagCreator[] creators;
+        private final int mask;
+
+        private TagTable(@Nonnull Map<String, Creator<MessageTag>> registrations) {
+            Set<String> all = new HashSet<>(Arrays.asList(COMMON_NAMES));
+            all.addAll(registrations.keySet());
+            int size = Integer.highestOneBit(Math.max(all.size(), 4) * 4);
+            this.names = new String[size];
+            this.creators = new TagCreator[size];
+            this.mask = size - 1;
+            for (String name : all) {
+                int slot = spread(name.hashCode()) & this.mask;
+                while (this.names[slot] != null) {
+                    slot = (slot + 1) & this.mask;
+                }
+                this.names[slot] = name;
+                this.creators[slot] = (TagCreator) registrations.get(name);
+            }
+        }
+
+        /**
+         * Finds a name in the table.
+         *
+         * @param source string containing the name
+         * @param start start of the name
+         * @param end end of the name, exclusive
+         * @param hash {@link String#hashCode()} of the name
+         * @return slot of the name, or -1 if not in the table
+         */
+        private int find(@Nonnull String source, int start, int end, int hash) {
+            int length = end - start;
+            int slot = spread(hash) & this.mask;
+            String name;
+            while ((name = this.names[slot]) != null) {
+                if ((name.length() == length) && source.regionMatches(start, name, 0, length)) {
+                    return slot;
+                }
+                slot = (slot + 1) & this.mask;
+            }
+            return -1;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    private volatile TagTable tagTable = new TagTable(Collections.emptyMap());
 
     ManagerMessageTag(InternalClient client) {
         super(client);
@@ -138,72 +273,134 @@ final class ManagerMessageTag extends AbstractNameValueProcessor<MessageTag> imp
         return this.unregisterCreator(tagName);
     }
 
+    @Override
+    protected void registrationsChanged(@Nonnull Map<String, Creator<MessageTag>> registrations) {
+        this.tagTable = new TagTable(registrations);
+    }
+
     @Nonnull
     List<MessageTag> getTags(@Nonnull String tagList) {
-        String[] tags = tagList.split(";"); // Split up by semicolon
-        List<MessageTag> list = new ArrayList<>();
-        int index;
-        TagCreator tagCreator;
-        for (String tag : tags) {
-            String tagName;
-            Optional<String> value;
-            // Split out value if present
-            if (((index = tag.indexOf('=')) > -1) && (index < (tag.length() - 1))) {
-                tagName = tag.substring(0, index);
-                value = Optional.of(this.getTagValue(tag.substring(index + 1)));
-            } else {
-                tagName = tag;
-                value = Optional.empty();
-            }
-            MessageTag messageTag = null;
-            // Attempt creating from registered creator, fall back on default
-            if ((tagCreator = (TagCreator) this.getRegistrations().get(tagName)) != null) {
-                try {
-                    messageTag = tagCreator.getFunction().apply(this.getClient(), tagName, value);
-                } catch (Throwable thrown) {
-                    this.getClient().getExceptionListener().queue(new KittehServerMessageTagException(tag, "Tag creator failed", thrown));
+        return this.getTags(tagList, 0, tagList.length());
+    }
+
+    /**
+     * Gets the current tag table, to parse tags later with the creators
+     * registered now.
+     *
+     * @return tag table
+     */
+    @Nonnull
+    TagTable getTagTable() {
+        return this.tagTable;
+    }
+
+    @Nonnull
+    List<MessageTag> getTags(@Nonnull String source, int start, int end) {
+        return this.getTags(this.tagTable, source, start, end);
+    }
+
+    /**
+     * Parses tags in a single pass, only copying out names not in the tag
+     * table and only unescaping values containing a backslash.
+     *
+     * @param table tag table holding the creators to use
+     * @param source string containing the tags
+     * @param start start of the tags, after the {@code @}
+     * @param end end of the tags, exclusive
+     * @return tags
+     */
+    @Nonnull
+    List<MessageTag> getTags(@Nonnull TagTable table, @Nonnull String source, int start, int end) {
+        List<MessageTag> list = new ArrayList<>(4);
+        int tagStart = start;
+        while (tagStart < end) {
+            int hash = 0;
+            int nameEnd = -1;
+            boolean escaped = false;
+            int tagEnd = tagStart;
+            for (; tagEnd < end; tagEnd++) {
+                char c = source.charAt(tagEnd);
+                if (c == ';') {
+                    break;
+                }
+                if (nameEnd < 0) {
+                    if (c == '=') {
+                        nameEnd = tagEnd;
+                    } else {
+                        hash = (31 * hash) + c;
+                    }
+                } else if (c == '\\') {
+                    escaped = true;
                 }
             }
-            if (messageTag == null) {
-                messageTag = new IRCMessageTag(tagName, value);
+            if (nameEnd < 0) {
+                nameEnd = tagEnd;
             }
-            list.add(messageTag);
+            if (nameEnd > tagStart) {
+                int slot = table.find(source, tagStart, nameEnd, hash);
+                String tagName = (slot < 0) ? source.substring(tagStart, nameEnd) : table.names[slot];
+                String value = null;
+                if ((tagEnd - nameEnd) > 1) {
+                    value = escaped ? unescape(source, nameEnd + 1, tagEnd) : source.substring(nameEnd + 1, tagEnd);
+                }
+                MessageTag messageTag = null;
+                // Attempt creating from registered creator, fall back on default
+                TagCreator tagCreator = (slot < 0) ? null : table.creators[slot];
+                if (tagCreator != null) {
+                    try {
+                        messageTag = tagCreator.getFunction().apply(this.getClient(), tagName, Optional.ofNullable(value));
+                    } catch (Throwable thrown) {
+                        this.getClient().getExceptionListener().queue(new KittehServerMessageTagException(source.substring(tagStart, tagEnd), "Tag creator failed", thrown));
+                    }
+                }
+                if (messageTag == null) {
+                    messageTag = new IRCMessageTag(tagName, value);
+                }
+                list.add(messageTag);
+            }
+            tagStart = tagEnd + 1;
         }
         return Collections.unmodifiableList(list);
     }
 
+    /**
+     * Unescapes a tag value. An unknown escape stands for the character
+     * escaped, and a backslash ending the value is dropped.
+     *
+     * @param source string containing the value
+     * @param start start of the value
+     * @param end end of the value, exclusive
+     * @return unescaped value
+     */
     @Nonnull
-    private String getTagValue(@Nonnull String tag) {
-        StringBuilder builder = new StringBuilder(tag.length());
-        int currentIndex = 0;
-        Matcher matcher = TAG_ESCAPE.matcher(tag);
-        while (matcher.find()) {
-            if (matcher.start() > currentIndex) {
-                builder.append(tag.substring(currentIndex, matcher.start()));
+    private static String unescape(@Nonnull String source, int start, int end) {
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c != '\\') {
+                builder.append(c);
+                continue;
             }
-            switch (matcher.group(1)) {
-                case ":":
+            if (++i == end) {
+                break;
+            }
+            c = source.charAt(i);
+            switch (c) {
+                case ':':
                     builder.append(';');
                     break;
-                case "s":
+                case 's':
                     builder.append(' ');
                     break;
-                case "\\":
-                    builder.append('\\');
-                    break;
-                case "r":
+                case 'r':
                     builder.append('\r');
                     break;
-                case "n":
+                case 'n':
                     builder.append('\n');
                     break;
                 default:
-                    // Ignore it? Technically not specified since the format MUST reflect documentation.
+                    builder.append(c);
             }
-            currentIndex = matcher.end();
-        }
-        if (currentIndex < tag.length()) {
-            builder.append(tag.substring(currentIndex));
         }
         return builder.toString();
     }
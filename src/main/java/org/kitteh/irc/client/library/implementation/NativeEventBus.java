@@ -0,0 +1,310 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import net.engio.mbassy.dispatch.ReflectiveHandlerInvocation;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Invoke;
+import org.kitteh.irc.client.library.feature.filter.FilterProcessor;
+import org.kitteh.irc.client.library.feature.filter.FilteringSubscriptionFactory;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+/**
+ * A purpose-built event bus, reading the same {@link Handler} and filter
+ * annotations as the MBassador bus. The handlers for each event class are
+ * worked out once and kept as an array, replaced wholesale whenever a
+ * listener comes or goes, so calling an event allocates nothing.
+ * <p>
+ * Listeners are held strongly until unregistered. MBassador holds them
+ * weakly unless they ask otherwise, but the event manager keeps every
+ * registered listener for {@link
+ * org.kitteh.irc.client.library.feature.EventManager#getRegisteredEventListeners()},
+ * so a listener lives until unregistered with either bus.
+ * <p>
+ * Asynchronous handlers run on a pool of one thread per processor, as
+ * with MBassador, which is shut down with the bus.
+ */
+final class NativeEventBus implements ManagerEvent.Backend {
+    private static final class FilterCheck {
+        private final FilterProcessor<Object, Annotation> processor;
+        private final Annotation[] annotations;
+
+        @SuppressWarnings("unchecked")
+        private FilterCheck(@Nonnull FilterProcessor<?, ?> processor, @Nonnull Annotation[] annotations) {
+            this.processor = (FilterProcessor<Object, Annotation>) processor; // Registered for the annotation class
+            this.annotations = annotations;
+        }
+    }
+
+    private final class Subscriber {
+        private final Object listener;
+        private final Method method;
+        private final Class<?> eventClass;
+        private final FilteringSubscriptionFactory.Invoker invoker;
+        private final FilterCheck[] filters;
+        private final int priority;
+        private final boolean rejectSubtypes;
+        private final boolean async;
+        private final long order;
+
+        private Subscriber(@Nonnull Object listener, @Nonnull Method method, @Nonnull Handler handler, @Nonnull FilterCheck[] filters, long order) throws Throwable {
+            this.listener = listener;
+            this.method = method;
+            this.eventClass = method.getParameterTypes()[0];
+            this.invoker = FilteringSubscriptionFactory.createInvoker(method);
+            this.filters = filters;
+            this.priority = handler.priority();
+            this.rejectSubtypes = handler.rejectSubtypes();
+            this.async = handler.delivery() == Invoke.Asynchronously;
+            this.order = order;
+        }
+
+        private boolean handles(@Nonnull Class<?> clazz) {
+            return this.rejectSubtypes ? (this.eventClass == clazz) : this.eventClass.isAssignableFrom(clazz);
+        }
+
+        private void dispatch(@Nonnull Object event) {
+            try {
+                for (FilterCheck filter : this.filters) {
+                    if (!filter.processor.accepts(event, filter.annotations)) {
+                        return;
+                    }
+                }
+            } catch (Throwable thrown) {
+                NativeEventBus.this.errorHandler.accept(thrown);
+                return;
+            }
+            if (this.async) {
+                try {
+                    NativeEventBus.this.getAsyncExecutor().execute(() -> this.invoke(event));
+                } catch (RejectedExecutionException e) {
+                    this.invoke(event); // Fired after shutdown
+                }
+            } else {
+                this.invoke(event);
+            }
+        }
+
+        private void invoke(@Nonnull Object event) {
+            FilteringSubscriptionFactory.InvocationTimer timer = NativeEventBus.this.timer;
+            long start = (timer == null) ? 0 : System.nanoTime();
+            try {
+                this.invoker.invoke(this.listener, event);
+            } catch (Throwable thrown) {
+                NativeEventBus.this.errorHandler.accept(new InvocationTargetException(thrown));
+            }
+            if (timer != null) {
+                timer.record(this.method, event, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static final Subscriber[] NONE = new Subscriber[0];
+    private static final Comparator<Subscriber> PRIORITY = (first, second) -> (first.priority != second.priority) ? Integer.compare(second.priority, first.priority) : Long.compare(first.order, second.order);
+
+    private final Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters;
+    private final Consumer<Throwable> errorHandler;
+    private final String name;
+    private final ThreadFactory threadFactory;
+    private final FilteringSubscriptionFactory.InvocationTimer timer;
+    private volatile Subscriber[] subscribers = NONE;
+    private volatile Map<Class<?>, Subscriber[]> dispatch = new ConcurrentHashMap<>();
+    private volatile ExecutorService asyncExecutor;
+    private boolean shutdown;
+    private long order;
+
+    /**
+     * Creates a bus.
+     *
+     * @param filters filter processors, as at the time listeners register
+     * @param errorHandler handler of exceptions thrown by handlers and
+     * filters, with handler exceptions wrapped in an {@link
+     * InvocationTargetException} as reflective invocation would
+     * @param name client name, for thread naming
+     * @param threadFactory factory of asynchronous handler threads, or null
+     * for the default
+     * @param timer receiver of handler invocation times, or null to not time
+     */
+    NativeEventBus(@Nonnull Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters, @Nonnull Consumer<Throwable> errorHandler, @Nonnull String name, @Nullable ThreadFactory threadFactory, @Nullable FilteringSubscriptionFactory.InvocationTimer timer) {
+        this.filters = filters;
+        this.errorHandler = errorHandler;
+        this.name = name;
+        this.threadFactory = threadFactory;
+        this.timer = timer;
+    }
+
+    @Override
+    public void call(@Nonnull Object event) {
+        for (Subscriber subscriber : this.getSubscribers(event.getClass())) {
+            subscriber.dispatch(event);
+        }
+    }
+
+    @Override
+    public boolean hasSubscribers(@Nonnull Class<?> eventClass) {
+        return this.getSubscribers(eventClass).length > 0;
+    }
+
+    @Nonnull
+    private Subscriber[] getSubscribers(@Nonnull Class<?> eventClass) {
+        Map<Class<?>, Subscriber[]> dispatch = this.dispatch;
+        Subscriber[] subscribers = dispatch.get(eventClass);
+        if (subscribers == null) {
+            subscribers = this.collect(eventClass, this.subscribers);
+            dispatch.putIfAbsent(eventClass, subscribers);
+        }
+        return subscribers;
+    }
+
+    @Override
+    public synchronized void register(@Nonnull Object listener) {
+        List<Subscriber> added = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Class<?> clazz = listener.getClass(); (clazz != null) && (clazz != Object.class); clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                if (Modifier.isStatic(method.getModifiers()) || method.isBridge() || method.isSynthetic()) {
+                    continue;
+                }
+                // The most specific declaration of an overridden method decides
+                if (!seen.add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+                    continue;
+                }
+                Handler handler = method.getAnnotation(Handler.class);
+                if ((handler == null) || !handler.enabled()) {
+                    continue;
+                }
+                added.add(this.subscriber(listener, method, handler));
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        List<Subscriber> subscribers = new ArrayList<>(Arrays.asList(this.subscribers));
+        subscribers.addAll(added);
+        this.update(subscribers);
+    }
+
+    @Override
+    public synchronized void unregister(@Nonnull Object listener) {
+        List<Subscriber> subscribers = new ArrayList<>(Arrays.asList(this.subscribers));
+        if (subscribers.removeIf(subscriber -> subscriber.listener == listener)) {
+            this.update(subscribers);
+        }
+    }
+
+    @Override
+    public void filtersChanged() {
+        // Filters are read as listeners register, nothing cached to drop
+    }
+
+    @Nonnull
+    private Subscriber subscriber(@Nonnull Object listener, @Nonnull Method method, @Nonnull Handler handler) {
+        if (method.getParameterCount() != 1) {
+            throw new IllegalArgumentException("Handler " + method + " must have exactly one parameter");
+        }
+        if ((handler.filters().length > 0) || !handler.condition().isEmpty() || (handler.invocation() != ReflectiveHandlerInvocation.class)) {
+            throw new IllegalArgumentException("Handler " + method + " uses MBassador filters, conditions or invocations, which require the MBassador event bus");
+        }
+        List<FilterCheck> checks = new ArrayList<>();
+        for (Map.Entry<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> entry : this.filters.entrySet()) {
+            Annotation[] annotations = method.getAnnotationsByType(entry.getKey());
+            if (annotations.length > 0) {
+                checks.add(new FilterCheck(entry.getValue(), annotations));
+            }
+        }
+        try {
+            return new Subscriber(listener, method, handler, checks.toArray(new FilterCheck[checks.size()]), this.order++);
+        } catch (Throwable thrown) {
+            throw new IllegalArgumentException("Cannot invoke handler " + method, thrown);
+        }
+    }
+
+    private void update(@Nonnull List<Subscriber> subscribers) {
+        subscribers.sort(PRIORITY);
+        this.subscribers = subscribers.toArray(new Subscriber[subscribers.size()]);
+        this.dispatch = new ConcurrentHashMap<>();
+    }
+
+    @Nonnull
+    private Subscriber[] collect(@Nonnull Class<?> eventClass, @Nonnull Subscriber[] subscribers) {
+        List<Subscriber> handling = new ArrayList<>();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.handles(eventClass)) {
+                handling.add(subscriber);
+            }
+        }
+        return handling.isEmpty() ? NONE : handling.toArray(new Subscriber[handling.size()]);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        this.shutdown = true;
+        if (this.asyncExecutor != null) {
+            this.asyncExecutor.shutdown();
+        }
+    }
+
+    @Nonnull
+    private ExecutorService getAsyncExecutor() {
+        ExecutorService executor = this.asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.asyncExecutor;
+                if (executor == null) {
+                    if (this.shutdown) {
+                        throw new RejectedExecutionException("Bus shut down");
+                    }
+                    executor = ClientThreads.fixedPool(this.name, "Async Handler", this.threadFactory, Runtime.getRuntime().availableProcessors());
+                    this.asyncExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("subscribers", this.subscribers.length).toString();
+    }
+}
@@ -24,6 +24,7 @@
 package org.kitteh.irc.client.library.implementation;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
@@ -33,25 +34,26 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.DelimiterBasedFrameDecoder;
 import io.netty.handler.codec.MessageToMessageEncoder;
 import io.netty.handler.codec.string.StringDecoder;
 import io.netty.handler.codec.string.StringEncoder;
+import io.netty.handler.ssl.OpenSsl;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
-import io.netty.handler.timeout.IdleState;
-import io.netty.handler.timeout.IdleStateEvent;
-import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.handler.ssl.SslProvider;
 import io.netty.util.CharsetUtil;
 import io.netty.util.concurrent.ScheduledFuture;
 import org.kitteh.irc.client.library.event.client.ClientConnectionClosedEvent;
 import org.kitteh.irc.client.library.exception.KittehConnectionException;
-import org.kitteh.irc.client.library.util.QueueProcessingThread;
+import org.kitteh.irc.client.library.util.CaptureLog;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
@@ -60,55 +62,66 @@ import javax.net.ssl.SSLException;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.File;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 final class NettyManager {
     static final class ClientConnection {
+        private static final class QueuedMessage {
+            private final String message;
+            private final long queued = System.nanoTime();
+
+            private QueuedMessage(@Nonnull String message) {
+                this.message = message;
+            }
+        }
+
         private static final int MAX_LINE_LENGTH = 2048;
 
         private final InternalClient client;
         private final Channel channel;
-        private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+        private final Queue<QueuedMessage> queue = new ConcurrentLinkedQueue<>();
         private boolean reconnect = true;
         private ScheduledFuture<?> scheduledSending;
         private ScheduledFuture<?> scheduledPing;
+        private ScheduledFuture<?> registrationTimeout;
         private final Object scheduledSendingLock = new Object();
         private final Object immediateSendingLock = new Object();
         private boolean immediateSendingReady = false;
-        private final QueueProcessingThread<String> immediateSending;
+        private final BlockingQueue<List<String>> immediateQueue = new LinkedBlockingQueue<>();
+        private final Thread immediateSending;
 
         private ClientConnection(@Nonnull final InternalClient client, @Nonnull ChannelFuture channelFuture) {
             this.client = client;
             this.channel = channelFuture.channel();
 
-            this.immediateSending = new QueueProcessingThread<String>("Kitteh IRC Client Immediate Sending Queue (" + client.getName() + ')') {
-                @Override
-                protected void processElement(String message) {
-                    synchronized (ClientConnection.this.immediateSendingLock) {
-                        if (!ClientConnection.this.immediateSendingReady) {
-                            try {
-                                ClientConnection.this.immediateSendingLock.wait();
-                            } catch (InterruptedException e) {
-                                return;
-                            }
-                        }
-                        ClientConnection.this.channel.writeAndFlush(message);
-                    }
-                }
-            };
+            this.immediateSending = ClientThreads.factory(client.getName(), "Immediate Sending Queue", client.getConfig().get(Config.THREAD_FACTORY)).newThread(this::sendImmediately);
+            this.immediateSending.start();
 
             channelFuture.addListener(future -> {
                 if (future.isSuccess()) {
                     this.buildOurFutureTogether();
+                    synchronized (this.scheduledSendingLock) {
+                        if (this.scheduledSending == null) {
+                            this.registrationTimeout = this.channel.eventLoop().schedule(() -> this.shutdown("Registration timeout", true), this.client.getConfig().getNotNull(Config.REGISTRATION_TIMEOUT), TimeUnit.MILLISECONDS);
+                        }
+                    }
                     synchronized (ClientConnection.this.immediateSendingLock) {
                         this.immediateSendingReady = true;
                         this.immediateSendingLock.notify();
@@ -122,6 +135,9 @@ final class NettyManager {
         }
 
         private void buildOurFutureTogether() {
+            IRCClientMetrics metrics = this.client.getMetrics();
+            metrics.setOutboundQueue(this.queue);
+
             // Outbound - Processed in pipeline back to front.
             this.channel.pipeline().addFirst("[OUTPUT] Output listener", new MessageToMessageEncoder<String>() {
                 @Override
@@ -133,52 +149,73 @@ final class NettyManager {
             this.channel.pipeline().addFirst("[OUTPUT] Add line breaks", new MessageToMessageEncoder<String>() {
                 @Override
                 protected void encode(ChannelHandlerContext ctx, String msg, List<Object> out) throws Exception {
+                    metrics.lineOut();
                     out.add(msg + "\r\n");
                 }
             });
             this.channel.pipeline().addFirst("[OUTPUT] String encoder", new StringEncoder(CharsetUtil.UTF_8));
 
-            // Handle timeout
-            this.channel.pipeline().addLast("[INPUT] Idle state handler", new IdleStateHandler(250, 0, 0));
-            this.channel.pipeline().addLast("[INPUT] Catch idle", new ChannelDuplexHandler() {
+            // Count bytes inside of any SSL, so decrypted in and not yet encrypted out
+            this.channel.pipeline().addFirst("[METRICS] Byte counter", new ChannelDuplexHandler() {
                 @Override
-                public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
-                    if (evt instanceof IdleStateEvent) {
-                        IdleStateEvent e = (IdleStateEvent) evt;
-                        if ((e.state() == IdleState.READER_IDLE) && e.isFirst()) {
-                            ClientConnection.this.shutdown("Reconnecting...", true);
-                        }
+                public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                    if (msg instanceof ByteBuf) {
+                        metrics.bytesIn(((ByteBuf) msg).readableBytes());
                     }
+                    super.channelRead(ctx, msg);
+                }
+
+                @Override
+                public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+                    if (msg instanceof ByteBuf) {
+                        metrics.bytesOut(((ByteBuf) msg).readableBytes());
+                    }
+                    super.write(ctx, msg, promise);
                 }
             });
 
             // Inbound
             this.channel.pipeline().addLast("[INPUT] Line splitter", new DelimiterBasedFrameDecoder(MAX_LINE_LENGTH, Unpooled.wrappedBuffer(new byte[]{(byte) '\r', (byte) '\n'})));
             this.channel.pipeline().addLast("[INPUT] String decoder", new StringDecoder(CharsetUtil.UTF_8));
+            CaptureLog.Writer captureLog = this.client.getCaptureLog();
+            if (captureLog != null) {
+                this.channel.pipeline().addLast("[INPUT] Capture", new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        if (msg instanceof String) {
+                            try {
+                                captureLog.append(System.nanoTime(), (String) msg);
+                            } catch (IOException e) {
+                                ctx.pipeline().remove(this);
+                                ClientConnection.this.client.getExceptionListener().queue(e);
+                            } catch (IllegalStateException e) {
+                                ctx.pipeline().remove(this); // Closed on shutdown
+                            }
+                        }
+                        super.channelRead(ctx, msg);
+                    }
+                });
+            }
             this.channel.pipeline().addLast("[INPUT] Send to client", new SimpleChannelInboundHandler<String>() {
                 @Override
                 protected void channelRead0(ChannelHandlerContext ctx, String msg) throws Exception {
                     if (msg == null) {
                         return;
                     }
+                    metrics.lineIn();
+                    Object flight = Flight.beginHandoff();
                     ClientConnection.this.client.getInputListener().queue(msg);
-                    ClientConnection.this.client.processLine(msg);
+                    long line = ClientConnection.this.client.processLine(msg);
+                    Flight.commitHandoff(flight, ClientConnection.this.client, msg, line);
                 }
             });
 
             // SSL
             if (this.client.getConfig().getNotNull(Config.SSL)) {
                 try {
-                    File keyCertChainFile = this.client.getConfig().get(Config.SSL_KEY_CERT_CHAIN);
-                    File keyFile = this.client.getConfig().get(Config.SSL_KEY);
-                    String keyPassword = this.client.getConfig().get(Config.SSL_KEY_PASSWORD);
-                    TrustManagerFactory factory = this.client.getConfig().get(Config.SSL_TRUST_MANAGER_FACTORY);
-                    if (factory == null) {
-                        factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
-                        factory.init((KeyStore) null);
-                    }
-                    SslContext sslContext = SslContextBuilder.forClient().trustManager(factory).keyManager(keyCertChainFile, keyFile, keyPassword).build();
-                    this.channel.pipeline().addFirst(sslContext.newHandler(this.channel.alloc()));
+                    InetSocketAddress address = this.client.getConfig().getNotNull(Config.SERVER_ADDRESS);
+                    // Host and port let the engine resume a cached session with this server
+                    this.channel.pipeline().addFirst(getSslContext(this.client.getConfig()).newHandler(this.channel.alloc(), address.getHostString(), address.getPort()));
                 } catch (SSLException | NoSuchAlgorithmException | KeyStoreException e) {
                     this.client.getExceptionListener().queue(new KittehConnectionException(e, true));
                     return;
@@ -205,6 +242,18 @@ final class NettyManager {
 
             // Clean up on disconnect
             this.channel.closeFuture().addListener(futureListener -> {
+                metrics.clearOutboundQueue(this.queue);
+                synchronized (this.scheduledSendingLock) {
+                    if (this.scheduledSending != null) {
+                        this.scheduledSending.cancel(false);
+                    }
+                    if (this.scheduledPing != null) {
+                        this.scheduledPing.cancel(false);
+                    }
+                    if (this.registrationTimeout != null) {
+                        this.registrationTimeout.cancel(false);
+                    }
+                }
                 if (ClientConnection.this.reconnect) {
                     this.scheduleReconnect();
                 }
@@ -214,7 +263,29 @@ final class NettyManager {
             });
         }
 
+        private void sendImmediately() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    List<String> messages = this.immediateQueue.take();
+                    synchronized (this.immediateSendingLock) {
+                        while (!this.immediateSendingReady) {
+                            this.immediateSendingLock.wait();
+                        }
+                        // One flush per batch, so a batch leaves in as few writes as possible
+                        for (String message : messages) {
+                            this.channel.write(message);
+                            Flight.sent(this.client, message, 0);
+                        }
+                        this.channel.flush();
+                    }
+                }
+            } catch (InterruptedException ignored) {
+                // Connection closed
+            }
+        }
+
         private void scheduleReconnect() {
+            this.client.getMetrics().reconnect();
             ClientConnection.this.channel.eventLoop().schedule(ClientConnection.this.client::connect, 5, TimeUnit.SECONDS);
         }
 
@@ -224,10 +295,19 @@ final class NettyManager {
 
         void sendMessage(@Nonnull String message, boolean priority, boolean avoidDuplicates) {
             if (priority) {
-                this.immediateSending.queue(message);
-            } else if (!avoidDuplicates || !this.queue.contains(message)) {
-                this.queue.add(message);
+                Flight.queued(this.client, message, true);
+                this.immediateQueue.add(Collections.singletonList(message));
+            } else if (!avoidDuplicates || this.queue.stream().noneMatch(queued -> queued.message.equals(message))) {
+                Flight.queued(this.client, message, false);
+                this.queue.add(new QueuedMessage(message));
+            }
+        }
+
+        void sendMessages(@Nonnull List<String> messages) {
+            for (String message : messages) {
+                Flight.queued(this.client, message, true);
             }
+            this.immediateQueue.add(messages);
         }
 
         void shutdown(@Nullable String message) {
@@ -262,17 +342,33 @@ final class NettyManager {
                 if (this.scheduledPing != null) {
                     this.scheduledPing.cancel(false);
                 }
+                if (this.registrationTimeout != null) {
+                    this.registrationTimeout.cancel(false);
+                    this.registrationTimeout = null;
+                }
                 this.scheduledSending = this.channel.eventLoop().scheduleAtFixedRate(() -> {
-                    String message = ClientConnection.this.queue.poll();
-                    if (message != null) {
-                        ClientConnection.this.channel.writeAndFlush(message);
+                    QueuedMessage queued = ClientConnection.this.queue.poll();
+                    if (queued != null) {
+                        long queueTime = System.nanoTime() - queued.queued;
+                        LatencyHistogram outboundWait = this.client.getMetrics().getOutboundWaitRecorder();
+                        if (outboundWait != null) {
+                            outboundWait.record(queueTime);
+                        }
+                        ClientConnection.this.channel.writeAndFlush(queued.message);
+                        Flight.sent(this.client, queued.message, queueTime);
                     }
                 }, delay, this.client.getMessageDelay(), TimeUnit.MILLISECONDS);
-                this.scheduledPing = this.channel.eventLoop().scheduleWithFixedDelay(this.client::ping, 60, 60, TimeUnit.SECONDS);
+                // Only started once registered, checks often enough to notice idling in time
+                int pingCheck = Math.max(1, Math.min(this.client.getConfig().getNotNull(Config.IDLE_THRESHOLD), this.client.getConfig().getNotNull(Config.PING_INTERVAL)) / 4);
+                this.scheduledPing = this.channel.eventLoop().scheduleWithFixedDelay(this.client::ping, pingCheck, pingCheck, TimeUnit.MILLISECONDS);
             }
         }
 
-        private void shutdown(@Nullable String message, boolean reconnect) {
+        void setReading(boolean reading) {
+            this.channel.config().setAutoRead(reading);
+        }
+
+        void shutdown(@Nullable String message, boolean reconnect) {
             this.reconnect = reconnect;
 
             this.sendMessage("QUIT" + ((message != null) ? (" :" + message) : ""), true);
@@ -286,8 +382,129 @@ final class NettyManager {
         }
     }
 
+    private static final class SslContextKey {
+        private final File keyCertChainFile;
+        private final long keyCertChainModified;
+        private final File keyFile;
+        private final long keyModified;
+        private final String keyPassword;
+        private final TrustManagerFactory factory;
+
+        private SslContextKey(@Nullable File keyCertChainFile, @Nullable File keyFile, @Nullable String keyPassword, @Nullable TrustManagerFactory factory) {
+            this.keyCertChainFile = keyCertChainFile;
+            this.keyCertChainModified = (keyCertChainFile == null) ? 0 : keyCertChainFile.lastModified();
+            this.keyFile = keyFile;
+            this.keyModified = (keyFile == null) ? 0 : keyFile.lastModified();
+            this.keyPassword = keyPassword;
+            this.factory = factory;
+        }
+
+        /**
+         * Gets if this key is for the same files and trust as another, but
+         * the files have since changed, making the other's context stale.
+         *
+         * @param key other key
+         * @return true if this key replaces the other
+         */
+        private boolean replaces(@Nonnull SslContextKey key) {
+            return Objects.equals(this.keyCertChainFile, key.keyCertChainFile) && Objects.equals(this.keyFile, key.keyFile) &&
+                    Objects.equals(this.keyPassword, key.keyPassword) && (this.factory == key.factory) &&
+                    ((this.keyCertChainModified != key.keyCertChainModified) || (this.keyModified != key.keyModified));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SslContextKey)) {
+                return false;
+            }
+            SslContextKey key = (SslContextKey) o;
+            return Objects.equals(this.keyCertChainFile, key.keyCertChainFile) && (this.keyCertChainModified == key.keyCertChainModified) &&
+                    Objects.equals(this.keyFile, key.keyFile) && (this.keyModified == key.keyModified) &&
+                    Objects.equals(this.keyPassword, key.keyPassword) && (this.factory == key.factory);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.keyCertChainFile, this.keyCertChainModified, this.keyFile, this.keyModified, this.keyPassword, System.identityHashCode(this.factory));
+        }
+    }
+
+    private static final int SSL_SESSION_CACHE_SIZE = 1024;
+    private static final int SSL_SESSION_TIMEOUT = 86400;
+
     @Nullable
-    private static Bootstrap bootstrap;
+    private static TrustManagerFactory defaultTrustManagerFactory;
+    private static final int SSL_CONTEXT_CACHE_SIZE = 16;
+    // Least recently used first, guarded by the NettyManager class
+    private static final Map<SslContextKey, SslContext> sslContexts = new SslContextCache();
+
+    /**
+     * Contexts by key, dropping the least recently used beyond the cache
+     * size.
+     */
+    private static final class SslContextCache extends LinkedHashMap<SslContextKey, SslContext> {
+        private static final long serialVersionUID = 1L;
+
+        private SslContextCache() {
+            super(SSL_CONTEXT_CACHE_SIZE, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SslContextKey, SslContext> eldest) {
+            return this.size() > SSL_CONTEXT_CACHE_SIZE;
+        }
+    }
+
+    /**
+     * Ways of reaching a server.
+     */
+    private enum Transport {
+        /**
+         * TCP, the usual.
+         */
+        SOCKET {
+            @Override
+            void configure(@Nonnull Bootstrap bootstrap) {
+                bootstrap.channel(NioSocketChannel.class);
+                bootstrap.option(ChannelOption.TCP_NODELAY, true);
+            }
+
+            @Nonnull
+            @Override
+            ChannelFuture connect(@Nonnull Bootstrap bootstrap, @Nonnull Config config) {
+                SocketAddress bind = config.get(Config.BIND_ADDRESS);
+                SocketAddress server = config.getNotNull(Config.SERVER_ADDRESS);
+                return (bind == null) ? bootstrap.connect(server) : bootstrap.connect(server, bind);
+            }
+        },
+        /**
+         * In-process, to a server bound to a {@link LocalAddress}.
+         */
+        LOCAL {
+            @Override
+            void configure(@Nonnull Bootstrap bootstrap) {
+                bootstrap.channel(LocalChannel.class);
+            }
+
+            @Nonnull
+            @Override
+            ChannelFuture connect(@Nonnull Bootstrap bootstrap, @Nonnull Config config) {
+                return bootstrap.connect(new LocalAddress(config.getNotNull(Config.LOCAL_SERVER)));
+            }
+        };
+
+        abstract void configure(@Nonnull Bootstrap bootstrap);
+
+        @Nonnull
+        abstract ChannelFuture connect(@Nonnull Bootstrap bootstrap, @Nonnull Config config);
+
+        @Nonnull
+        static Transport of(@Nonnull Config config) {
+            return (config.get(Config.LOCAL_SERVER) == null) ? SOCKET : LOCAL;
+        }
+    }
+
+    private static final Map<Transport, Bootstrap> bootstraps = new EnumMap<>(Transport.class);
     @Nullable
     private static EventLoopGroup eventLoopGroup;
     private static final Set<ClientConnection> connections = new HashSet<>();
@@ -296,39 +513,83 @@ final class NettyManager {
 
     }
 
+    /**
+     * Gets an SslContext for the configuration, shared by all connections
+     * with the same SSL settings so that their sessions can be resumed.
+     * The 16 most recently used contexts are kept, and a context is
+     * dropped once its key or certificate file changes.
+     *
+     * @param config client configuration
+     * @return context
+     * @throws SSLException if the context cannot be built
+     * @throws NoSuchAlgorithmException if the default trust manager
+     * algorithm is unavailable
+     * @throws KeyStoreException if the default trust store fails to load
+     */
+    @Nonnull
+    static synchronized SslContext getSslContext(@Nonnull Config config) throws SSLException, NoSuchAlgorithmException, KeyStoreException {
+        SslContextKey key = new SslContextKey(config.get(Config.SSL_KEY_CERT_CHAIN), config.get(Config.SSL_KEY), config.get(Config.SSL_KEY_PASSWORD), config.get(Config.SSL_TRUST_MANAGER_FACTORY));
+        SslContext sslContext = sslContexts.get(key);
+        if (sslContext == null) {
+            TrustManagerFactory factory = key.factory;
+            if (factory == null) {
+                if (defaultTrustManagerFactory == null) {
+                    defaultTrustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                    defaultTrustManagerFactory.init((KeyStore) null);
+                }
+                factory = defaultTrustManagerFactory;
+            }
+            sslContext = SslContextBuilder.forClient()
+                    .sslProvider(OpenSsl.isAvailable() ? SslProvider.OPENSSL : SslProvider.JDK)
+                    .trustManager(factory)
+                    .keyManager(key.keyCertChainFile, key.keyFile, key.keyPassword)
+                    .sessionCacheSize(SSL_SESSION_CACHE_SIZE)
+                    .sessionTimeout(SSL_SESSION_TIMEOUT)
+                    .build();
+            sslContexts.keySet().removeIf(key::replaces);
+            sslContexts.put(key, sslContext);
+        }
+        return sslContext;
+    }
+
     private static synchronized void removeClientConnection(@Nonnull ClientConnection connection, boolean reconnecting) {
         connections.remove(connection);
+        IRCClientLauncher launcher = connection.client.getConfig().get(Config.LAUNCHER);
+        if (launcher != null) {
+            launcher.release(connection.client, false);
+        }
         if (!reconnecting && connections.isEmpty()) {
             if (eventLoopGroup != null) {
                 eventLoopGroup.shutdownGracefully();
             }
             eventLoopGroup = null;
-            bootstrap = null;
+            bootstraps.clear();
         }
     }
 
+    static synchronized int getSslContextCount() {
+        return sslContexts.size();
+    }
+
     static synchronized ClientConnection connect(@Nonnull InternalClient client) {
+        if (eventLoopGroup == null) {
+            eventLoopGroup = new NioEventLoopGroup(); // Local channels run on these loops too
+        }
+        Transport transport = Transport.of(client.getConfig());
+        Bootstrap bootstrap = bootstraps.get(transport);
         if (bootstrap == null) {
             bootstrap = new Bootstrap();
-            bootstrap.channel(NioSocketChannel.class);
-            bootstrap.handler(new ChannelInitializer<SocketChannel>() {
+            transport.configure(bootstrap);
+            bootstrap.handler(new ChannelInitializer<Channel>() {
                 @Override
-                public void initChannel(SocketChannel channel) throws Exception {
+                public void initChannel(Channel channel) throws Exception {
                     // NOOP
                 }
             });
-            bootstrap.option(ChannelOption.TCP_NODELAY, true);
-            eventLoopGroup = new NioEventLoopGroup();
             bootstrap.group(eventLoopGroup);
+            bootstraps.put(transport, bootstrap);
         }
-        SocketAddress bind = client.getConfig().get(Config.BIND_ADDRESS);
-        SocketAddress server = client.getConfig().getNotNull(Config.SERVER_ADDRESS);
-        ClientConnection clientConnection;
-        if (bind == null) {
-            clientConnection = new ClientConnection(client, bootstrap.connect(server));
-        } else {
-            clientConnection = new ClientConnection(client, bootstrap.connect(server, bind));
-        }
+        ClientConnection clientConnection = new ClientConnection(client, transport.connect(bootstrap, client.getConfig()));
         connections.add(clientConnection);
         return clientConnection;
     }
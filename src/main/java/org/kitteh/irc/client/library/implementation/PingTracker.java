@@ -0,0 +1,261 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.feature.Latency;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decides when a PING is due, hands out PING tokens and measures round
+ * trip time from the matching PONG replies. The only source of PINGs, so
+ * the unanswered count is the number of PINGs that came due unanswered.
+ */
+final class PingTracker {
+    private static final class IRCLatency implements Latency {
+        private final long last;
+        private final long smoothed;
+        private final long variation;
+        private final int samples;
+        private final int unanswered;
+
+        private IRCLatency(long last, long smoothed, long variation, int samples, int unanswered) {
+            this.last = last;
+            this.smoothed = smoothed;
+            this.variation = variation;
+            this.samples = samples;
+            this.unanswered = unanswered;
+        }
+
+        @Nonnull
+        @Override
+        public Optional<Duration> getLastRoundTripTime() {
+            return this.duration(this.last);
+        }
+
+        @Nonnull
+        @Override
+        public Optional<Duration> getSmoothedRoundTripTime() {
+            return this.duration(this.smoothed);
+        }
+
+        @Nonnull
+        @Override
+        public Optional<Duration> getRoundTripTimeVariation() {
+            return this.duration(this.variation);
+        }
+
+        @Override
+        public int getSampleCount() {
+            return this.samples;
+        }
+
+        @Override
+        public int getUnansweredPings() {
+            return this.unanswered;
+        }
+
+        @Nonnull
+        private Optional<Duration> duration(long nanos) {
+            return (this.samples == 0) ? Optional.empty() : Optional.of(Duration.ofNanos(nanos));
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("last", this.getLastRoundTripTime()).add("smoothed", this.getSmoothedRoundTripTime()).add("variation", this.getRoundTripTimeVariation()).add("samples", this.samples).add("unanswered", this.unanswered).toString();
+        }
+    }
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final String[] pingPurr = new String[]{"MEOW", "MEOW!", "PURR", "PURRRRRRR", "MEOWMEOW", "HISS"};
+    private int pingPurrCount;
+
+    private final Map<String, Long> unanswered = new LinkedHashMap<>();
+    private volatile boolean awaitingPong;
+    private volatile long lastReceived = System.nanoTime();
+    private long lastSent = this.lastReceived;
+    private long last;
+    private long smoothed;
+    private long variation;
+    private int samples;
+
+    /**
+     * Creates a unique token for a PING about to be sent.
+     *
+     * @return token
+     */
+    @Nonnull
+    String nextToken() {
+        return this.nextToken(System.nanoTime());
+    }
+
+    /**
+     * Creates a unique token for a PING sent at the given time.
+     *
+     * @param now time sent, in nanoseconds
+     * @return token
+     */
+    @Nonnull
+    synchronized String nextToken(long now) {
+        // Connection's asleep, post cat sounds, unguessable so they can't be answered for the server
+        String token = this.pingPurr[this.pingPurrCount++ % this.pingPurr.length] + Long.toHexString(RANDOM.nextLong());
+        this.unanswered.put(token, now);
+        this.awaitingPong = true;
+        this.lastSent = now;
+        return token;
+    }
+
+    /**
+     * Gets if a PING is due, either because the interval between PINGs
+     * has passed or because the server has been silent for the idle
+     * threshold since the last line and the last PING.
+     *
+     * @param now current time, in nanoseconds
+     * @param idleThreshold idle threshold, in nanoseconds
+     * @param interval interval between PINGs, in nanoseconds
+     * @return true if a PING should be sent
+     */
+    synchronized boolean isPingDue(long now, long idleThreshold, long interval) {
+        long sinceSent = now - this.lastSent;
+        return (sinceSent >= interval) || ((sinceSent >= idleThreshold) && ((now - this.lastReceived) >= idleThreshold));
+    }
+
+    /**
+     * Gets the number of PINGs awaiting a PONG.
+     *
+     * @return unanswered pings
+     */
+    synchronized int getUnanswered() {
+        return this.unanswered.size();
+    }
+
+    /**
+     * Records a line was received and checks it for a PONG to an
+     * outstanding PING. Cheap to call for every line.
+     *
+     * @param line line received
+     */
+    void checkLine(@Nonnull String line) {
+        this.lastReceived = System.nanoTime();
+        if (!this.awaitingPong) {
+            return;
+        }
+        String token = getPongToken(line);
+        if (token != null) {
+            this.pong(token, System.nanoTime());
+        }
+    }
+
+    /**
+     * Gets the token of a PONG, which is its last parameter.
+     *
+     * @param line line received
+     * @return token, or null if the line is not a PONG
+     */
+    @Nullable
+    static String getPongToken(@Nonnull String line) {
+        int position = 0;
+        // Skip tags and prefix
+        if (line.startsWith("@")) {
+            position = line.indexOf(' ') + 1;
+            if (position == 0) {
+                return null;
+            }
+        }
+        if (line.startsWith(":", position)) {
+            position = line.indexOf(' ', position) + 1;
+            if (position == 0) {
+                return null;
+            }
+        }
+        if (!line.startsWith("PONG ", position)) {
+            return null;
+        }
+        position += 5;
+        int trailing = line.indexOf(" :", position - 1);
+        if (trailing >= 0) {
+            return line.substring(trailing + 2);
+        }
+        return line.substring(line.lastIndexOf(' ') + 1);
+    }
+
+    /**
+     * Records a PONG.
+     *
+     * @param token token in the PONG
+     * @param now time received, in nanoseconds
+     */
+    synchronized void pong(@Nonnull String token, long now) {
+        Long sent = this.unanswered.get(token);
+        if (sent == null) {
+            return;
+        }
+        // Any earlier unanswered pings are moot, the connection lives
+        this.unanswered.clear();
+        this.awaitingPong = false;
+
+        long sample = now - sent;
+        this.last = sample;
+        if (this.samples++ == 0) {
+            this.smoothed = sample;
+            this.variation = sample / 2;
+        } else {
+            this.variation = ((3 * this.variation) + Math.abs(this.smoothed - sample)) / 4;
+            this.smoothed = ((7 * this.smoothed) + sample) / 8;
+        }
+    }
+
+    /**
+     * Forgets all measurements, for a new connection.
+     */
+    synchronized void reset() {
+        this.lastReceived = this.lastSent = System.nanoTime();
+        this.unanswered.clear();
+        this.awaitingPong = false;
+        this.last = 0;
+        this.smoothed = 0;
+        this.variation = 0;
+        this.samples = 0;
+    }
+
+    @Nonnull
+    synchronized Latency getLatency() {
+        return new IRCLatency(this.last, this.smoothed, this.variation, this.samples, this.unanswered.size());
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("latency", this.getLatency()).toString();
+    }
+}
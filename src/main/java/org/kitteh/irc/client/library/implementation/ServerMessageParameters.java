@@ -0,0 +1,91 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Parameters of a message sent by the server, read from the line on first
+ * request. Only the positions of the parameters are found up front.
+ */
+final class ServerMessageParameters extends AbstractList<String> implements RandomAccess {
+    private final String line;
+    private final int[] bounds; // Start and end of each parameter
+    private final String[] values;
+
+    /**
+     * Finds the parameters in part of a line. Parameters are separated by
+     * single spaces, and a parameter starting with a colon is the rest of
+     * the given part, minus the colon.
+     *
+     * @param line line
+     * @param start start of the parameters
+     * @param end end of the parameters, exclusive
+     */
+    ServerMessageParameters(@Nonnull String line, int start, int end) {
+        this.line = line;
+        int[] bounds = new int[8];
+        int size = 0;
+        int position = start;
+        while (position < end) {
+            int parameterEnd;
+            if (line.charAt(position) == ':') {
+                position++;
+                parameterEnd = end;
+            } else {
+                parameterEnd = line.indexOf(' ', position);
+                if ((parameterEnd < 0) || (parameterEnd > end)) {
+                    parameterEnd = end;
+                }
+            }
+            if (size == bounds.length) {
+                bounds = Arrays.copyOf(bounds, size * 2);
+            }
+            bounds[size++] = position;
+            bounds[size++] = parameterEnd;
+            position = parameterEnd + 1;
+        }
+        this.bounds = bounds;
+        this.values = new String[size / 2];
+    }
+
+    @Nonnull
+    @Override
+    public String get(int index) {
+        String value = this.values[index];
+        if (value == null) {
+            value = this.line.substring(this.bounds[index * 2], this.bounds[(index * 2) + 1]);
+            this.values[index] = value;
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return this.values.length;
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * A compact, append-only log of lines received from a server, each with the
+ * {@link System#nanoTime()} at which it was read.
+ * <p>
+ * The log is written through memory-mapped regions. Lines are stored as the
+ * nanoseconds since the previous entry and their UTF-8 bytes, both lengths
+ * as variable-length integers. Every {@value #INDEX_INTERVAL} lines an index
+ * block records the absolute time, wall clock time and line count, and
+ * points back at the previous index block. A closed log ends with a pointer
+ * to the last index block. A log that was never closed can still be read up
+ * to the last line written.
+ *
+ * @see org.kitteh.irc.client.library.Client.Builder#captureLog(File)
+ * @see org.kitteh.irc.client.library.Client#replay(File, boolean)
+ */
+public final class CaptureLog {
+    /**
+     * Lines between index blocks.
+     */
+    public static final int INDEX_INTERVAL = 1024;
+
+    private static final byte[] MAGIC = {'K', 'I', 'C', 'L', 'C', 'A', 'P', 1};
+    private static final byte TYPE_END_OF_DATA = 0;
+    private static final byte TYPE_LINE = 1;
+    private static final byte TYPE_INDEX = 2;
+    private static final byte TYPE_TRAILER = 3;
+    private static final int INDEX_SIZE = 1 + (4 * 8);
+    private static final int TRAILER_SIZE = 1 + 8 + 4;
+    private static final int TRAILER_MAGIC = 0x4B454E44;
+    private static final int MAX_LINE_HEADER = 1 + 10 + 5;
+    private static final int REGION_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * A line read from a log.
+     */
+    public static final class Entry {
+        private final long nanos;
+        private final long epochMillis;
+        private final String line;
+
+        private Entry(long nanos, long epochMillis, @Nonnull String line) {
+            this.nanos = nanos;
+            this.epochMillis = epochMillis;
+            this.line = line;
+        }
+
+        /**
+         * Gets the {@link System#nanoTime()} at which the line was read.
+         * Only differences between entries of one log are meaningful.
+         *
+         * @return capture time in nanoseconds
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * Gets the wall clock time at which the line was read, to the
+         * millisecond.
+         *
+         * @return capture time
+         */
+        @Nonnull
+        public Instant getTime() {
+            return Instant.ofEpochMilli(this.epochMillis);
+        }
+
+        /**
+         * Gets the line, without line ending.
+         *
+         * @return line
+         */
+        @Nonnull
+        public String getLine() {
+            return this.line;
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("nanos", this.nanos).add("line", this.line).toString();
+        }
+    }
+
+    /**
+     * Appends lines to a new log. Appending is thread safe, and leaves
+     * writing mapped regions to disk to the operating system. The log is
+     * only forced to disk when closed.
+     */
+    public static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private MappedByteBuffer region;
+        private long regionStart;
+        private long lastNanos;
+        private long lines;
+        private long lastIndex = -1;
+        private boolean closed;
+
+        /**
+         * Creates a log, replacing any existing file.
+         *
+         * @param file file to write
+         * @throws IOException if the file cannot be created
+         */
+        public Writer(@Nonnull File file) throws IOException {
+            Sanity.nullCheck(file, "File cannot be null");
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                this.region = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+            } catch (IOException e) {
+                this.channel.close();
+                throw e;
+            }
+            this.region.put(MAGIC);
+        }
+
+        /**
+         * Appends a line.
+         *
+         * @param nanos {@link System#nanoTime()} at which the line was read
+         * @param line line, without line ending
+         * @throws IOException if the log cannot grow
+         * @throws IllegalStateException if closed
+         */
+        public synchronized void append(long nanos, @Nonnull String line) throws IOException {
+            Sanity.nullCheck(line, "Line cannot be null");
+            if (this.closed) {
+                throw new IllegalStateException("Log is closed");
+            }
+            if ((this.lines % INDEX_INTERVAL) == 0) {
+                this.writeIndex(nanos);
+            }
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            this.ensure(MAX_LINE_HEADER + bytes.length);
+            this.region.put(TYPE_LINE);
+            putVarLong(this.region, Math.max(0, nanos - this.lastNanos));
+            putVarLong(this.region, bytes.length);
+            this.region.put(bytes);
+            this.lastNanos = Math.max(this.lastNanos, nanos);
+            this.lines++;
+        }
+
+        /**
+         * Gets the number of lines appended.
+         *
+         * @return lines appended
+         */
+        public synchronized long getLines() {
+            return this.lines;
+        }
+
+        /**
+         * Ends the log and trims the file to its contents.
+         *
+         * @throws IOException if the file cannot be written
+         */
+        @Override
+        public synchronized void close() throws IOException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            try {
+                this.ensure(TRAILER_SIZE);
+                this.region.put(TYPE_TRAILER);
+                this.region.putLong(this.lastIndex);
+                this.region.putInt(TRAILER_MAGIC);
+                this.region.force();
+                long end = this.position();
+                this.region = null;
+                try {
+                    this.channel.truncate(end);
+                } catch (IOException ignored) {
+                    // Some platforms refuse while mapped, readers stop at the trailer regardless
+                }
+            } finally {
+                this.channel.close();
+            }
+        }
+
+        private void writeIndex(long nanos) throws IOException {
+            this.ensure(INDEX_SIZE);
+            long position = this.position();
+            this.region.put(TYPE_INDEX);
+            this.region.putLong(nanos);
+            this.region.putLong(System.currentTimeMillis());
+            this.region.putLong(this.lines);
+            this.region.putLong(this.lastIndex);
+            this.lastIndex = position;
+            this.lastNanos = nanos;
+        }
+
+        private long position() {
+            return this.regionStart + this.region.position();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (this.region.remaining() < bytes) {
+                this.regionStart = this.position();
+                this.region = this.channel.map(FileChannel.MapMode.READ_WRITE, this.regionStart, Math.max(REGION_SIZE, bytes));
+            }
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("lines", this.lines).add("closed", this.closed).toString();
+        }
+    }
+
+    /**
+     * Reads the lines of a log, in order.
+     */
+    public static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final long size;
+        private ByteBuffer window;
+        private long windowStart;
+        private long position = MAGIC.length;
+        private long lastNanos;
+        private long indexNanos;
+        private long indexEpochMillis;
+
+        /**
+         * Opens a log.
+         *
+         * @param file file to read
+         * @throws IOException if the file cannot be read or is not a log
+         */
+        public Reader(@Nonnull File file) throws IOException {
+            Sanity.nullCheck(file, "File cannot be null");
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            this.size = this.channel.size();
+            ByteBuffer header = this.at(0, MAGIC.length);
+            byte[] magic = new byte[MAGIC.length];
+            if (header != null) {
+                header.get(magic);
+            }
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    this.channel.close();
+                    throw new IOException("Not a capture log: " + file);
+                }
+            }
+        }
+
+        /**
+         * Reads the next line.
+         *
+         * @return the next line, or null at the end of the log
+         * @throws IOException if the log cannot be read or is corrupt
+         */
+        @Nullable
+        public Entry next() throws IOException {
+            while (true) {
+                ByteBuffer buffer = this.at(this.position, (int) Math.min(MAX_LINE_HEADER, this.size - this.position));
+                if ((buffer == null) || !buffer.hasRemaining()) {
+                    return null;
+                }
+                int start = buffer.position();
+                byte type = buffer.get();
+                switch (type) {
+                    case TYPE_LINE:
+                        long nanos = this.lastNanos + getVarLong(buffer);
+                        int length = (int) getVarLong(buffer);
+                        long lineStart = this.position + (buffer.position() - start);
+                        ByteBuffer bytes = this.at(lineStart, length);
+                        if (bytes == null) {
+                            return null; // Cut short while writing
+                        }
+                        byte[] line = new byte[length];
+                        bytes.get(line);
+                        this.position = lineStart + length;
+                        this.lastNanos = nanos;
+                        return new Entry(nanos, this.indexEpochMillis + ((nanos - this.indexNanos) / 1_000_000), new String(line, StandardCharsets.UTF_8));
+                    case TYPE_INDEX:
+                        if (!this.readIndex(this.position)) {
+                            return null;
+                        }
+                        this.position += INDEX_SIZE;
+                        break;
+                    case TYPE_END_OF_DATA:
+                    case TYPE_TRAILER:
+                        return null;
+                    default:
+                        throw new IOException("Corrupt capture log at byte " + this.position);
+                }
+            }
+        }
+
+        /**
+         * Moves to the last index block written before the given time, so
+         * that at most {@value CaptureLog#INDEX_INTERVAL} lines precede it. Without a
+         * trailer, as in a log that was never closed, moves to the start.
+         *
+         * @param nanos {@link System#nanoTime()} to seek
+         * @throws IOException if the log cannot be read or is corrupt
+         */
+        public void seek(long nanos) throws IOException {
+            this.position = MAGIC.length;
+            ByteBuffer trailer = (this.size >= (MAGIC.length + TRAILER_SIZE)) ? this.at(this.size - TRAILER_SIZE, TRAILER_SIZE) : null;
+            if ((trailer == null) || (trailer.get() != TYPE_TRAILER)) {
+                return;
+            }
+            long index = trailer.getLong();
+            if (trailer.getInt() != TRAILER_MAGIC) {
+                return;
+            }
+            while (index >= 0) {
+                ByteBuffer buffer = this.at(index, INDEX_SIZE);
+                if ((buffer == null) || (buffer.get() != TYPE_INDEX)) {
+                    throw new IOException("Corrupt capture log index at byte " + index);
+                }
+                long indexNanos = buffer.getLong();
+                buffer.getLong();
+                buffer.getLong();
+                long previous = buffer.getLong();
+                if ((indexNanos - nanos) <= 0) {
+                    this.position = index;
+                    return;
+                }
+                index = previous;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.window = null;
+            this.channel.close();
+        }
+
+        private boolean readIndex(long index) throws IOException {
+            ByteBuffer buffer = this.at(index, INDEX_SIZE);
+            if (buffer == null) {
+                return false;
+            }
+            buffer.get();
+            this.indexNanos = buffer.getLong();
+            this.indexEpochMillis = buffer.getLong();
+            buffer.getLong();
+            buffer.getLong();
+            this.lastNanos = this.indexNanos;
+            return true;
+        }
+
+        /**
+         * Gets the window positioned at an offset, with at least the given
+         * number of bytes after it.
+         *
+         * @return the window, or null if the file ends first
+         */
+        @Nullable
+        private ByteBuffer at(long offset, int bytes) throws IOException {
+            if ((offset + bytes) > this.size) {
+                return null;
+            }
+            if ((this.window == null) || (offset < this.windowStart) || ((offset + bytes) > (this.windowStart + this.window.limit()))) {
+                this.windowStart = offset;
+                this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(this.size - offset, Math.max(REGION_SIZE, bytes)));
+            }
+            this.window.position((int) (offset - this.windowStart));
+            return this.window;
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("size", this.size).add("position", this.position).toString();
+        }
+    }
+
+    private CaptureLog() {
+    }
+
+    private static void putVarLong(@Nonnull ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(@Nonnull ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new IOException("Capture log ends inside a number");
+            }
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt number in capture log");
+    }
+}
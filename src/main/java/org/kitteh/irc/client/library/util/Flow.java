@@ -0,0 +1,105 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.util;
+
+/**
+ * Interfaces for demand-driven streams, mirroring those of
+ * {@code java.util.concurrent.Flow} in Java 9 and of Reactive Streams,
+ * for use on Java 8. Adapting to either is a matter of forwarding each
+ * method.
+ */
+public final class Flow {
+    private Flow() {
+    }
+
+    /**
+     * A source of items, sent to each subscriber as it requests them.
+     *
+     * @param <T> item type
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+        /**
+         * Adds a subscriber, which will be passed a {@link Subscription}
+         * through {@link Subscriber#onSubscribe(Subscription)}.
+         *
+         * @param subscriber subscriber
+         * @throws IllegalArgumentException for a null subscriber
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items. Methods are called one at a time, never
+     * concurrently, and receive no more items than requested.
+     *
+     * @param <T> item type
+     */
+    public interface Subscriber<T> {
+        /**
+         * Called first, with the subscription to request items from.
+         *
+         * @param subscription subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called with each requested item.
+         *
+         * @param item item
+         */
+        void onNext(T item);
+
+        /**
+         * Called once the subscription fails, after which nothing else
+         * is called.
+         *
+         * @param throwable cause
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called once no more items will follow, after which nothing else
+         * is called.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a publisher and one subscriber.
+     */
+    public interface Subscription {
+        /**
+         * Requests more items. Requests add up.
+         *
+         * @param n number of items, more than zero
+         */
+        void request(long n);
+
+        /**
+         * Stops receiving items, eventually.
+         */
+        void cancel();
+    }
+}
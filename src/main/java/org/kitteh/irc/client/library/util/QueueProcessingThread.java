@@ -25,14 +25,20 @@ package org.kitteh.irc.client.library.util;
 
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Self starting processor of queued items on its own thread.
  *
+ * Queueing takes no lock. Items go on a lock-free queue, and the thread is
+ * only woken when it has parked for want of items, after which it processes
+ * everything queued before parking again.
+ *
  * @param <Type> type of items queued
  */
 public abstract class QueueProcessingThread<Type> extends Thread {
     private final Queue<Type> queue = new ConcurrentLinkedQueue<>();
+    private volatile boolean parked;
 
     /**
      * Creates a thread and starts itself.
@@ -46,20 +52,19 @@ public abstract class QueueProcessingThread<Type> extends Thread {
 
     @Override
     public void run() {
-        dance:
         while (!this.isInterrupted()) {
-            synchronized (this.queue) {
-                while (this.queue.isEmpty()) {
-                    try {
-                        this.queue.wait();
-                    } catch (InterruptedException e) {
-                        break dance;
-                    }
+            Type element = this.queue.poll();
+            if (element == null) {
+                this.parked = true;
+                // Checked again after announcing, so a queued item either is seen here or unparks
+                if (this.queue.isEmpty() && !this.isInterrupted()) {
+                    LockSupport.park(this);
                 }
+                this.parked = false;
+                continue;
             }
-            this.processElement(this.queue.poll());
+            this.processElement(element);
         }
-        this.interrupt();
         this.cleanup(this.queue);
     }
 
@@ -85,9 +90,9 @@ public abstract class QueueProcessingThread<Type> extends Thread {
      * @param item item to queue
      */
     public void queue(Type item) {
-        synchronized (this.queue) {
-            this.queue.add(item);
-            this.queue.notify();
+        this.queue.add(item);
+        if (this.parked) {
+            LockSupport.unpark(this);
         }
     }
 }
@@ -0,0 +1,161 @@
+package org.kitteh.irc.client.library;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A minimal in-process IRC server, reachable by clients built with {@link
+ * Client.Builder#localServer(String)}. Registers clients, answers PINGs and
+ * records every line received.
+ */
+public class LocalIRCServer implements AutoCloseable {
+    private static final String SERVER_NAME = "irc.local";
+
+    private final class Connection extends SimpleChannelInboundHandler<String> {
+        private String nick;
+        private boolean user;
+        private boolean negotiating;
+        private boolean registered;
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, String line) throws Exception {
+            LocalIRCServer.this.received.add(line);
+            String[] split = line.split(" ", 3);
+            switch (split[0]) {
+                case "CAP":
+                    if ((split.length > 1) && "LS".equals(split[1])) {
+                        this.negotiating = true;
+                        this.send(ctx, ':' + SERVER_NAME + " CAP * LS :" + LocalIRCServer.this.capabilities);
+                    } else if ((split.length > 1) && "END".equals(split[1])) {
+                        this.negotiating = false;
+                    }
+                    break;
+                case "NICK":
+                    this.nick = split[1];
+                    break;
+                case "USER":
+                    this.user = true;
+                    break;
+                case "PING":
+                    this.send(ctx, ':' + SERVER_NAME + " PONG " + SERVER_NAME + ' ' + line.substring(5));
+                    break;
+                default:
+            }
+            if (!this.registered && (this.nick != null) && this.user && !this.negotiating && LocalIRCServer.this.welcoming) {
+                this.registered = true;
+                this.send(ctx, ':' + SERVER_NAME + " 001 " + this.nick + " :Welcome to the local network " + this.nick);
+                this.send(ctx, ':' + SERVER_NAME + " 002 " + this.nick + " :Your host is " + SERVER_NAME);
+                this.send(ctx, ':' + SERVER_NAME + " 003 " + this.nick + " :This server was created just now");
+                this.send(ctx, ':' + SERVER_NAME + " 004 " + this.nick + ' ' + SERVER_NAME + " kicl-local iosw biklmnopstv");
+                this.send(ctx, ':' + SERVER_NAME + " 005 " + this.nick + " CHANTYPES=# PREFIX=(ov)@+ NETWORK=Local :are supported by this server");
+                ctx.flush();
+            }
+        }
+
+        private void send(@Nonnull ChannelHandlerContext ctx, @Nonnull String line) {
+            ctx.write(line + "\r\n");
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+            ctx.flush();
+        }
+    }
+
+    private final LocalAddress address;
+    private final EventLoopGroup group = new DefaultEventLoopGroup(1);
+    private final ChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final Channel serverChannel;
+    private volatile String capabilities = "";
+    private volatile boolean welcoming = true;
+
+    /**
+     * Starts a server bound to the named local address.
+     *
+     * @param name local address name, for {@link
+     * Client.Builder#localServer(String)}
+     * @throws InterruptedException if interrupted while binding
+     */
+    public LocalIRCServer(@Nonnull String name) throws InterruptedException {
+        this.address = new LocalAddress(name);
+        this.serverChannel = new ServerBootstrap()
+                .group(this.group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) throws Exception {
+                        LocalIRCServer.this.channels.add(channel);
+                        channel.pipeline().addLast(new DelimiterBasedFrameDecoder(2048, Unpooled.wrappedBuffer(new byte[]{(byte) '\r', (byte) '\n'})));
+                        channel.pipeline().addLast(new StringDecoder(CharsetUtil.UTF_8));
+                        channel.pipeline().addLast(new StringEncoder(CharsetUtil.UTF_8));
+                        channel.pipeline().addLast(new Connection());
+                    }
+                })
+                .bind(this.address).sync().channel();
+    }
+
+    /**
+     * Sets the capabilities listed in reply to CAP LS.
+     *
+     * @param capabilities space separated capabilities
+     */
+    public void setCapabilities(@Nonnull String capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    /**
+     * Sets if clients are welcomed once they register. If not, clients
+     * are left waiting for registration to complete.
+     *
+     * @param welcoming true to welcome clients
+     */
+    public void setWelcoming(boolean welcoming) {
+        this.welcoming = welcoming;
+    }
+
+    /**
+     * Gets the lines received from all clients, in order of arrival.
+     *
+     * @return received lines
+     */
+    @Nonnull
+    public BlockingQueue<String> getReceived() {
+        return this.received;
+    }
+
+    /**
+     * Sends a line to every connected client.
+     *
+     * @param line line, without line ending
+     */
+    public void send(@Nonnull String line) {
+        this.channels.writeAndFlush(line + "\r\n");
+    }
+
+    @Override
+    public void close() {
+        this.channels.close().awaitUninterruptibly();
+        this.serverChannel.close().awaitUninterruptibly();
+        this.group.shutdownGracefully();
+    }
+}
@@ -0,0 +1,325 @@
+package org.kitteh.irc.client.library;
+
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Invoke;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitteh.irc.client.library.event.client.ClientConnectedEvent;
+import org.kitteh.irc.client.library.event.client.ClientConnectionClosedEvent;
+import org.kitteh.irc.client.library.event.user.PrivateMessageEvent;
+import org.kitteh.irc.client.library.feature.BatchHandler;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.Metrics;
+import org.kitteh.irc.client.library.util.Flow;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests a client end to end over the in-process transport.
+ */
+public class LocalTransportTest {
+    public static class Listener {
+        private final CountDownLatch connected = new CountDownLatch(1);
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+        @Handler
+        public void connected(ClientConnectedEvent event) {
+            this.connected.countDown();
+        }
+
+        @Handler
+        public void message(PrivateMessageEvent event) {
+            this.messages.add(event.getMessage());
+        }
+    }
+
+    public static class BusyListener {
+        private final CountDownLatch async = new CountDownLatch(1);
+        private final CountDownLatch batched = new CountDownLatch(1);
+
+        @Handler(delivery = Invoke.Asynchronously)
+        public void async(PrivateMessageEvent event) {
+            this.async.countDown();
+        }
+
+        @BatchHandler(maxSize = 1, maxDelay = 1000)
+        public void batch(List<PrivateMessageEvent> events) {
+            this.batched.countDown();
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Registers with the local server and exchanges messages.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void registerAndChat() throws InterruptedException {
+        this.registerAndChat(EventManager.Bus.MBASSADOR, null);
+    }
+
+    /**
+     * Registers and exchanges messages with the native event bus.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void registerAndChatNativeBus() throws InterruptedException {
+        this.registerAndChat(EventManager.Bus.NATIVE, null);
+    }
+
+    /**
+     * Registers and exchanges messages with the client's threads coming
+     * from a thread factory.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void registerAndChatThreadFactory() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        this.registerAndChat(EventManager.Bus.MBASSADOR, runnable -> {
+            Thread thread = new Thread(runnable, "Test Thread " + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Assert.assertTrue(created.get() > 0);
+    }
+
+    /**
+     * Tests shutting down stops every thread the client started, even
+     * non-daemon threads that would keep the JVM running.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void shutdownStopsThreads() throws InterruptedException {
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "Test Thread " + threads.size());
+            threads.add(thread);
+            return thread;
+        };
+        for (EventManager.Bus bus : EventManager.Bus.values()) {
+            try (LocalIRCServer server = new LocalIRCServer("kicl-local-threads-test")) {
+                Listener listener = new Listener();
+                BusyListener busyListener = new BusyListener();
+                CountDownLatch published = new CountDownLatch(1);
+                Client client = Client.builder().localServer("kicl-local-threads-test").secure(false).nick("Kitteh").eventBus(bus).threadFactory(threadFactory)
+                        .listenException(exception -> {
+                        })
+                        .afterBuildConsumer(c -> {
+                            c.getEventManager().registerEventListener(listener);
+                            c.getEventManager().registerEventListener(busyListener);
+                        })
+                        .build();
+                try {
+                    client.getEventManager().getPublisher(PrivateMessageEvent.class, 10, EventManager.Overflow.DROP_OLDEST).subscribe(new Flow.Subscriber<PrivateMessageEvent>() {
+                        @Override
+                        public void onSubscribe(Flow.Subscription subscription) {
+                            subscription.request(Long.MAX_VALUE);
+                        }
+
+                        @Override
+                        public void onNext(PrivateMessageEvent item) {
+                            published.countDown();
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                        }
+
+                        @Override
+                        public void onComplete() {
+                        }
+                    });
+                    Assert.assertTrue("Client never registered", listener.connected.await(5, TimeUnit.SECONDS));
+                    server.send(":Cat!cat@local PRIVMSG Kitteh :meow");
+                    Assert.assertEquals("meow", listener.messages.poll(5, TimeUnit.SECONDS));
+                    Assert.assertTrue(busyListener.async.await(5, TimeUnit.SECONDS));
+                    Assert.assertTrue(busyListener.batched.await(5, TimeUnit.SECONDS));
+                    Assert.assertTrue(published.await(5, TimeUnit.SECONDS));
+                } finally {
+                    client.shutdown();
+                }
+            }
+        }
+        Assert.assertFalse(threads.isEmpty());
+        for (Thread thread : threads) {
+            thread.join(5000);
+            Assert.assertFalse(thread.getName() + " still alive", thread.isAlive());
+        }
+    }
+
+    /**
+     * Tests a server which never completes registration is dropped after
+     * the registration timeout, freeing the launcher slot.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void registrationTimeout() throws InterruptedException {
+        try (LocalIRCServer server = new LocalIRCServer("kicl-local-registration-test")) {
+            server.setWelcoming(false);
+            ClientLauncher launcher = ClientLauncher.builder().maxConcurrentPerServer(1).connectDelay(0).build();
+            BlockingQueue<ClientConnectionClosedEvent> closed = new LinkedBlockingQueue<>();
+            Client client = Client.builder().localServer("kicl-local-registration-test").secure(false).nick("Kitteh").launcher(launcher).registrationTimeout(200)
+                    .listenException(exception -> {
+                    })
+                    .afterBuildConsumer(c -> c.getEventManager().registerEventListener(new Object() {
+                        @Handler
+                        public void closed(ClientConnectionClosedEvent event) {
+                            closed.add(event);
+                        }
+                    }))
+                    .build();
+            try {
+                ClientConnectionClosedEvent event = closed.poll(5, TimeUnit.SECONDS);
+                Assert.assertNotNull("Connection never timed out", event);
+                Assert.assertTrue(event.isReconnecting());
+                Assert.assertTrue(launcher.awaitStartup(5, TimeUnit.SECONDS));
+                Assert.assertEquals(1, launcher.getProgress().getFailedAttempts());
+            } finally {
+                client.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Exchanges messages and reads them back from the metrics MBean.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void metrics() throws Exception {
+        try (LocalIRCServer server = new LocalIRCServer("kicl-local-metrics-test")) {
+            Listener listener = new Listener();
+            Client client = Client.builder().localServer("kicl-local-metrics-test").secure(false).name("Metrics Test").nick("Kitteh").metricsMBean(true).latencyMetrics(true)
+                    .listenException(exception -> {
+                    })
+                    .afterBuildConsumer(c -> c.getEventManager().registerEventListener(listener))
+                    .build();
+            ObjectName name = new ObjectName("org.kitteh.irc.client.library:type=Metrics,name=" + ObjectName.quote("Metrics Test"));
+            try {
+                Assert.assertTrue("Client never registered", listener.connected.await(5, TimeUnit.SECONDS));
+                server.send(":Cat!cat@local PRIVMSG Kitteh :meow");
+                Assert.assertEquals("meow", listener.messages.poll(5, TimeUnit.SECONDS));
+
+                Metrics metrics = client.getMetrics();
+                Assert.assertTrue(metrics.getLinesIn() > 0);
+                Assert.assertTrue(metrics.getLinesOut() > 0);
+                Assert.assertTrue(metrics.getBytesIn() > metrics.getLinesIn());
+                Assert.assertTrue(metrics.getBytesOut() > metrics.getLinesOut());
+                Assert.assertTrue(metrics.getInputLag().getCount() > 0);
+                Assert.assertTrue(metrics.getDispatchLatency().getCount() > 0);
+
+                MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+                Assert.assertTrue(((Long) mBeanServer.getAttribute(name, "LinesIn")) > 0);
+            } finally {
+                client.shutdown();
+            }
+            Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        }
+    }
+
+    /**
+     * Captures the lines a client receives and replays them through another.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    public void captureAndReplay() throws Exception {
+        File log = this.folder.newFile();
+        try (LocalIRCServer server = new LocalIRCServer("kicl-local-capture-test")) {
+            Listener listener = new Listener();
+            Client client = Client.builder().localServer("kicl-local-capture-test").secure(false).nick("Kitteh").captureLog(log)
+                    .listenException(exception -> {
+                    })
+                    .afterBuildConsumer(c -> c.getEventManager().registerEventListener(listener))
+                    .build();
+            try {
+                Assert.assertTrue("Client never registered", listener.connected.await(5, TimeUnit.SECONDS));
+                server.send(":Cat!cat@local PRIVMSG Kitteh :meow");
+                server.send(":Cat!cat@local PRIVMSG Kitteh :purr");
+                Assert.assertEquals("meow", listener.messages.poll(5, TimeUnit.SECONDS));
+                Assert.assertEquals("purr", listener.messages.poll(5, TimeUnit.SECONDS));
+            } finally {
+                client.shutdown();
+            }
+        }
+
+        Listener listener = new Listener();
+        BlockingQueue<String> output = new LinkedBlockingQueue<>();
+        Client replay = Client.builder().nick("Kitteh").captureLog(log).listenOutput(output::add) // Must not replace the log
+                .afterBuildConsumer(c -> c.getEventManager().registerEventListener(listener))
+                .buildForReplay();
+        try {
+            Assert.assertTrue(replay.replay(log, false) >= 7); // Registration numerics and two messages
+            Assert.assertTrue(listener.connected.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals("meow", listener.messages.poll(5, TimeUnit.SECONDS));
+            Assert.assertEquals("purr", listener.messages.poll(5, TimeUnit.SECONDS));
+            Assert.assertNotNull(output.poll(5, TimeUnit.SECONDS)); // Replies go nowhere but the listener
+        } finally {
+            replay.shutdown();
+        }
+    }
+
+    /**
+     * Tests only clients built for replay can replay.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test(expected = IllegalStateException.class)
+    public void replayConnected() throws Exception {
+        try (LocalIRCServer server = new LocalIRCServer("kicl-local-replay-test")) {
+            Client client = Client.builder().localServer("kicl-local-replay-test").secure(false).build();
+            try {
+                client.replay(this.folder.newFile(), false);
+            } finally {
+                client.shutdown();
+            }
+        }
+    }
+
+    private void registerAndChat(EventManager.Bus bus, ThreadFactory threadFactory) throws InterruptedException {
+        try (LocalIRCServer server = new LocalIRCServer("kicl-local-transport-test")) {
+            Listener listener = new Listener();
+            Client client = Client.builder().localServer("kicl-local-transport-test").secure(false).nick("Kitteh").messageDelay(1).eventBus(bus).threadFactory(threadFactory)
+                    .listenException(exception -> {
+                    })
+                    .afterBuildConsumer(c -> c.getEventManager().registerEventListener(listener))
+                    .build();
+            try {
+                Assert.assertTrue("Client never registered", listener.connected.await(5, TimeUnit.SECONDS));
+                Assert.assertEquals("CAP LS 302", server.getReceived().poll(5, TimeUnit.SECONDS));
+
+                server.send(":Cat!cat@local PRIVMSG Kitteh :meow");
+                Assert.assertEquals("meow", listener.messages.poll(5, TimeUnit.SECONDS));
+
+                client.sendMessage("Cat", "purr");
+                String line;
+                do {
+                    line = server.getReceived().poll(5, TimeUnit.SECONDS);
+                } while ((line != null) && !line.startsWith("PRIVMSG"));
+                Assert.assertEquals("PRIVMSG Cat :purr", line);
+            } finally {
+                client.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,610 @@
+package org.kitteh.irc.client.library;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.kitteh.irc.client.library.feature.CapabilityManager;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-process IRC server for load testing, reachable by clients built with
+ * {@link Client.Builder#localServer(String)}.
+ * <p>
+ * It registers clients with CAP negotiation and ISUPPORT, answers JOIN,
+ * NAMES, WHO, MODE queries, PART, PRIVMSG and NOTICE, and fills channels
+ * with simulated users. Once {@link #startTraffic()} is called, simulated
+ * users talk, part and join, and split away and back, at the rates set by
+ * the {@link TrafficProfile}. Each message text starts with the {@link
+ * System#nanoTime()} at which it was written, so receivers in the same
+ * process can measure end to end latency. Connections sending faster than
+ * the profile's flood limit are closed with an excess flood error.
+ */
+public class MockIRCd implements AutoCloseable {
+    private static final String SERVER_NAME = "irc.mock";
+    private static final String SPLIT_SERVER_NAME = "split.mock";
+    private static final String USER_HOST = "sim.mock";
+    private static final String CLIENT_HOST = "client.mock";
+    private static final int NAMES_LENGTH = 400;
+    private static final int TICK_MILLIS = 10;
+    private static final int NETSPLIT_MILLIS = 1000;
+    private static final DateTimeFormatter SERVER_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    private static final class ServerChannel {
+        private final String name;
+        private final Set<Connection> members = ConcurrentHashMap.newKeySet();
+        private final List<String> users = new ArrayList<>(); // Guarded by itself
+
+        private ServerChannel(@Nonnull String name) {
+            this.name = name;
+        }
+
+        @Nullable
+        private String randomUser(@Nonnull Random random) {
+            synchronized (this.users) {
+                return this.users.isEmpty() ? null : this.users.get(random.nextInt(this.users.size()));
+            }
+        }
+
+        @Nullable
+        private String removeRandomUser(@Nonnull Random random) {
+            synchronized (this.users) {
+                if (this.users.isEmpty()) {
+                    return null;
+                }
+                int index = random.nextInt(this.users.size());
+                String last = this.users.remove(this.users.size() - 1);
+                return (index == this.users.size()) ? last : this.users.set(index, last);
+            }
+        }
+
+        private void broadcast(@Nonnull String line, @Nullable String tags, @Nullable Connection except, @Nullable Set<Connection> written) {
+            for (Connection member : this.members) {
+                if (member == except) {
+                    continue;
+                }
+                member.write(line, tags);
+                if (written == null) {
+                    member.channel.flush();
+                } else {
+                    written.add(member);
+                }
+            }
+        }
+    }
+
+    private final class Connection extends SimpleChannelInboundHandler<String> {
+        private final Set<ServerChannel> joined = ConcurrentHashMap.newKeySet();
+        private volatile Channel channel;
+        private volatile String nick;
+        private volatile boolean serverTime;
+        private boolean user;
+        private boolean negotiating;
+        private boolean registered;
+        private boolean closing;
+        private double tokens = MockIRCd.this.profile.getFloodBurst();
+        private long refilled = System.nanoTime();
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            this.channel = ctx.channel();
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            this.joined.forEach(serverChannel -> serverChannel.members.remove(this));
+            this.joined.clear();
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, String line) throws Exception {
+            if (this.closing) {
+                return;
+            }
+            if (this.flooding()) {
+                this.closing = true;
+                MockIRCd.this.floodKills.increment();
+                ctx.writeAndFlush("ERROR :Closing Link: " + this.nick() + " (Excess Flood)\r\n");
+                ctx.close();
+                return;
+            }
+            String[] split = line.split(" ", 3);
+            String argument = (split.length > 1) ? split[1] : "";
+            switch (split[0]) {
+                case "CAP":
+                    this.cap(argument, (split.length > 2) ? trailing(split[2]) : "");
+                    break;
+                case "NICK":
+                    this.nick = trailing(argument);
+                    break;
+                case "USER":
+                    this.user = true;
+                    break;
+                case "PING":
+                    this.send(':' + SERVER_NAME + " PONG " + SERVER_NAME + ' ' + line.substring(5));
+                    break;
+                case "JOIN":
+                    for (String name : trailing(argument).split(",")) {
+                        this.join(name);
+                    }
+                    break;
+                case "PART":
+                    for (String name : argument.split(",")) {
+                        this.part(name);
+                    }
+                    break;
+                case "WHO":
+                    this.who(argument);
+                    break;
+                case "NAMES":
+                    this.names(argument);
+                    break;
+                case "MODE":
+                    if ((split.length == 2) && MockIRCd.this.channels.containsKey(argument)) {
+                        this.send(':' + SERVER_NAME + " 324 " + this.nick + ' ' + argument + " +nt");
+                    }
+                    break;
+                case "PRIVMSG":
+                case "NOTICE":
+                    if (split.length > 2) {
+                        this.message(split[0], argument, split[2]);
+                    }
+                    break;
+                case "QUIT":
+                    String quit = ':' + this.mask() + " QUIT :" + ((split.length > 1) ? trailing(line.substring(5)) : "Quit");
+                    Set<Connection> told = new HashSet<>();
+                    this.joined.forEach(serverChannel -> serverChannel.members.stream().filter(member -> (member != this) && told.add(member)).forEach(member -> member.send(quit)));
+                    this.closing = true;
+                    ctx.writeAndFlush("ERROR :Closing Link: " + this.nick() + " (Quit)\r\n");
+                    ctx.close();
+                    break;
+                default:
+            }
+            if (!this.registered && (this.nick != null) && this.user && !this.negotiating) {
+                this.registered = true;
+                this.send(':' + SERVER_NAME + " 001 " + this.nick + " :Welcome to the mock network " + this.nick);
+                this.send(':' + SERVER_NAME + " 002 " + this.nick + " :Your host is " + SERVER_NAME);
+                this.send(':' + SERVER_NAME + " 003 " + this.nick + " :This server was created just now");
+                this.send(':' + SERVER_NAME + " 004 " + this.nick + ' ' + SERVER_NAME + " kicl-mock iosw biklmnopstv");
+                this.send(':' + SERVER_NAME + " 005 " + this.nick + " CHANTYPES=# PREFIX=(ov)@+ CHANMODES=b,k,l,imnpst CASEMAPPING=rfc1459 NICKLEN=30 NETWORK=Mock :are supported by this server");
+                this.send(':' + SERVER_NAME + " 422 " + this.nick + " :MOTD File is missing");
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+            ctx.flush();
+        }
+
+        private boolean flooding() {
+            int rate = MockIRCd.this.profile.getFloodRate();
+            if (rate == 0) {
+                return false;
+            }
+            long now = System.nanoTime();
+            this.tokens = Math.min(MockIRCd.this.profile.getFloodBurst(), this.tokens + (((now - this.refilled) * rate) / 1_000_000_000D));
+            this.refilled = now;
+            if (this.tokens < 1) {
+                return true;
+            }
+            this.tokens--;
+            return false;
+        }
+
+        private void cap(@Nonnull String subCommand, @Nonnull String capabilities) {
+            switch (subCommand) {
+                case "LS":
+                    this.negotiating = true;
+                    this.send(':' + SERVER_NAME + " CAP " + this.nick() + " LS :" + MockIRCd.this.capabilities);
+                    break;
+                case "REQ":
+                    List<String> offered = Arrays.asList(MockIRCd.this.capabilities.split(" "));
+                    boolean acknowledged = true;
+                    for (String capability : capabilities.split(" ")) {
+                        acknowledged &= offered.contains(capability);
+                    }
+                    this.send(':' + SERVER_NAME + " CAP " + this.nick() + (acknowledged ? " ACK :" : " NAK :") + capabilities);
+                    if (acknowledged && Arrays.asList(capabilities.split(" ")).contains(CapabilityManager.Defaults.SERVER_TIME)) {
+                        this.serverTime = true;
+                    }
+                    break;
+                case "END":
+                    this.negotiating = false;
+                    break;
+                default:
+            }
+        }
+
+        private void join(@Nonnull String name) {
+            if (!name.startsWith("#")) {
+                this.send(':' + SERVER_NAME + " 403 " + this.nick + ' ' + name + " :No such channel");
+                return;
+            }
+            ServerChannel serverChannel = MockIRCd.this.channels.computeIfAbsent(name, ServerChannel::new);
+            if (!serverChannel.members.add(this)) {
+                return;
+            }
+            this.joined.add(serverChannel);
+            serverChannel.broadcast(':' + this.mask() + " JOIN " + name, null, this, null);
+            this.send(':' + this.mask() + " JOIN " + name);
+            this.names(name);
+        }
+
+        private void part(@Nonnull String name) {
+            ServerChannel serverChannel = MockIRCd.this.channels.get(name);
+            if ((serverChannel == null) || !serverChannel.members.contains(this)) {
+                this.send(':' + SERVER_NAME + " 442 " + this.nick + ' ' + name + " :You're not on that channel");
+                return;
+            }
+            serverChannel.broadcast(':' + this.mask() + " PART " + name, null, null, null);
+            serverChannel.members.remove(this);
+            this.joined.remove(serverChannel);
+        }
+
+        private void names(@Nonnull String name) {
+            ServerChannel serverChannel = MockIRCd.this.channels.get(name);
+            if (serverChannel != null) {
+                String prefix = ':' + SERVER_NAME + " 353 " + this.nick + " = " + name + " :";
+                StringBuilder builder = new StringBuilder(prefix);
+                List<String> names = new ArrayList<>();
+                serverChannel.members.forEach(member -> names.add(member.nick));
+                synchronized (serverChannel.users) {
+                    names.addAll(serverChannel.users);
+                }
+                for (String nick : names) {
+                    if ((builder.length() + nick.length()) > NAMES_LENGTH) {
+                        this.send(builder.substring(0, builder.length() - 1));
+                        builder.setLength(prefix.length());
+                    }
+                    builder.append(nick).append(' ');
+                }
+                if (builder.length() > prefix.length()) {
+                    this.send(builder.substring(0, builder.length() - 1));
+                }
+            }
+            this.send(':' + SERVER_NAME + " 366 " + this.nick + ' ' + name + " :End of /NAMES list.");
+        }
+
+        private void who(@Nonnull String name) {
+            ServerChannel serverChannel = MockIRCd.this.channels.get(name);
+            if (serverChannel != null) {
+                String prefix = ':' + SERVER_NAME + " 352 " + this.nick + ' ' + name + ' ';
+                serverChannel.members.forEach(member -> this.send(prefix + member.nick + ' ' + CLIENT_HOST + ' ' + SERVER_NAME + ' ' + member.nick + " H :0 " + member.nick));
+                List<String> users;
+                synchronized (serverChannel.users) {
+                    users = new ArrayList<>(serverChannel.users);
+                }
+                users.forEach(user -> this.send(prefix + user + ' ' + USER_HOST + ' ' + SERVER_NAME + ' ' + user + " H :0 Simulated " + user));
+            }
+            this.send(':' + SERVER_NAME + " 315 " + this.nick + ' ' + name + " :End of /WHO list.");
+        }
+
+        private void message(@Nonnull String command, @Nonnull String target, @Nonnull String text) {
+            String line = ':' + this.mask() + ' ' + command + ' ' + target + ' ' + text;
+            ServerChannel serverChannel = MockIRCd.this.channels.get(target);
+            if (serverChannel != null) {
+                serverChannel.broadcast(line, null, this, null);
+                return;
+            }
+            for (Connection connection : MockIRCd.this.connections) {
+                if (target.equals(connection.nick)) {
+                    connection.send(line);
+                    return;
+                }
+            }
+        }
+
+        private void send(@Nonnull String line) {
+            this.write(line, null);
+            this.channel.flush();
+        }
+
+        private void write(@Nonnull String line, @Nullable String tags) {
+            MockIRCd.this.linesSent.increment();
+            this.channel.write(((tags != null) && this.serverTime) ? (tags + line + "\r\n") : (line + "\r\n"));
+        }
+
+        @Nonnull
+        private String nick() {
+            return (this.nick == null) ? "*" : this.nick;
+        }
+
+        @Nonnull
+        private String mask() {
+            return this.nick + '!' + this.nick + '@' + CLIENT_HOST;
+        }
+    }
+
+    private final TrafficProfile profile;
+    private final String capabilities;
+    private final String filler;
+    private final EventLoopGroup group = new DefaultEventLoopGroup(Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+    private final ChannelGroup channelGroup = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, ServerChannel> channels = new ConcurrentHashMap<>();
+    private final List<ServerChannel> trafficChannels = new ArrayList<>();
+    private final AtomicLong userIds = new AtomicLong();
+    private final LongAdder linesSent = new LongAdder();
+    private final LongAdder floodKills = new LongAdder();
+    private final LongAdder netsplits = new LongAdder();
+    private final Random random = new Random(1);
+    private final Channel serverChannel;
+    private ScheduledExecutorService traffic;
+    private long lastTick;
+    private double messageCredit;
+    private double churnCredit;
+    private int nextChannel;
+
+    /**
+     * Starts a server bound to the named local address, with the profile's
+     * channels filled with simulated users.
+     *
+     * @param name local address name, for {@link
+     * Client.Builder#localServer(String)}
+     * @param profile traffic profile
+     * @throws InterruptedException if interrupted while binding
+     */
+    public MockIRCd(@Nonnull String name, @Nonnull TrafficProfile profile) throws InterruptedException {
+        this.profile = profile;
+        this.capabilities = profile.isServerTime() ? ("multi-prefix " + CapabilityManager.Defaults.SERVER_TIME) : "multi-prefix";
+        char[] filler = new char[profile.getMessageLength() - 20];
+        Arrays.fill(filler, 'x');
+        this.filler = new String(filler);
+        for (int i = 0; i < profile.getChannels(); i++) {
+            ServerChannel serverChannel = new ServerChannel(getChannelName(i));
+            for (int u = 0; u < profile.getUsers(); u++) {
+                serverChannel.users.add(this.newUser());
+            }
+            this.channels.put(serverChannel.name, serverChannel);
+            this.trafficChannels.add(serverChannel);
+        }
+        this.serverChannel = new ServerBootstrap()
+                .group(this.group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) throws Exception {
+                        Connection connection = new Connection();
+                        MockIRCd.this.channelGroup.add(channel);
+                        MockIRCd.this.connections.add(connection);
+                        channel.closeFuture().addListener(future -> MockIRCd.this.connections.remove(connection));
+                        channel.pipeline().addLast(new DelimiterBasedFrameDecoder(2048, Unpooled.wrappedBuffer(new byte[]{(byte) '\r', (byte) '\n'})));
+                        channel.pipeline().addLast(new StringDecoder(CharsetUtil.UTF_8));
+                        channel.pipeline().addLast(new StringEncoder(CharsetUtil.UTF_8));
+                        channel.pipeline().addLast(connection);
+                    }
+                })
+                .bind(new LocalAddress(name)).sync().channel();
+    }
+
+    /**
+     * Gets the name of a channel created by the profile.
+     *
+     * @param index channel index, from 0
+     * @return channel name
+     */
+    @Nonnull
+    public static String getChannelName(int index) {
+        return "#load" + index;
+    }
+
+    /**
+     * Starts generating traffic from simulated users.
+     */
+    public synchronized void startTraffic() {
+        if (this.traffic != null) {
+            return;
+        }
+        this.traffic = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MockIRCd Traffic");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lastTick = System.nanoTime();
+        this.traffic.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        int interval = this.profile.getNetsplitInterval();
+        if (interval > 0) {
+            this.traffic.scheduleAtFixedRate(this::netsplit, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stops generating traffic.
+     */
+    public synchronized void stopTraffic() {
+        if (this.traffic != null) {
+            this.traffic.shutdownNow();
+            try {
+                this.traffic.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.traffic = null;
+        }
+    }
+
+    /**
+     * Splits the profile's share of simulated users off every channel, and
+     * brings them back a second later.
+     */
+    public void netsplit() {
+        this.netsplits.increment();
+        Set<Connection> written = new HashSet<>();
+        Map<ServerChannel, List<String>> split = new ConcurrentHashMap<>();
+        for (ServerChannel serverChannel : this.trafficChannels) {
+            int count;
+            synchronized (serverChannel.users) {
+                count = (int) (serverChannel.users.size() * this.profile.getNetsplitFraction());
+            }
+            List<String> lost = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String user = serverChannel.removeRandomUser(this.random);
+                if (user == null) {
+                    break;
+                }
+                lost.add(user);
+                serverChannel.broadcast(':' + getMask(user) + " QUIT :" + SERVER_NAME + ' ' + SPLIT_SERVER_NAME, null, null, written);
+            }
+            split.put(serverChannel, lost);
+        }
+        written.forEach(connection -> connection.channel.flush());
+        Runnable rejoin = () -> {
+            Set<Connection> rejoined = new HashSet<>();
+            split.forEach((serverChannel, users) -> users.forEach(user -> {
+                synchronized (serverChannel.users) {
+                    serverChannel.users.add(user);
+                }
+                serverChannel.broadcast(':' + getMask(user) + " JOIN " + serverChannel.name, null, null, rejoined);
+            }));
+            rejoined.forEach(connection -> connection.channel.flush());
+        };
+        ScheduledExecutorService traffic = this.traffic;
+        if (traffic == null) {
+            rejoin.run();
+        } else {
+            traffic.schedule(rejoin, NETSPLIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Gets the number of clients connected.
+     *
+     * @return connection count
+     */
+    public int getConnectionCount() {
+        return this.connections.size();
+    }
+
+    /**
+     * Gets the number of simulated users currently in a channel.
+     *
+     * @param channel channel name
+     * @return user count, 0 for unknown channels
+     */
+    public int getUserCount(@Nonnull String channel) {
+        ServerChannel serverChannel = this.channels.get(channel);
+        if (serverChannel == null) {
+            return 0;
+        }
+        synchronized (serverChannel.users) {
+            return serverChannel.users.size();
+        }
+    }
+
+    /**
+     * Gets the number of lines written to clients.
+     *
+     * @return lines sent
+     */
+    public long getLinesSent() {
+        return this.linesSent.sum();
+    }
+
+    /**
+     * Gets the number of connections closed for excess flood.
+     *
+     * @return flood kills
+     */
+    public long getFloodKills() {
+        return this.floodKills.sum();
+    }
+
+    /**
+     * Gets the number of netsplits so far.
+     *
+     * @return netsplits
+     */
+    public long getNetsplits() {
+        return this.netsplits.sum();
+    }
+
+    @Override
+    public void close() {
+        this.stopTraffic();
+        this.channelGroup.close().awaitUninterruptibly();
+        this.serverChannel.close().awaitUninterruptibly();
+        this.group.shutdownGracefully();
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        double seconds = (now - this.lastTick) / 1_000_000_000D;
+        this.lastTick = now;
+        this.messageCredit += this.profile.getRate() * seconds;
+        this.churnCredit += this.profile.getChurn() * seconds;
+        int messages = (int) this.messageCredit;
+        int churn = (int) this.churnCredit;
+        this.messageCredit -= messages;
+        this.churnCredit -= churn;
+        String tags = this.profile.isServerTime() ? ("@time=" + SERVER_TIME.format(Instant.now()) + ' ') : null;
+        Set<Connection> written = new HashSet<>();
+        for (int i = 0; i < messages; i++) {
+            ServerChannel serverChannel = this.trafficChannels.get(this.nextChannel++ % this.trafficChannels.size());
+            String user = serverChannel.randomUser(this.random);
+            if (user != null) {
+                serverChannel.broadcast(':' + getMask(user) + " PRIVMSG " + serverChannel.name + " :" + System.nanoTime() + ' ' + this.filler, tags, null, written);
+            }
+        }
+        for (int i = 0; i < churn; i++) {
+            ServerChannel serverChannel = this.trafficChannels.get(this.random.nextInt(this.trafficChannels.size()));
+            String leaving = serverChannel.removeRandomUser(this.random);
+            if (leaving != null) {
+                serverChannel.broadcast(':' + getMask(leaving) + " PART " + serverChannel.name + " :Leaving", tags, null, written);
+            }
+            String joining = this.newUser();
+            synchronized (serverChannel.users) {
+                serverChannel.users.add(joining);
+            }
+            serverChannel.broadcast(':' + getMask(joining) + " JOIN " + serverChannel.name, tags, null, written);
+        }
+        written.forEach(connection -> connection.channel.flush());
+    }
+
+    @Nonnull
+    private String newUser() {
+        return "u" + this.userIds.incrementAndGet();
+    }
+
+    @Nonnull
+    private static String getMask(@Nonnull String user) {
+        return user + '!' + user + '@' + USER_HOST;
+    }
+
+    @Nonnull
+    private static String trailing(@Nonnull String parameter) {
+        return parameter.startsWith(":") ? parameter.substring(1) : parameter;
+    }
+}
@@ -0,0 +1,392 @@
+package org.kitteh.irc.client.library;
+
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Describes the load generated by a {@link MockIRCd} and the clients a load
+ * driver starts against it.
+ * <p>
+ * Profiles can be written as comma separated settings, for example
+ * {@code clients=50,channels=10,users=2000,rate=20000,churn=50}, see
+ * {@link #parse(String)}.
+ */
+public final class TrafficProfile {
+    /**
+     * Builds profiles, starting from a small default.
+     */
+    public static final class Builder {
+        private int clients = 4;
+        private int channels = 2;
+        private int users = 100;
+        private int rate = 1000;
+        private int churn = 10;
+        private int netsplitInterval = 0;
+        private double netsplitFraction = 0.2;
+        private int floodRate = 0;
+        private int floodBurst = 20;
+        private boolean serverTime = false;
+        private int messageLength = 60;
+        private int warmup = 1;
+        private int duration = 5;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the number of clients connected.
+         *
+         * @param clients client count
+         * @return this builder
+         */
+        @Nonnull
+        public Builder clients(int clients) {
+            Sanity.truthiness(clients > 0, "Need at least one client");
+            this.clients = clients;
+            return this;
+        }
+
+        /**
+         * Sets the number of channels, each joined by every client.
+         *
+         * @param channels channel count
+         * @return this builder
+         */
+        @Nonnull
+        public Builder channels(int channels) {
+            Sanity.truthiness(channels > 0, "Need at least one channel");
+            this.channels = channels;
+            return this;
+        }
+
+        /**
+         * Sets the number of simulated users in each channel.
+         *
+         * @param users users per channel
+         * @return this builder
+         */
+        @Nonnull
+        public Builder users(int users) {
+            Sanity.truthiness(users > 0, "Need at least one user per channel");
+            this.users = users;
+            return this;
+        }
+
+        /**
+         * Sets the channel messages sent per second, over all channels.
+         *
+         * @param rate messages per second
+         * @return this builder
+         */
+        @Nonnull
+        public Builder rate(int rate) {
+            Sanity.truthiness(rate >= 0, "Rate cannot be negative");
+            this.rate = rate;
+            return this;
+        }
+
+        /**
+         * Sets the simulated users parting and joining per second, over all
+         * channels.
+         *
+         * @param churn part and join pairs per second
+         * @return this builder
+         */
+        @Nonnull
+        public Builder churn(int churn) {
+            Sanity.truthiness(churn >= 0, "Churn cannot be negative");
+            this.churn = churn;
+            return this;
+        }
+
+        /**
+         * Sets the seconds between netsplits, or 0 for none.
+         *
+         * @param netsplitInterval seconds between netsplits
+         * @return this builder
+         */
+        @Nonnull
+        public Builder netsplitInterval(int netsplitInterval) {
+            Sanity.truthiness(netsplitInterval >= 0, "Netsplit interval cannot be negative");
+            this.netsplitInterval = netsplitInterval;
+            return this;
+        }
+
+        /**
+         * Sets the share of each channel's simulated users lost in a
+         * netsplit.
+         *
+         * @param netsplitFraction fraction between 0 and 1
+         * @return this builder
+         */
+        @Nonnull
+        public Builder netsplitFraction(double netsplitFraction) {
+            Sanity.truthiness((netsplitFraction >= 0) && (netsplitFraction <= 1), "Netsplit fraction must be between 0 and 1");
+            this.netsplitFraction = netsplitFraction;
+            return this;
+        }
+
+        /**
+         * Sets the lines per second a connection may send before being
+         * disconnected for excess flood, or 0 for no limit.
+         *
+         * @param floodRate lines per second
+         * @return this builder
+         */
+        @Nonnull
+        public Builder floodRate(int floodRate) {
+            Sanity.truthiness(floodRate >= 0, "Flood rate cannot be negative");
+            this.floodRate = floodRate;
+            return this;
+        }
+
+        /**
+         * Sets the lines a connection may send in a burst, on top of the
+         * flood rate.
+         *
+         * @param floodBurst burst size
+         * @return this builder
+         */
+        @Nonnull
+        public Builder floodBurst(int floodBurst) {
+            Sanity.truthiness(floodBurst > 0, "Flood burst must be positive");
+            this.floodBurst = floodBurst;
+            return this;
+        }
+
+        /**
+         * Sets if the server offers server-time and tags messages with it.
+         *
+         * @param serverTime true to tag messages
+         * @return this builder
+         */
+        @Nonnull
+        public Builder serverTime(boolean serverTime) {
+            this.serverTime = serverTime;
+            return this;
+        }
+
+        /**
+         * Sets the length of generated message text.
+         *
+         * @param messageLength characters per message
+         * @return this builder
+         */
+        @Nonnull
+        public Builder messageLength(int messageLength) {
+            Sanity.truthiness((messageLength >= 20) && (messageLength <= 400), "Message length must be between 20 and 400");
+            this.messageLength = messageLength;
+            return this;
+        }
+
+        /**
+         * Sets the seconds of traffic before measuring starts.
+         *
+         * @param warmup warmup seconds
+         * @return this builder
+         */
+        @Nonnull
+        public Builder warmup(int warmup) {
+            Sanity.truthiness(warmup >= 0, "Warmup cannot be negative");
+            this.warmup = warmup;
+            return this;
+        }
+
+        /**
+         * Sets the seconds of traffic measured.
+         *
+         * @param duration measured seconds
+         * @return this builder
+         */
+        @Nonnull
+        public Builder duration(int duration) {
+            Sanity.truthiness(duration > 0, "Duration must be positive");
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * Builds the profile.
+         *
+         * @return profile
+         */
+        @Nonnull
+        public TrafficProfile build() {
+            return new TrafficProfile(this);
+        }
+    }
+
+    /**
+     * Creates a builder with the default settings.
+     *
+     * @return builder
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parses comma separated {@code key=value} settings over the defaults.
+     * Keys are the builder method names, for example {@code
+     * clients=50,rate=20000,netsplitInterval=10,serverTime=true}.
+     *
+     * @param settings settings, may be empty
+     * @return profile
+     * @throws IllegalArgumentException for unknown keys or bad values
+     */
+    @Nonnull
+    public static TrafficProfile parse(@Nonnull String settings) {
+        Sanity.nullCheck(settings, "Settings cannot be null");
+        Builder builder = builder();
+        for (String setting : settings.split(",")) {
+            setting = setting.trim();
+            if (setting.isEmpty()) {
+                continue;
+            }
+            int equals = setting.indexOf('=');
+            Sanity.truthiness(equals > 0, "Setting '" + setting + "' is not key=value");
+            String key = setting.substring(0, equals).trim();
+            String value = setting.substring(equals + 1).trim();
+            try {
+                switch (key) {
+                    case "clients":
+                        builder.clients(Integer.parseInt(value));
+                        break;
+                    case "channels":
+                        builder.channels(Integer.parseInt(value));
+                        break;
+                    case "users":
+                        builder.users(Integer.parseInt(value));
+                        break;
+                    case "rate":
+                        builder.rate(Integer.parseInt(value));
+                        break;
+                    case "churn":
+                        builder.churn(Integer.parseInt(value));
+                        break;
+                    case "netsplitInterval":
+                        builder.netsplitInterval(Integer.parseInt(value));
+                        break;
+                    case "netsplitFraction":
+                        builder.netsplitFraction(Double.parseDouble(value));
+                        break;
+                    case "floodRate":
+                        builder.floodRate(Integer.parseInt(value));
+                        break;
+                    case "floodBurst":
+                        builder.floodBurst(Integer.parseInt(value));
+                        break;
+                    case "serverTime":
+                        builder.serverTime(Boolean.parseBoolean(value));
+                        break;
+                    case "messageLength":
+                        builder.messageLength(Integer.parseInt(value));
+                        break;
+                    case "warmup":
+                        builder.warmup(Integer.parseInt(value));
+                        break;
+                    case "duration":
+                        builder.duration(Integer.parseInt(value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown setting '" + key + '\'');
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad value for '" + key + "': " + value, e);
+            }
+        }
+        return builder.build();
+    }
+
+    private final int clients;
+    private final int channels;
+    private final int users;
+    private final int rate;
+    private final int churn;
+    private final int netsplitInterval;
+    private final double netsplitFraction;
+    private final int floodRate;
+    private final int floodBurst;
+    private final boolean serverTime;
+    private final int messageLength;
+    private final int warmup;
+    private final int duration;
+
+    private TrafficProfile(@Nonnull Builder builder) {
+        this.clients = builder.clients;
+        this.channels = builder.channels;
+        this.users = builder.users;
+        this.rate = builder.rate;
+        this.churn = builder.churn;
+        this.netsplitInterval = builder.netsplitInterval;
+        this.netsplitFraction = builder.netsplitFraction;
+        this.floodRate = builder.floodRate;
+        this.floodBurst = builder.floodBurst;
+        this.serverTime = builder.serverTime;
+        this.messageLength = builder.messageLength;
+        this.warmup = builder.warmup;
+        this.duration = builder.duration;
+    }
+
+    public int getClients() {
+        return this.clients;
+    }
+
+    public int getChannels() {
+        return this.channels;
+    }
+
+    public int getUsers() {
+        return this.users;
+    }
+
+    public int getRate() {
+        return this.rate;
+    }
+
+    public int getChurn() {
+        return this.churn;
+    }
+
+    public int getNetsplitInterval() {
+        return this.netsplitInterval;
+    }
+
+    public double getNetsplitFraction() {
+        return this.netsplitFraction;
+    }
+
+    public int getFloodRate() {
+        return this.floodRate;
+    }
+
+    public int getFloodBurst() {
+        return this.floodBurst;
+    }
+
+    public boolean isServerTime() {
+        return this.serverTime;
+    }
+
+    public int getMessageLength() {
+        return this.messageLength;
+    }
+
+    public int getWarmup() {
+        return this.warmup;
+    }
+
+    public int getDuration() {
+        return this.duration;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("clients", this.clients).add("channels", this.channels).add("users", this.users).add("rate", this.rate).add("churn", this.churn)
+                .add("netsplitInterval", this.netsplitInterval).add("floodRate", this.floodRate).add("serverTime", this.serverTime).add("duration", this.duration).toString();
+    }
+}
@@ -0,0 +1,144 @@
+package org.kitteh.irc.client.library.feature.filter;
+
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.bus.config.BusConfiguration;
+import net.engio.mbassy.bus.config.Feature;
+import net.engio.mbassy.bus.config.IBusConfiguration;
+import net.engio.mbassy.bus.error.PublicationError;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.subscription.SubscriptionFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests handlers invoked directly behave as when invoked reflectively.
+ */
+public class FilteringSubscriptionFactoryTest {
+    public static class Message {
+        private final String text;
+
+        public Message(String text) {
+            this.text = text;
+        }
+
+        public String getText() {
+            return this.text;
+        }
+    }
+
+    public static class SubMessage extends Message {
+        public SubMessage(String text) {
+            super(text);
+        }
+    }
+
+    private static class PrivateMessage extends Message {
+        private PrivateMessage(String text) {
+            super(text);
+        }
+    }
+
+    public static class PublicListener {
+        private final List<String> calls;
+
+        public PublicListener(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @Handler(priority = 3)
+        public void message(Message message) {
+            this.calls.add("public:" + message.getText());
+        }
+
+        @Handler(priority = 1)
+        public String sub(SubMessage message) {
+            this.calls.add("sub:" + message.getText());
+            return message.getText();
+        }
+
+        @Handler(priority = 2)
+        public void fail(SubMessage message) {
+            throw new IllegalStateException(message.getText());
+        }
+    }
+
+    private static class HiddenListener {
+        private final List<String> calls;
+
+        private HiddenListener(List<String> calls) {
+            this.calls = calls;
+        }
+
+        void message(PrivateMessage message) {
+            this.calls.add("hidden:" + message.getText());
+        }
+    }
+
+    private static final class Result {
+        private final List<String> calls = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+    }
+
+    private Result run(SubscriptionFactory factory) {
+        Result result = new Result();
+        IBusConfiguration configuration = new BusConfiguration()
+                .addFeature(Feature.SyncPubSub.Default().setSubscriptionFactory(factory))
+                .addFeature(Feature.AsynchronousHandlerInvocation.Default(1, 1))
+                .addFeature(Feature.AsynchronousMessageDispatch.Default())
+                .addPublicationErrorHandler((PublicationError error) -> {
+                    Throwable thrown = error.getCause();
+                    Assert.assertTrue(thrown instanceof InvocationTargetException);
+                    result.errors.add(thrown.getCause().getClass().getSimpleName() + ':' + thrown.getCause().getMessage());
+                });
+        MBassador<Object> bus = new MBassador<>(configuration);
+        bus.subscribe(new PublicListener(result.calls));
+        for (Message message : Arrays.asList(new Message("a"), new SubMessage("b"), new PrivateMessage("c"))) {
+            bus.publish(message);
+        }
+        bus.shutdown();
+        return result;
+    }
+
+    /**
+     * Tests calls, their order and errors match the reflective invocation.
+     */
+    @Test
+    public void testEquivalence() {
+        Result reflective = this.run(new SubscriptionFactory());
+        Result direct = this.run(new FilteringSubscriptionFactory(Collections.emptyMap()));
+        Assert.assertEquals(Arrays.asList("public:a", "public:b", "sub:b", "public:c"), reflective.calls);
+        Assert.assertEquals(reflective.calls, direct.calls);
+        Assert.assertEquals(Collections.singletonList("IllegalStateException:b"), direct.errors);
+        Assert.assertEquals(reflective.errors, direct.errors);
+    }
+
+    /**
+     * Tests the invoker itself, for public and non-public handlers.
+     *
+     * @throws Throwable if the invokers fail
+     */
+    @Test
+    public void testInvoker() throws Throwable {
+        List<String> calls = new ArrayList<>();
+        FilteringSubscriptionFactory.createInvoker(PublicListener.class.getMethod("message", Message.class)).invoke(new PublicListener(calls), new Message("x"));
+        FilteringSubscriptionFactory.createInvoker(HiddenListener.class.getDeclaredMethod("message", PrivateMessage.class)).invoke(new HiddenListener(calls), new PrivateMessage("y"));
+        Assert.assertEquals(Arrays.asList("public:x", "hidden:y"), calls);
+    }
+
+    /**
+     * Tests registering the same handler again reuses its invoker.
+     *
+     * @throws Throwable if the invokers fail
+     */
+    @Test
+    public void testInvokerReused() throws Throwable {
+        Assert.assertSame(FilteringSubscriptionFactory.createInvoker(PublicListener.class.getMethod("message", Message.class)), FilteringSubscriptionFactory.createInvoker(PublicListener.class.getMethod("message", Message.class)));
+        Assert.assertSame(FilteringSubscriptionFactory.createInvoker(HiddenListener.class.getDeclaredMethod("message", PrivateMessage.class)), FilteringSubscriptionFactory.createInvoker(HiddenListener.class.getDeclaredMethod("message", PrivateMessage.class)));
+    }
+}
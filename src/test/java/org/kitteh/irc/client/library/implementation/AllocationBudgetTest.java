@@ -0,0 +1,193 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds handling lines from the server to a budget of bytes allocated per
+ * line, so allocation savings in parsing and snapshots aren't quietly lost.
+ * <p>
+ * Each corpus leaves the client as it found it, and is handled on the test
+ * thread until compiled before its allocations are counted. Budgets leave
+ * some room over the amounts measured when they were set. When a change
+ * allocates less, lower the budget to match.
+ * <p>
+ * Budgets were measured on Temurin 1.8.0_392 with its default collector,
+ * and other JVMs allocate differently, so these only run with the
+ * allocation-budgets profile: {@code mvn test -Pallocation-budgets}.
+ */
+public class AllocationBudgetTest {
+    private static final int WARMUP_ROUNDS = 3000;
+    private static final int MEASURED_ROUNDS = 1000;
+    private static final int MEASUREMENTS = 5;
+    private static final int USERS = 30;
+
+    private static final String[] PRIVMSG = {
+            ":User1!user1@host1.example PRIVMSG #kitteh :meow",
+            ":User2!user2@host2.example PRIVMSG #kitteh :woof woof, has anyone seen the cat?",
+            ":User1!user1@host1.example PRIVMSG #kitteh :no",
+            ":User3!user3@host3.example PRIVMSG Kitteh :psst",
+            ":User4!user4@host4.example PRIVMSG #kitteh :\u0001ACTION purrs\u0001",
+            ":User5!user5@host5.example NOTICE #kitteh :Be nice",
+            ":User6!user6@host6.example PRIVMSG #kitteh :tweet tweet tweet tweet tweet tweet tweet tweet",
+            ":User7!user7@host7.example PRIVMSG #kitteh :purr"
+    };
+
+    private static final String[] NAMES = {
+            ":irc.example 353 Kitteh = #kitteh :@User0 +User1 User2 User3 User4 User5 User6 User7 User8 User9",
+            ":irc.example 353 Kitteh = #kitteh :User10 User11 User12 User13 User14 User15 @User16 User17 User18 User19",
+            ":irc.example 353 Kitteh = #kitteh :User20 User21 User22 +User23 User24 User25 User26 User27 User28 User29",
+            ":irc.example 366 Kitteh #kitteh :End of /NAMES list."
+    };
+
+    private static final String[] MODE = {
+            ":User0!user0@host0.example MODE #kitteh +o User1",
+            ":User0!user0@host0.example MODE #kitteh -o User1",
+            ":User0!user0@host0.example MODE #kitteh +vv User2 User3",
+            ":User0!user0@host0.example MODE #kitteh -vv User2 User3",
+            ":User0!user0@host0.example MODE #kitteh +b *!*@spam.example",
+            ":User0!user0@host0.example MODE #kitteh -b *!*@spam.example",
+            ":User0!user0@host0.example MODE #kitteh +ml 40",
+            ":User0!user0@host0.example MODE #kitteh -ml"
+    };
+
+    private static final String[] TAGGED = {
+            "@time=2016-06-01T12:00:00.000Z :User1!user1@host1.example PRIVMSG #kitteh :meow",
+            "@time=2016-06-01T12:00:00.100Z;account=dog :User2!user2@host2.example PRIVMSG #kitteh :woof woof",
+            "@time=2016-06-01T12:00:00.200Z;msgid=abc123 :User3!user3@host3.example PRIVMSG Kitteh :psst",
+            "@time=2016-06-01T12:00:00.300Z;account=bird :Bird!bird@bird.example JOIN #kitteh",
+            "@time=2016-06-01T12:00:00.400Z;account=bird;msgid=def456 :Bird!bird@bird.example PRIVMSG #kitteh :tweet",
+            "@time=2016-06-01T12:00:00.500Z;account=bird :Bird!bird@bird.example PART #kitteh :flew away"
+    };
+
+    private static final MethodHandle HANDLE_LINE;
+
+    static {
+        try {
+            Method method = IRCClient.class.getDeclaredMethod("handleLine", String.class);
+            method.setAccessible(true);
+            HANDLE_LINE = MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Cannot find IRCClient#handleLine", e);
+        }
+    }
+
+    private final List<Exception> exceptions = Collections.synchronizedList(new ArrayList<>());
+    private com.sun.management.ThreadMXBean threads;
+    private IRCClient client;
+
+    /**
+     * Sets up a client in a channel with some users, which never connects.
+     *
+     * @throws Throwable if handling a line fails
+     */
+    @Before
+    public void before() throws Throwable {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(this.threads.isThreadAllocatedMemorySupported());
+        this.threads.setThreadAllocatedMemoryEnabled(true);
+
+        Config config = new Config();
+        config.set(Config.NAME, "Allocation");
+        config.set(Config.LAUNCHER, new IRCClientLauncher(1, 0)); // Holds replies, never started
+        config.set(Config.LISTENER_EXCEPTION, new Config.ExceptionConsumerWrapper(this.exceptions::add));
+        this.client = new IRCClient(config);
+        handle(this.client, ":Kitteh!kitteh@kitteh.org JOIN #kitteh");
+        for (int i = 0; i < USERS; i++) {
+            handle(this.client, ":User" + i + "!user" + i + "@host" + i + ".example JOIN #kitteh");
+        }
+        this.client.getActorProvider().getTrackedChannel("#kitteh").setListReceived();
+    }
+
+    /**
+     * Shuts down the client.
+     */
+    @After
+    public void after() {
+        if (this.client != null) {
+            this.client.shutdown();
+        }
+    }
+
+    /**
+     * Tests channel and private messages.
+     *
+     * @throws Throwable if handling a line fails
+     */
+    @Test
+    public void testPrivmsg() throws Throwable {
+        this.assertBudget("PRIVMSG", PRIVMSG, 2000);
+    }
+
+    /**
+     * Tests a NAMES reply for a known channel.
+     *
+     * @throws Throwable if handling a line fails
+     */
+    @Test
+    public void testNames() throws Throwable {
+        this.assertBudget("NAMES", NAMES, 9400);
+    }
+
+    /**
+     * Tests channel mode changes.
+     *
+     * @throws Throwable if handling a line fails
+     */
+    @Test
+    public void testMode() throws Throwable {
+        this.assertBudget("MODE", MODE, 34000);
+    }
+
+    /**
+     * Tests lines with message tags.
+     *
+     * @throws Throwable if handling a line fails
+     */
+    @Test
+    public void testTagged() throws Throwable {
+        this.assertBudget("Tagged", TAGGED, 2600);
+    }
+
+    private void assertBudget(String name, String[] corpus, long budget) throws Throwable {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            this.handleAll(corpus);
+        }
+        Thread.sleep(100); // Exceptions are reported on another thread
+        Assert.assertTrue(name + " corpus caused exceptions: " + this.exceptions, this.exceptions.isEmpty());
+
+        long thread = Thread.currentThread().getId();
+        long best = Long.MAX_VALUE;
+        for (int measurement = 0; measurement < MEASUREMENTS; measurement++) {
+            long before = this.threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                this.handleAll(corpus);
+            }
+            long allocated = this.threads.getThreadAllocatedBytes(thread) - before;
+            best = Math.min(best, allocated / (MEASURED_ROUNDS * (long) corpus.length));
+        }
+        Assert.assertTrue(name + " lines allocate " + best + " bytes each, over the budget of " + budget, best <= budget);
+    }
+
+    private void handleAll(String[] corpus) throws Throwable {
+        for (String line : corpus) {
+            handle(this.client, line);
+        }
+    }
+
+    private static void handle(IRCClient client, String line) throws Throwable {
+        HANDLE_LINE.invokeExact(client, line);
+    }
+}
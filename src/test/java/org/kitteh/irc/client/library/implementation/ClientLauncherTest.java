@@ -0,0 +1,93 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.ClientLauncher;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the client launcher.
+ */
+public class ClientLauncherTest {
+    /**
+     * Tests that attempts beyond the concurrency limit wait for a slot.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void concurrencyLimit() throws InterruptedException {
+        IRCClientLauncher launcher = new IRCClientLauncher(1, 0);
+        FakeClient first = new FakeClient();
+        FakeClient second = new FakeClient();
+        CountDownLatch firstAdmitted = new CountDownLatch(1);
+        CountDownLatch secondAdmitted = new CountDownLatch(1);
+
+        launcher.queue(first, firstAdmitted::countDown);
+        launcher.queue(second, secondAdmitted::countDown);
+        Assert.assertTrue(firstAdmitted.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(secondAdmitted.await(100, TimeUnit.MILLISECONDS));
+
+        ClientLauncher.Progress progress = launcher.getProgress();
+        Assert.assertEquals(2, progress.getTotal());
+        Assert.assertEquals(1, progress.getQueued());
+        Assert.assertEquals(1, progress.getConnecting());
+
+        launcher.release(first, true);
+        Assert.assertTrue(secondAdmitted.await(5, TimeUnit.SECONDS));
+        launcher.release(second, false);
+
+        Assert.assertTrue(launcher.awaitStartup(5, TimeUnit.SECONDS));
+        progress = launcher.getProgress();
+        Assert.assertEquals(1, progress.getRegistered());
+        Assert.assertEquals(1, progress.getFailedAttempts());
+    }
+
+    /**
+     * Tests that attempts to one server are spaced by the connect delay.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void connectDelay() throws InterruptedException {
+        IRCClientLauncher launcher = new IRCClientLauncher(2, 300);
+        CountDownLatch firstAdmitted = new CountDownLatch(1);
+        CountDownLatch secondAdmitted = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        launcher.queue(new FakeClient(), firstAdmitted::countDown);
+        launcher.queue(new FakeClient(), secondAdmitted::countDown);
+        Assert.assertTrue(firstAdmitted.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(secondAdmitted.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 300);
+    }
+
+    /**
+     * Tests that reconnecting clients no longer count as registered, and
+     * that clients shutting down are forgotten.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void forgetClients() throws InterruptedException {
+        IRCClientLauncher launcher = new IRCClientLauncher(1, 0);
+        FakeClient client = new FakeClient();
+        CountDownLatch admitted = new CountDownLatch(2);
+
+        launcher.queue(client, admitted::countDown);
+        launcher.release(client, true);
+        Assert.assertEquals(1, launcher.getProgress().getRegistered());
+
+        launcher.queue(client, admitted::countDown);
+        Assert.assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, launcher.getProgress().getRegistered());
+        Assert.assertEquals(1, launcher.getProgress().getConnecting());
+
+        launcher.release(client, true);
+        launcher.cancel(client);
+        ClientLauncher.Progress progress = launcher.getProgress();
+        Assert.assertEquals(0, progress.getTotal());
+        Assert.assertEquals(0, progress.getRegistered());
+    }
+}
@@ -0,0 +1,121 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.feature.BatchHandler;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests batch handlers.
+ */
+public class EventBatcherTest {
+    public static class Event {
+        private final int number;
+
+        public Event(int number) {
+            this.number = number;
+        }
+    }
+
+    public static class Recorder {
+        private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        private final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+
+        @BatchHandler(maxSize = 3, maxDelay = 50)
+        public void batch(List<Event> events) {
+            List<Integer> numbers = new ArrayList<>();
+            events.forEach(event -> numbers.add(event.number));
+            this.batches.add(numbers);
+            this.threads.add(Thread.currentThread());
+        }
+    }
+
+    public static class Slow {
+        private final List<List<Event>> batches = new ArrayList<>();
+
+        @BatchHandler(maxSize = 2, maxDelay = 60000)
+        public void batch(List<Event> events) {
+            this.batches.add(events);
+        }
+    }
+
+    public static class Invalid {
+        @BatchHandler
+        public void batch(Event event) {
+        }
+    }
+
+    private ManagerEvent eventManager;
+
+    /**
+     * Sets up a manager.
+     */
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        InternalClient client = Mockito.mock(InternalClient.class);
+        Mockito.when(client.getName()).thenReturn("Test");
+        Mockito.when(client.getExceptionListener()).thenReturn(Mockito.mock(Listener.class));
+        this.eventManager = new ManagerEvent(client);
+    }
+
+    /**
+     * Tests a full batch is delivered without waiting for the delay, and
+     * the remainder after it, neither on the firing thread.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testSizeAndDelay() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        this.eventManager.registerEventListener(recorder);
+        Assert.assertTrue(this.eventManager.hasSubscribers(Event.class));
+        this.fire(1, 2, 3, 4);
+        long waitUntil = System.currentTimeMillis() + 5000;
+        while ((recorder.batches.size() < 2) && (System.currentTimeMillis() < waitUntil)) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Collections.singletonList(4)), recorder.batches);
+        Assert.assertFalse(recorder.threads.contains(Thread.currentThread()));
+    }
+
+    /**
+     * Tests unregistering and shutting down deliver what is batched.
+     */
+    @Test
+    public void testFlush() {
+        Slow first = new Slow();
+        Slow second = new Slow();
+        this.eventManager.registerEventListener(first);
+        this.eventManager.registerEventListener(second);
+        this.fire(1);
+        this.eventManager.unregisterEventListener(first);
+        Assert.assertEquals(1, first.batches.size());
+        Assert.assertTrue(second.batches.isEmpty());
+        this.eventManager.shutdown();
+        Assert.assertEquals(1, second.batches.size());
+        this.fire(2);
+        Assert.assertEquals(1, first.batches.size());
+    }
+
+    /**
+     * Tests batch handlers must take a list.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalid() {
+        this.eventManager.registerEventListener(new Invalid());
+    }
+
+    private void fire(int... numbers) {
+        for (int number : numbers) {
+            this.eventManager.callEvent(new Event(number));
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.element.ServerMessage;
+import org.kitteh.irc.client.library.event.helper.ChannelEvent;
+import org.kitteh.irc.client.library.feature.CaseMapping;
+import org.mockito.Mockito;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests event dispatch lanes.
+ */
+public class EventLanesTest {
+    private static final class NumberedEvent implements ChannelEvent {
+        private final Channel channel;
+        private final int number;
+
+        private NumberedEvent(Channel channel, int number) {
+            this.channel = channel;
+            this.number = number;
+        }
+
+        @Nonnull
+        @Override
+        public Channel getChannel() {
+            return this.channel;
+        }
+
+        @Nonnull
+        @Override
+        public List<ServerMessage> getOriginalMessages() {
+            return Collections.emptyList();
+        }
+
+        @Nonnull
+        @Override
+        public Client getClient() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private InternalClient client() {
+        InternalClient client = Mockito.mock(InternalClient.class);
+        IRCServerInfo serverInfo = Mockito.mock(IRCServerInfo.class);
+        Mockito.when(client.getName()).thenReturn("Test");
+        Mockito.when(client.getServerInfo()).thenReturn(serverInfo);
+        Mockito.when(serverInfo.getCaseMapping()).thenReturn(CaseMapping.ASCII);
+        return client;
+    }
+
+    private Channel channel(String name) {
+        Channel channel = Mockito.mock(Channel.class);
+        Mockito.when(channel.getName()).thenReturn(name);
+        return channel;
+    }
+
+    /**
+     * Tests each channel keeps its order and its lane.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testOrder() throws InterruptedException {
+        String[] names = {"#kitteh", "#KITTEH", "#cats", "#dogs", "#birds"};
+        Channel[] channels = new Channel[names.length];
+        for (int i = 0; i < names.length; i++) {
+            channels[i] = this.channel(names[i]);
+        }
+        int total = 5000;
+        CountDownLatch done = new CountDownLatch(total);
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        Map<String, Thread> threads = new ConcurrentHashMap<>();
+        List<String> problems = Collections.synchronizedList(new ArrayList<>());
+        EventLanes lanes = new EventLanes(this.client(), object -> {
+            NumberedEvent event = (NumberedEvent) object;
+            String name = event.getChannel().getName().toLowerCase();
+            seen.computeIfAbsent(name, k -> new ArrayList<>()).add(event.number);
+            if (threads.computeIfAbsent(name, k -> Thread.currentThread()) != Thread.currentThread()) {
+                problems.add(name + " changed lanes");
+            }
+            done.countDown();
+        }, 3, 16, null);
+        for (int i = 0; i < total; i++) {
+            lanes.queue(new NumberedEvent(channels[i % channels.length], i));
+        }
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        lanes.shutdown();
+        Assert.assertEquals(Collections.emptyList(), problems);
+        Assert.assertEquals(4, seen.size());
+        for (List<Integer> numbers : seen.values()) {
+            for (int i = 1; i < numbers.size(); i++) {
+                Assert.assertTrue(numbers.get(i - 1) < numbers.get(i));
+            }
+        }
+        long dispatched = 0;
+        for (int lane = 0; lane < lanes.getLaneCount(); lane++) {
+            dispatched += lanes.getDispatched(lane);
+        }
+        Assert.assertEquals(total, dispatched);
+    }
+
+    /**
+     * Tests a full lane is counted as saturated.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testSaturation() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        EventLanes lanes = new EventLanes(this.client(), object -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            done.countDown();
+        }, 1, 1, null);
+        Channel channel = this.channel("#kitteh");
+        lanes.queue(new NumberedEvent(channel, 0)); // Taken by the lane, which then waits
+        while (lanes.getQueued(0) > 0) {
+            Thread.sleep(1);
+        }
+        lanes.queue(new NumberedEvent(channel, 1)); // Fills the lane
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+            release.countDown();
+        });
+        releaser.start();
+        lanes.queue(new NumberedEvent(channel, 2)); // Waits for room
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, lanes.getSaturations(0));
+        lanes.shutdown();
+    }
+
+    /**
+     * Tests an event dropped by an interrupted producer is reported, and
+     * events after shutdown are still dispatched.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testInterruptedAndShutdown() throws InterruptedException {
+        InternalClient client = this.client();
+        Listener<Exception> exceptions = Mockito.mock(Listener.class);
+        Mockito.when(client.getExceptionListener()).thenReturn(exceptions);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> dispatched = Collections.synchronizedList(new ArrayList<>());
+        EventLanes lanes = new EventLanes(client, object -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            dispatched.add(((NumberedEvent) object).number);
+        }, 1, 1, null);
+        Channel channel = this.channel("#kitteh");
+        lanes.queue(new NumberedEvent(channel, 0)); // Taken by the lane, which then waits
+        while (lanes.getQueued(0) > 0) {
+            Thread.sleep(1);
+        }
+        lanes.queue(new NumberedEvent(channel, 1)); // Fills the lane
+        Thread.currentThread().interrupt();
+        lanes.queue(new NumberedEvent(channel, 2)); // Dropped
+        Assert.assertTrue(Thread.interrupted());
+        Mockito.verify(exceptions).queue(Mockito.any(Exception.class));
+
+        lanes.shutdown();
+        release.countDown();
+        lanes.queue(new NumberedEvent(channel, 3)); // Dispatched here
+        long waitUntil = System.currentTimeMillis() + 5000;
+        while ((dispatched.size() < 3) && (System.currentTimeMillis() < waitUntil)) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(dispatched.containsAll(Arrays.asList(0, 1, 3)));
+        Assert.assertFalse(dispatched.contains(2));
+    }
+
+    /**
+     * Tests shutting down releases a caller waiting on a full lane, which
+     * then dispatches its event itself, and that nothing queued is lost.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testShutdownWhileFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> dispatched = Collections.synchronizedList(new ArrayList<>());
+        EventLanes lanes = new EventLanes(this.client(), object -> {
+            if (((NumberedEvent) object).number == 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+            dispatched.add(((NumberedEvent) object).number);
+        }, 1, 1, null);
+        Channel channel = this.channel("#kitteh");
+        lanes.queue(new NumberedEvent(channel, 0)); // Taken by the lane, which then waits
+        while (lanes.getQueued(0) > 0) {
+            Thread.sleep(1);
+        }
+        lanes.queue(new NumberedEvent(channel, 1)); // Fills the lane
+        Thread waiting = new Thread(() -> lanes.queue(new NumberedEvent(channel, 2))); // Waits for room
+        waiting.start();
+        while (lanes.getSaturations(0) == 0) {
+            Thread.sleep(1);
+        }
+        lanes.shutdown();
+        waiting.join(5000);
+        Assert.assertFalse("Still waiting after shutdown", waiting.isAlive());
+        Assert.assertEquals(Collections.singletonList(2), dispatched);
+        release.countDown();
+        long waitUntil = System.currentTimeMillis() + 5000;
+        while ((dispatched.size() < 3) && (System.currentTimeMillis() < waitUntil)) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(dispatched.containsAll(Arrays.asList(0, 1, 2)));
+    }
+}
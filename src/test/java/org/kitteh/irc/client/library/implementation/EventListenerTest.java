@@ -14,6 +14,8 @@ import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Function;
@@ -36,6 +38,7 @@ public class EventListenerTest {
         this.client = Mockito.mock(InternalClient.class);
         this.actorProvider = new ActorProvider(this.client);
         this.eventManager = Mockito.spy(new ManagerEvent(this.client));
+        Mockito.doReturn(true).when(this.eventManager).hasSubscribers(Mockito.any());
         this.eventManager.registerEventListener(new EventListener(this.client));
         this.exceptionListener = Mockito.mock(Listener.class);
         this.serverInfo = Mockito.mock(IRCServerInfo.class);
@@ -185,6 +188,42 @@ public class EventListenerTest {
         Mockito.verify(this.exceptionListener, Mockito.times(1)).queue(Mockito.argThat(this.exception(KittehServerMessageException.class, "Server address and version missing.")));
     }
 
+    /**
+     * Tests that a speculative capability request is not repeated after
+     * CAP LS and holds off CAP END until answered.
+     */
+    @Test
+    public void testCapPipelined() {
+        ManagerCapability capabilityManager = new ManagerCapability(this.client);
+        Mockito.when(this.client.getCapabilityManager()).thenReturn(capabilityManager);
+        capabilityManager.setSpeculativeRequests(Collections.singletonList("account-notify"));
+        this.fireLine(":irc.network CAP * LS :account-notify multi-prefix");
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLineImmediately("CAP REQ :multi-prefix ");
+        Mockito.verify(this.client, Mockito.times(0)).sendRawLineImmediately("CAP END");
+        this.fireLine(":irc.network CAP * ACK :account-notify");
+        Mockito.verify(this.client, Mockito.times(0)).sendRawLineImmediately("CAP END");
+        this.fireLine(":irc.network CAP * ACK :multi-prefix");
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLineImmediately("CAP END");
+    }
+
+    /**
+     * Tests that a rejected speculative capability request is repeated for
+     * the supported capabilities.
+     */
+    @Test
+    public void testCapPipelinedRejected() {
+        ManagerCapability capabilityManager = new ManagerCapability(this.client);
+        Mockito.when(this.client.getCapabilityManager()).thenReturn(capabilityManager);
+        capabilityManager.setSpeculativeRequests(Arrays.asList("account-notify", "cat-notify"));
+        this.fireLine(":irc.network CAP * LS :account-notify");
+        Mockito.verify(this.client, Mockito.times(0)).sendRawLineImmediately(Mockito.startsWith("CAP REQ"));
+        this.fireLine(":irc.network CAP * NAK :account-notify cat-notify");
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLineImmediately("CAP REQ :account-notify ");
+        Mockito.verify(this.client, Mockito.times(0)).sendRawLineImmediately("CAP END");
+        this.fireLine(":irc.network CAP * ACK :account-notify");
+        Mockito.verify(this.client, Mockito.times(1)).sendRawLineImmediately("CAP END");
+    }
+
     @Test
     public void test5ISUPPORT() {
         this.fireLine(":irc.network 005 Kitteh SAFELIST ELIST=CTU CHANTYPES=# EXCEPTS INVEX");
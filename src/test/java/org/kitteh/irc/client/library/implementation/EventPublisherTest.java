@@ -0,0 +1,171 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.exception.KittehEventException;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.util.Flow;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests event publishers.
+ */
+public class EventPublisherTest {
+    public static class Event {
+        private final int number;
+
+        public Event(int number) {
+            this.number = number;
+        }
+    }
+
+    private static class Collector implements Flow.Subscriber<Event> {
+        private final List<Integer> received = new CopyOnWriteArrayList<>();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Event item) {
+            this.received.add(item.number);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+            this.finished.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.finished.countDown();
+        }
+
+        private void await() throws InterruptedException {
+            Assert.assertTrue(this.finished.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private ManagerEvent eventManager;
+
+    /**
+     * Sets up a manager.
+     */
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        InternalClient client = Mockito.mock(InternalClient.class);
+        Mockito.when(client.getName()).thenReturn("Test");
+        Mockito.when(client.getExceptionListener()).thenReturn(Mockito.mock(Listener.class));
+        this.eventManager = new ManagerEvent(client);
+    }
+
+    /**
+     * Tests nothing is delivered beyond demand, and buffered events arrive
+     * before completion.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testDemand() throws InterruptedException {
+        Collector collector = this.subscribe(10, EventManager.Overflow.ERROR);
+        Assert.assertTrue(this.eventManager.hasSubscribers(Event.class));
+        this.fire(1, 2, 3);
+        collector.subscription.request(2);
+        this.eventManager.shutdown();
+        Thread.sleep(100);
+        Assert.assertEquals(2, collector.received.size());
+        Assert.assertEquals(1L, collector.finished.getCount());
+
+        collector.subscription.request(Long.MAX_VALUE);
+        collector.await();
+        Assert.assertEquals(Arrays.asList(1, 2, 3), collector.received);
+        Assert.assertNull(collector.error);
+        Assert.assertFalse(this.eventManager.hasSubscribers(Event.class));
+    }
+
+    /**
+     * Tests the oldest events are dropped from a full buffer.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        Collector collector = this.subscribe(2, EventManager.Overflow.DROP_OLDEST);
+        this.fire(1, 2, 3, 4);
+        this.eventManager.shutdown();
+        collector.subscription.request(Long.MAX_VALUE);
+        collector.await();
+        Assert.assertEquals(Arrays.asList(3, 4), collector.received);
+    }
+
+    /**
+     * Tests only the latest event is kept.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testLatest() throws InterruptedException {
+        Collector collector = this.subscribe(10, EventManager.Overflow.LATEST);
+        this.fire(1, 2, 3);
+        this.eventManager.shutdown();
+        collector.subscription.request(Long.MAX_VALUE);
+        collector.await();
+        Assert.assertEquals(Collections.singletonList(3), collector.received);
+    }
+
+    /**
+     * Tests falling too far behind ends the subscription with an error
+     * rather than holding up the firing thread.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test(timeout = 5000)
+    public void testOverflowError() throws InterruptedException {
+        Collector collector = this.subscribe(2, EventManager.Overflow.ERROR);
+        this.fire(1, 2, 3);
+        collector.await();
+        Assert.assertTrue(collector.error instanceof KittehEventException);
+        Assert.assertTrue(collector.received.isEmpty());
+        Assert.assertFalse(this.eventManager.hasSubscribers(Event.class));
+    }
+
+    /**
+     * Tests a non-positive request ends the subscription with an error.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testBadRequest() throws InterruptedException {
+        Collector collector = this.subscribe(10, EventManager.Overflow.ERROR);
+        collector.subscription.request(0);
+        collector.await();
+        Assert.assertTrue(collector.error instanceof IllegalArgumentException);
+        Assert.assertFalse(this.eventManager.hasSubscribers(Event.class));
+    }
+
+    private Collector subscribe(int bufferSize, EventManager.Overflow overflow) {
+        Collector collector = new Collector();
+        this.eventManager.getPublisher(Event.class, bufferSize, overflow).subscribe(collector);
+        return collector;
+    }
+
+    private void fire(int... numbers) {
+        for (int number : numbers) {
+            this.eventManager.callEvent(new Event(number));
+        }
+    }
+}
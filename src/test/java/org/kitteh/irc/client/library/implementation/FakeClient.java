@@ -7,11 +7,14 @@ import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.element.mode.UserMode;
 import org.kitteh.irc.client.library.feature.AuthManager;
 import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.Latency;
+import org.kitteh.irc.client.library.util.CaptureLog;
 import org.kitteh.irc.client.library.util.Cutter;
 import org.kitteh.irc.client.library.util.Pair;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.File;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Optional;
@@ -23,16 +26,22 @@ class FakeClient extends InternalClient {
     private final ManagerCapability capabilityManager = new ManagerCapability(this);
     private final Config config = new Config();
     private final EventManager eventManager = new ManagerEvent(this);
-    private final Listener<Exception> listenerException = new Listener<>("Test", null);
-    private final Listener<String> listenerInput = new Listener<>("Test", null);
-    private final Listener<String> listenerOutput = new Listener<>("Test", null);
+    private final Listener<Exception> listenerException = new Listener<>("Test", null, Runnable::run);
+    private final Listener<String> listenerInput = new Listener<>("Test", null, Runnable::run);
+    private final Listener<String> listenerOutput = new Listener<>("Test", null, Runnable::run);
     private Cutter messageCutter = new Cutter.DefaultWordCutter();
     private final ManagerMessageTag messageTagManager = new ManagerMessageTag(this);
+    private final IRCClientMetrics metrics = new IRCClientMetrics(this, false);
     private final IRCServerInfo serverInfo = new IRCServerInfo(this);
 
     @Override
-    void processLine(@Nonnull String line) {
+    long processLine(@Nonnull String line) {
+        return 0;
+    }
 
+    @Override
+    long getProcessingLine() {
+        return 0;
     }
 
     @Override
@@ -65,6 +74,12 @@ class FakeClient extends InternalClient {
 
     }
 
+    @Nullable
+    @Override
+    CaptureLog.Writer getCaptureLog() {
+        return null;
+    }
+
     @Nonnull
     @Override
     Config getConfig() {
@@ -200,6 +215,12 @@ class FakeClient extends InternalClient {
         return this.config.getNotNull(Config.NICK);
     }
 
+    @Nonnull
+    @Override
+    public Latency getLatency() {
+        return new PingTracker().getLatency();
+    }
+
     @Override
     public int getMessageDelay() {
         return 0;
@@ -216,6 +237,12 @@ class FakeClient extends InternalClient {
         return this.messageTagManager;
     }
 
+    @Nonnull
+    @Override
+    public IRCClientMetrics getMetrics() {
+        return this.metrics;
+    }
+
     @Nonnull
     @Override
     public String getName() {
@@ -266,6 +293,11 @@ class FakeClient extends InternalClient {
 
     }
 
+    @Override
+    public long replay(@Nonnull File log, boolean realTime) {
+        return 0;
+    }
+
     @Override
     public void sendCTCPMessage(@Nonnull String target, @Nonnull String message) {
 
@@ -0,0 +1,68 @@
+package org.kitteh.irc.client.library.implementation;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tests the Flight Recorder events.
+ */
+public class FlightEventsTest {
+    /**
+     * Tests commands are found past tags and prefixes.
+     */
+    @Test
+    public void testCommand() {
+        Assert.assertEquals("PRIVMSG", FlightEvents.command("PRIVMSG #kitteh :meow"));
+        Assert.assertEquals("001", FlightEvents.command(":irc.kitteh.org 001 Kitteh :Welcome"));
+        Assert.assertEquals("PRIVMSG", FlightEvents.command("@time=2016-01-01T00:00:00.000Z :Cat!cat@local PRIVMSG #kitteh :meow"));
+        Assert.assertEquals("PING", FlightEvents.command("PING"));
+        Assert.assertEquals("", FlightEvents.command(":prefix"));
+        Assert.assertEquals("", FlightEvents.command("@tags"));
+    }
+
+    /**
+     * Tests events are recorded while a recording is running.
+     *
+     * @throws IOException if the recording cannot be written
+     */
+    @Test
+    public void testRecording() throws IOException {
+        InternalClient client = Mockito.mock(InternalClient.class);
+        Mockito.when(client.getName()).thenReturn("Flight");
+        Mockito.when(client.getProcessingLine()).thenReturn(7L);
+        ManagerEvent manager = new ManagerEvent(client);
+        Path file = Files.createTempFile("kicl", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.kitteh.irc.EventDispatched").withoutThreshold();
+            recording.enable("org.kitteh.irc.LineQueued");
+            recording.start();
+            manager.callEvent("meow");
+            Flight.queued(client, ":Kitteh PRIVMSG #kitteh :purr", true);
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            List<RecordedEvent> dispatched = events.stream().filter(event -> event.getEventType().getName().equals("org.kitteh.irc.EventDispatched")).collect(Collectors.toList());
+            Assert.assertEquals(1, dispatched.size());
+            Assert.assertEquals("Flight", dispatched.get(0).getString("client"));
+            Assert.assertEquals(String.class.getName(), dispatched.get(0).getString("eventType"));
+            Assert.assertEquals(7L, dispatched.get(0).getLong("line"));
+            List<RecordedEvent> queued = events.stream().filter(event -> event.getEventType().getName().equals("org.kitteh.irc.LineQueued")).collect(Collectors.toList());
+            Assert.assertEquals(1, queued.size());
+            Assert.assertEquals("PRIVMSG", queued.get(0).getString("command"));
+            Assert.assertTrue(queued.get(0).getBoolean("immediate"));
+        } finally {
+            Files.deleteIfExists(file);
+            manager.shutdown();
+        }
+    }
+}
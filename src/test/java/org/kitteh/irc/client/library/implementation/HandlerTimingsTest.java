@@ -0,0 +1,129 @@
+package org.kitteh.irc.client.library.implementation;
+
+import net.engio.mbassy.listener.Handler;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.event.client.SlowHandlerEvent;
+import org.kitteh.irc.client.library.exception.KittehEventException;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.HandlerStats;
+import org.mockito.Mockito;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests handler timing.
+ */
+public class HandlerTimingsTest {
+    public static class Event {
+    }
+
+    public static class Timed {
+        private final List<SlowHandlerEvent> slow = new ArrayList<>();
+
+        @Handler
+        public void fast(Event event) {
+        }
+
+        @Handler
+        public void slow(Event event) throws InterruptedException {
+            Thread.sleep(20);
+        }
+
+        @Handler
+        public void slowReport(SlowHandlerEvent event) {
+            this.slow.add(event);
+        }
+    }
+
+    public static class Sleepy {
+        @Handler
+        public void slow(Event event) throws InterruptedException {
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Tests timing with MBassador.
+     *
+     * @throws NoSuchMethodException if the test is broken
+     */
+    @Test
+    public void testMBassador() throws NoSuchMethodException {
+        this.testTimings(EventManager.Bus.MBASSADOR);
+    }
+
+    /**
+     * Tests timing with the native bus.
+     *
+     * @throws NoSuchMethodException if the test is broken
+     */
+    @Test
+    public void testNative() throws NoSuchMethodException {
+        this.testTimings(EventManager.Bus.NATIVE);
+    }
+
+    /**
+     * Tests slow handlers are reported as exceptions when nothing listens
+     * for the event.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExceptionReport() {
+        Listener<Exception> exceptions = Mockito.mock(Listener.class);
+        ManagerEvent manager = this.manager(EventManager.Bus.MBASSADOR, exceptions);
+        manager.registerEventListener(new Sleepy());
+        manager.callEvent(new Event());
+        Mockito.verify(exceptions).queue(Mockito.any(KittehEventException.class));
+        manager.shutdown();
+    }
+
+    /**
+     * Tests handlers are not timed by default.
+     */
+    @Test
+    public void testDisabled() {
+        InternalClient client = Mockito.mock(InternalClient.class);
+        Mockito.when(client.getName()).thenReturn("Test");
+        ManagerEvent manager = new ManagerEvent(client);
+        manager.registerEventListener(new Sleepy());
+        manager.callEvent(new Event());
+        Assert.assertTrue(manager.getHandlerStats().isEmpty());
+        manager.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void testTimings(EventManager.Bus bus) throws NoSuchMethodException {
+        ManagerEvent manager = this.manager(bus, Mockito.mock(Listener.class));
+        Timed timed = new Timed();
+        manager.registerEventListener(timed);
+        manager.callEvent(new Event());
+        manager.callEvent(new Event());
+
+        Assert.assertEquals(2, timed.slow.size());
+        Assert.assertEquals(Timed.class.getMethod("slow", Event.class), timed.slow.get(0).getHandler());
+        Assert.assertTrue(timed.slow.get(0).getDuration() >= 20000000L);
+
+        List<HandlerStats> stats = manager.getHandlerStats();
+        Assert.assertEquals(3, stats.size());
+        Assert.assertEquals(Timed.class.getMethod("slow", Event.class), stats.get(0).getMethod());
+        Assert.assertEquals(2, stats.get(0).getInvocations());
+        Assert.assertEquals(2, stats.get(0).getSlowInvocations());
+        Method fast = Timed.class.getMethod("fast", Event.class);
+        Assert.assertEquals(2, stats.stream().filter(handler -> handler.getMethod().equals(fast)).findFirst().get().getLatency().getCount());
+        manager.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ManagerEvent manager(EventManager.Bus bus, Listener<Exception> exceptions) {
+        InternalClient client = Mockito.mock(InternalClient.class);
+        Mockito.when(client.getName()).thenReturn("Test");
+        Mockito.when(client.getExceptionListener()).thenReturn(exceptions);
+        Config config = new Config();
+        config.set(Config.EVENT_BUS, bus);
+        config.set(Config.HANDLER_TIMING, 10);
+        return new ManagerEvent(client, config);
+    }
+}
@@ -308,7 +308,7 @@ public class ISupportManagerTest {
 
     private ManagerISupport getManager() {
         InternalClient client = Mockito.mock(InternalClient.class);
-        Mockito.when(client.getExceptionListener()).thenReturn(new Listener<>("Client", null));
+        Mockito.when(client.getExceptionListener()).thenReturn(new Listener<>("Client", null, Runnable::run));
         return new ManagerISupport(client);
     }
 }
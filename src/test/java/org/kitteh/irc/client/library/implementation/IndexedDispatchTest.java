@@ -0,0 +1,114 @@
+package org.kitteh.irc.client.library.implementation;
+
+import net.engio.mbassy.listener.Handler;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.element.Actor;
+import org.kitteh.irc.client.library.element.ServerMessage;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.filter.CommandFilter;
+import org.kitteh.irc.client.library.feature.filter.NumericFilter;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests numeric and command events reach only their matching handlers.
+ */
+public class IndexedDispatchTest {
+    public static class Listener {
+        private final List<String> calls = new ArrayList<>();
+
+        @Handler(priority = 1)
+        public void first(ClientReceiveNumericEvent event) {
+            this.calls.add("first");
+        }
+
+        @NumericFilter(1)
+        @NumericFilter(5)
+        @Handler
+        public void welcome(ClientReceiveNumericEvent event) {
+            this.calls.add("welcome");
+        }
+
+        @NumericFilter(433)
+        @Handler
+        public void nickInUse(ClientReceiveNumericEvent event) {
+            this.calls.add("nickInUse");
+        }
+
+        @Handler(priority = -1)
+        public void last(ClientReceiveNumericEvent event) {
+            this.calls.add("last");
+        }
+
+        @CommandFilter("privmsg")
+        @Handler
+        public void privmsg(ClientReceiveCommandEvent event) {
+            this.calls.add("privmsg");
+        }
+    }
+
+    /**
+     * Tests filtered handlers are only called for their keys, in priority
+     * order with unfiltered handlers.
+     */
+    @Test
+    public void testDispatch() {
+        FakeClient client = new FakeClient();
+        EventManager manager = client.getEventManager();
+        Listener listener = new Listener();
+        manager.registerEventListener(listener);
+
+        manager.callEvent(this.numeric(client, 5));
+        Assert.assertEquals(Arrays.asList("first", "welcome", "last"), listener.calls);
+
+        listener.calls.clear();
+        manager.callEvent(this.numeric(client, 372));
+        Assert.assertEquals(Arrays.asList("first", "last"), listener.calls);
+
+        listener.calls.clear();
+        manager.callEvent(this.command(client, "PRIVMSG"));
+        manager.callEvent(this.command(client, "NOTICE"));
+        Assert.assertEquals(Collections.singletonList("privmsg"), listener.calls);
+
+        listener.calls.clear();
+        manager.unregisterEventListener(listener);
+        manager.callEvent(this.numeric(client, 5));
+        Assert.assertTrue(listener.calls.isEmpty());
+    }
+
+    /**
+     * Tests subscriber queries follow registration.
+     */
+    @Test
+    public void testHasSubscribers() {
+        EventManager manager = new FakeClient().getEventManager();
+        Assert.assertFalse(manager.hasSubscribers(ClientReceiveCommandEvent.class));
+        Listener listener = new Listener();
+        manager.registerEventListener(listener);
+        Assert.assertTrue(manager.hasSubscribers(ClientReceiveCommandEvent.class));
+        Assert.assertFalse(manager.hasSubscribers(String.class));
+        manager.unregisterEventListener(listener);
+        Assert.assertFalse(manager.hasSubscribers(ClientReceiveCommandEvent.class));
+    }
+
+    private Actor server(FakeClient client) {
+        Actor server = Mockito.mock(Actor.class);
+        Mockito.when(server.getClient()).thenReturn(client);
+        return server;
+    }
+
+    private ClientReceiveNumericEvent numeric(FakeClient client, int numeric) {
+        return new ClientReceiveNumericEvent(client, Mockito.mock(ServerMessage.class), this.server(client), String.format("%03d", numeric), numeric, Collections.emptyList());
+    }
+
+    private ClientReceiveCommandEvent command(FakeClient client, String command) {
+        return new ClientReceiveCommandEvent(client, Mockito.mock(ServerMessage.class), this.server(client), command, Collections.emptyList());
+    }
+}
@@ -0,0 +1,55 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the latency histogram.
+ */
+public class LatencyHistogramTest {
+    /**
+     * Tests buckets follow on from one another without gaps.
+     */
+    @Test
+    public void testBuckets() {
+        Assert.assertEquals(0, LatencyHistogram.index(0));
+        for (int i = 1; i < 1888; i++) {
+            long lowest = LatencyHistogram.highestValue(i - 1) + 1;
+            Assert.assertEquals(i, LatencyHistogram.index(lowest));
+            Assert.assertEquals(i, LatencyHistogram.index(LatencyHistogram.highestValue(i)));
+        }
+        Assert.assertEquals(1887, LatencyHistogram.index(Long.MAX_VALUE));
+    }
+
+    /**
+     * Tests percentiles stay within a bucket's precision.
+     */
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getMedian());
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-5);
+        Assert.assertEquals(1001, histogram.getCount());
+        Assert.assertEquals(1000000, histogram.getMax());
+        this.assertNear(500000, histogram.getMedian());
+        this.assertNear(900000, histogram.get90thPercentile());
+        this.assertNear(990000, histogram.get99thPercentile());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(0));
+        Assert.assertEquals(1000000, histogram.getValueAtPercentile(100));
+    }
+
+    /**
+     * Tests percentiles must be within range.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadPercentile() {
+        new LatencyHistogram().getValueAtPercentile(101);
+    }
+
+    private void assertNear(long expected, long actual) {
+        Assert.assertTrue(expected + " vs " + actual, Math.abs(expected - actual) <= (expected / 16));
+    }
+}
@@ -0,0 +1,185 @@
+package org.kitteh.irc.client.library.implementation;
+
+import net.engio.mbassy.listener.Handler;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.MockIRCd;
+import org.kitteh.irc.client.library.TrafficProfile;
+import org.kitteh.irc.client.library.event.channel.ChannelMessageEvent;
+import org.kitteh.irc.client.library.event.channel.ChannelUsersUpdatedEvent;
+import org.kitteh.irc.client.library.event.client.ClientConnectedEvent;
+
+import javax.annotation.Nonnull;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs a {@link TrafficProfile} end to end: starts a {@link MockIRCd}, has
+ * the profile's clients register and join every channel, then generates
+ * traffic through a warmup and a measured period.
+ * <p>
+ * Everything runs in this process over the local transport, so the figures
+ * cover the client's own work from decoding lines to calling handlers.
+ */
+public final class LoadDriver {
+    /**
+     * Measures each client's channel messages.
+     */
+    public static final class Listener {
+        private final LoadDriver driver;
+        private final String[] channels;
+
+        private Listener(@Nonnull LoadDriver driver, @Nonnull String[] channels) {
+            this.driver = driver;
+            this.channels = channels;
+        }
+
+        @Handler
+        public void connected(ClientConnectedEvent event) {
+            event.getClient().addChannel(this.channels);
+        }
+
+        @Handler
+        public void users(ChannelUsersUpdatedEvent event) {
+            this.driver.ready.countDown();
+        }
+
+        @Handler
+        public void message(ChannelMessageEvent event) {
+            if (!this.driver.measuring) {
+                return;
+            }
+            long received = System.nanoTime();
+            String message = event.getMessage();
+            int space = message.indexOf(' ');
+            if (space > 0) {
+                try {
+                    this.driver.latency.record(received - Long.parseLong(message.substring(0, space)));
+                    this.driver.messages.increment();
+                } catch (NumberFormatException ignored) {
+                    // Not from the traffic generator
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the profile given as the only argument and prints its report.
+     *
+     * @param args profile, as read by {@link TrafficProfile#parse(String)}
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length != 1) {
+            System.err.println("Usage: LoadDriver <profile>, for example clients=20,channels=5,users=2000,rate=5000,duration=30");
+            System.exit(1);
+        }
+        System.out.println(run(TrafficProfile.parse(args[0])));
+    }
+
+    /**
+     * Runs a profile.
+     *
+     * @param profile profile to run
+     * @return report of the measured period
+     * @throws InterruptedException if interrupted
+     * @throws IllegalStateException if the clients fail to join in time
+     */
+    @Nonnull
+    public static LoadReport run(@Nonnull TrafficProfile profile) throws InterruptedException {
+        return new LoadDriver(profile).run();
+    }
+
+    private final TrafficProfile profile;
+    private final CountDownLatch ready;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private volatile boolean measuring;
+
+    private LoadDriver(@Nonnull TrafficProfile profile) {
+        this.profile = profile;
+        this.ready = new CountDownLatch(profile.getClients() * profile.getChannels());
+    }
+
+    @Nonnull
+    private LoadReport run() throws InterruptedException {
+        String address = "kicl-load-" + System.nanoTime();
+        String[] channels = new String[this.profile.getChannels()];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = MockIRCd.getChannelName(i);
+        }
+        List<Client> clients = new ArrayList<>();
+        try (MockIRCd server = new MockIRCd(address, this.profile)) {
+            try {
+                Consumer<Exception> exceptionListener = exception -> this.exceptions.increment();
+                for (int i = 0; i < this.profile.getClients(); i++) {
+                    clients.add(Client.builder()
+                            .name("Load" + i)
+                            .nick("load" + i)
+                            .localServer(address)
+                            .secure(false)
+                            .messageDelay(1)
+                            .listenException(exceptionListener)
+                            .afterBuildConsumer(client -> client.getEventManager().registerEventListener(new Listener(this, channels)))
+                            .build());
+                }
+                long timeout = 30 + ((this.profile.getClients() * (long) this.profile.getChannels() * this.profile.getUsers()) / 10_000);
+                if (!this.ready.await(timeout, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Only " + ((clients.size() * channels.length) - this.ready.getCount()) + " of " + (clients.size() * channels.length) + " channels joined within " + timeout + " seconds");
+                }
+
+                server.startTraffic();
+                Thread.sleep(TimeUnit.SECONDS.toMillis(this.profile.getWarmup()));
+
+                long linesBefore = linesIn(clients);
+                long gcCountBefore = 0;
+                long gcMillisBefore = 0;
+                for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                    gcCountBefore += Math.max(0, collector.getCollectionCount());
+                    gcMillisBefore += Math.max(0, collector.getCollectionTime());
+                }
+                ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+                long exceptionsBefore = this.exceptions.sum();
+                long start = System.nanoTime();
+                this.measuring = true;
+                Thread.sleep(TimeUnit.SECONDS.toMillis(this.profile.getDuration()));
+                this.measuring = false;
+                double seconds = (System.nanoTime() - start) / 1_000_000_000D;
+                long lines = linesIn(clients) - linesBefore;
+                long gcCount = -gcCountBefore;
+                long gcMillis = -gcMillisBefore;
+                for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                    gcCount += Math.max(0, collector.getCollectionCount());
+                    gcMillis += Math.max(0, collector.getCollectionTime());
+                }
+                long heapPeak = 0;
+                for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                    if (pool.getType() == MemoryType.HEAP) {
+                        heapPeak += pool.getPeakUsage().getUsed();
+                    }
+                }
+                long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+                return new LoadReport(this.profile, seconds, lines, this.messages.sum(), this.latency, gcCount, gcMillis, heapUsed, heapPeak, this.exceptions.sum() - exceptionsBefore);
+            } finally {
+                server.stopTraffic();
+                clients.forEach(client -> client.shutdown("Load run complete"));
+            }
+        }
+    }
+
+    private static long linesIn(@Nonnull List<Client> clients) {
+        long lines = 0;
+        for (Client client : clients) {
+            lines += client.getMetrics().getLinesIn();
+        }
+        return lines;
+    }
+}
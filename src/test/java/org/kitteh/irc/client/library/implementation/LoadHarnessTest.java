@@ -0,0 +1,124 @@
+package org.kitteh.irc.client.library.implementation;
+
+import net.engio.mbassy.listener.Handler;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.MockIRCd;
+import org.kitteh.irc.client.library.TrafficProfile;
+import org.kitteh.irc.client.library.event.channel.ChannelUsersUpdatedEvent;
+import org.kitteh.irc.client.library.event.client.ClientConnectionClosedEvent;
+import org.kitteh.irc.client.library.event.client.ClientConnectedEvent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the load harness. Load runs themselves are started with {@link
+ * LoadDriver#main(String[])}.
+ */
+public class LoadHarnessTest {
+    public static class Listener {
+        private final CountDownLatch connected = new CountDownLatch(1);
+        private final CountDownLatch users = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Handler
+        public void connected(ClientConnectedEvent event) {
+            this.connected.countDown();
+        }
+
+        @Handler
+        public void users(ChannelUsersUpdatedEvent event) {
+            this.users.countDown();
+        }
+
+        @Handler
+        public void closed(ClientConnectionClosedEvent event) {
+            this.closed.countDown();
+        }
+    }
+
+    /**
+     * Runs a small profile and checks traffic arrived, without judging
+     * how quickly.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testRun() throws InterruptedException {
+        LoadReport report = LoadDriver.run(TrafficProfile.parse("clients=2,channels=1,users=20,rate=200,serverTime=true,warmup=0,duration=1"));
+        Assert.assertTrue(report.getLinesIn() > 0);
+        Assert.assertTrue(report.getMessages() > 0);
+        Assert.assertEquals(0, report.getExceptions());
+    }
+
+    /**
+     * Tests a joined client tracks the simulated users, through a netsplit.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testUsersAndNetsplit() throws InterruptedException {
+        String address = "kicl-netsplit-" + System.nanoTime();
+        TrafficProfile profile = TrafficProfile.builder().channels(1).users(40).netsplitFraction(0.5).build();
+        String channel = MockIRCd.getChannelName(0);
+        try (MockIRCd server = new MockIRCd(address, profile)) {
+            Listener listener = new Listener();
+            Client client = Client.builder().name("Netsplit").nick("netsplit").localServer(address).secure(false).messageDelay(1)
+                    .afterBuildConsumer(c -> c.getEventManager().registerEventListener(listener)).build();
+            try {
+                Assert.assertTrue(listener.connected.await(5, TimeUnit.SECONDS));
+                client.addChannel(channel);
+                Assert.assertTrue(listener.users.await(5, TimeUnit.SECONDS));
+                Assert.assertEquals(41, client.getChannel(channel).get().getUsers().size());
+
+                server.netsplit();
+                Assert.assertEquals(40, server.getUserCount(channel));
+                waitForUsers(client, channel, 41);
+                Assert.assertEquals(1, server.getNetsplits());
+            } finally {
+                client.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Tests a client sending too quickly is disconnected.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testFloodLimit() throws InterruptedException {
+        String address = "kicl-flood-" + System.nanoTime();
+        TrafficProfile profile = TrafficProfile.builder().floodRate(2).floodBurst(10).build();
+        try (MockIRCd server = new MockIRCd(address, profile)) {
+            Listener listener = new Listener();
+            Client client = Client.builder().name("Flood").nick("flood").localServer(address).secure(false)
+                    .afterBuildConsumer(c -> c.getEventManager().registerEventListener(listener)).build();
+            try {
+                Assert.assertTrue(listener.connected.await(5, TimeUnit.SECONDS));
+                for (int i = 0; i < 20; i++) {
+                    client.sendRawLineImmediately("PRIVMSG #nowhere :" + i);
+                }
+                Assert.assertTrue(listener.closed.await(5, TimeUnit.SECONDS));
+                Assert.assertEquals(1, server.getFloodKills());
+            } finally {
+                client.shutdown();
+            }
+        }
+    }
+
+    private static void waitForUsers(Client client, String channel, int users) throws InterruptedException {
+        long waitUntil = System.currentTimeMillis() + 5000;
+        int seen = -1;
+        while (System.currentTimeMillis() < waitUntil) {
+            seen = client.getChannel(channel).get().getUsers().size();
+            if (seen == users) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        Assert.fail("Expected " + users + " users in " + channel + ", saw " + seen);
+    }
+}
@@ -0,0 +1,121 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.TrafficProfile;
+import org.kitteh.irc.client.library.feature.Metrics;
+
+import javax.annotation.Nonnull;
+import java.util.Locale;
+
+/**
+ * Results of a {@link LoadDriver} run, over the measured period only.
+ */
+public final class LoadReport {
+    private static final double MEGABYTE = 1024 * 1024;
+
+    private final TrafficProfile profile;
+    private final double seconds;
+    private final long linesIn;
+    private final long messages;
+    private final Metrics.Histogram latency;
+    private final long gcCount;
+    private final long gcMillis;
+    private final long heapUsed;
+    private final long heapPeak;
+    private final long exceptions;
+
+    LoadReport(@Nonnull TrafficProfile profile, double seconds, long linesIn, long messages, @Nonnull Metrics.Histogram latency, long gcCount, long gcMillis, long heapUsed, long heapPeak, long exceptions) {
+        this.profile = profile;
+        this.seconds = seconds;
+        this.linesIn = linesIn;
+        this.messages = messages;
+        this.latency = latency;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+        this.heapUsed = heapUsed;
+        this.heapPeak = heapPeak;
+        this.exceptions = exceptions;
+    }
+
+    @Nonnull
+    public TrafficProfile getProfile() {
+        return this.profile;
+    }
+
+    /**
+     * Gets the lines read per second, over all clients.
+     *
+     * @return lines per second
+     */
+    public double getLinesPerSecond() {
+        return this.linesIn / this.seconds;
+    }
+
+    public long getLinesIn() {
+        return this.linesIn;
+    }
+
+    /**
+     * Gets the channel messages received with a measured latency.
+     *
+     * @return messages received
+     */
+    public long getMessages() {
+        return this.messages;
+    }
+
+    /**
+     * Gets the time in nanoseconds from the server writing a channel message
+     * to a handler receiving it.
+     *
+     * @return latency histogram
+     */
+    @Nonnull
+    public Metrics.Histogram getLatency() {
+        return this.latency;
+    }
+
+    public long getGcCount() {
+        return this.gcCount;
+    }
+
+    public long getGcMillis() {
+        return this.gcMillis;
+    }
+
+    public long getHeapUsed() {
+        return this.heapUsed;
+    }
+
+    public long getHeapPeak() {
+        return this.heapPeak;
+    }
+
+    /**
+     * Gets the exceptions reported to the clients' exception listeners.
+     *
+     * @return exceptions
+     */
+    public long getExceptions() {
+        return this.exceptions;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s%n"
+                        + "  lines in     %,d (%,.0f lines/s over %.1fs)%n"
+                        + "  latency      p50 %.3fms  p90 %.3fms  p99 %.3fms  p99.9 %.3fms  max %.3fms (%,d messages)%n"
+                        + "  gc           %d collections, %dms%n"
+                        + "  heap         %.1fMB used, %.1fMB peak%n"
+                        + "  exceptions   %d",
+                this.profile, this.linesIn, this.getLinesPerSecond(), this.seconds,
+                millis(this.latency.getMedian()), millis(this.latency.get90thPercentile()), millis(this.latency.get99thPercentile()), millis(this.latency.get999thPercentile()), millis(this.latency.getMax()), this.messages,
+                this.gcCount, this.gcMillis,
+                this.heapUsed / MEGABYTE, this.heapPeak / MEGABYTE,
+                this.exceptions);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000D;
+    }
+}
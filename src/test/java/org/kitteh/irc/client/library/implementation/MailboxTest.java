@@ -0,0 +1,191 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests mailboxes.
+ */
+public class MailboxTest {
+    /**
+     * Tests items arrive in order, queued well past a small capacity by a
+     * source ignoring pressure.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testOrder() throws InterruptedException {
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1000);
+        Mailbox<Integer> mailbox = new Mailbox<>("Test", 4, item -> {
+            received.add(item);
+            latch.countDown();
+        }, ForkJoinPool.commonPool(), null, full -> {
+        });
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            mailbox.queue(i);
+            expected.add(i);
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(expected, received);
+    }
+
+    /**
+     * Tests queueing never waits on a full mailbox, and the pressure
+     * listener is told once full and once drained to half.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test(timeout = 5000)
+    @SuppressWarnings("unchecked")
+    public void testPressure() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch drained = new CountDownLatch(1);
+        List<Boolean> pressure = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        Mailbox<Integer>[] mailbox = new Mailbox[1];
+        mailbox[0] = new Mailbox<>("Test", 4, item -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, ForkJoinPool.commonPool(), null, full -> {
+            pressure.add(full);
+            sizes.add(mailbox[0].size());
+            if (!full) {
+                drained.countDown();
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            mailbox[0].queue(i);
+        }
+        Assert.assertEquals(Collections.singletonList(true), pressure);
+        Assert.assertEquals(4, (int) sizes.get(0));
+        release.countDown();
+        Assert.assertTrue(drained.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(true, false), pressure);
+        Assert.assertTrue(sizes.get(1) <= 2);
+    }
+
+    /**
+     * Tests a mailbox without a pressure listener drops items queued while
+     * it holds its capacity, and takes items again once drained.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test(timeout = 5000)
+    public void testOverflow() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        Mailbox<Integer> mailbox = new Mailbox<>("Test", 2, item -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(item);
+        }, ForkJoinPool.commonPool());
+        for (int i = 0; i < 5; i++) {
+            mailbox.queue(i);
+        }
+        Assert.assertEquals(3, mailbox.getDropped());
+        release.countDown();
+        while (mailbox.size() > 0) {
+            Thread.sleep(1);
+        }
+        mailbox.queue(5);
+        while (mailbox.size() > 0) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(Arrays.asList(0, 1, 5), received);
+    }
+
+    /**
+     * Tests items of a mailbox with a pressure listener are numbered in
+     * order without recording lag, and the number is only seen by the
+     * consuming thread.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSequence() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(3);
+        List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        Mailbox<Integer>[] mailbox = new Mailbox[1];
+        mailbox[0] = new Mailbox<>("Test", 4, item -> {
+            sequences.add(mailbox[0].getSequence());
+            latch.countDown();
+        }, ForkJoinPool.commonPool(), null, full -> {
+        });
+        List<Long> queued = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            queued.add(mailbox[0].queue(i));
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L), queued);
+        Assert.assertEquals(queued, sequences);
+        Assert.assertEquals(0L, mailbox[0].getSequence());
+    }
+
+    /**
+     * Tests a consumer throwing does not stop later items.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testThrowingConsumer() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        Mailbox<Integer> mailbox = new Mailbox<>("Test", 4, item -> {
+            if (item == 0) {
+                throw new IllegalStateException("meow");
+            }
+            latch.countDown();
+        }, ForkJoinPool.commonPool());
+        mailbox.queue(0);
+        mailbox.queue(1);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests shutting down discards or delivers remaining items as asked,
+     * and ignores later items.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testShutdown() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        Mailbox<Integer> mailbox = new Mailbox<>("Test", 4, item -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(item);
+        }, ForkJoinPool.commonPool());
+        mailbox.queue(0);
+        Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        mailbox.queue(1);
+        mailbox.shutdown(false);
+        mailbox.queue(2);
+        release.countDown();
+        Thread.sleep(100);
+        Assert.assertEquals(Collections.singletonList(0), received);
+    }
+}
@@ -3,9 +3,13 @@ package org.kitteh.irc.client.library.implementation;
 import org.junit.Assert;
 import org.junit.Test;
 import org.kitteh.irc.client.library.element.MessageTag;
+import org.kitteh.irc.client.library.element.ServerMessage;
 
 import java.time.Instant;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Test out message tag processing
@@ -38,4 +42,96 @@ public class MessageTagTest {
         Assert.assertTrue("Failed to process time tag as MessageTag.Time", tags.get(0) instanceof MessageTag.Time);
         Assert.assertEquals("Failed to process time tag", ((MessageTag.Time) tags.get(0)).getTime(), Instant.parse(TIME));
     }
+
+    /**
+     * Tests unescaping of tag values.
+     */
+    @Test
+    public void escapedValue() {
+        List<MessageTag> tags = new FakeClient().getMessageTagManager().getTags("a=semi\\:space\\sslash\\\\cr\\rlf\\n;b=unknown\\x;c=trailing\\;d=plain");
+        Assert.assertEquals(4, tags.size());
+        Assert.assertEquals("semi;space slash\\cr\rlf\n", tags.get(0).getValue().get());
+        Assert.assertEquals("unknownx", tags.get(1).getValue().get());
+        Assert.assertEquals("trailing", tags.get(2).getValue().get());
+        Assert.assertEquals("plain", tags.get(3).getValue().get());
+    }
+
+    /**
+     * Tests empty values and empty tags.
+     */
+    @Test
+    public void emptyValue() {
+        List<MessageTag> tags = new FakeClient().getMessageTagManager().getTags("aaa=;;bbb");
+        Assert.assertEquals(2, tags.size());
+        Assert.assertEquals("aaa", tags.get(0).getName());
+        Assert.assertFalse(tags.get(0).getValue().isPresent());
+        Assert.assertEquals("bbb", tags.get(1).getName());
+    }
+
+    /**
+     * Tests parsing part of a line, and that common and registered names
+     * are shared between lines.
+     */
+    @Test
+    public void region() {
+        FakeClient client = new FakeClient();
+        client.getMessageTagManager().registerTagCreator("example", "example.com/cat", (c, name, value) -> null);
+        String line = "@account=kitteh;example.com/cat=meow;time=" + TIME + " :kitteh!kitteh@kitteh.example PRIVMSG #kitteh :meow";
+        List<MessageTag> first = client.getMessageTagManager().getTags(line, 1, line.indexOf(' '));
+        List<MessageTag> second = client.getMessageTagManager().getTags(new String(line.toCharArray()), 1, line.indexOf(' '));
+        Assert.assertEquals(3, first.size());
+        Assert.assertEquals("kitteh", first.get(0).getValue().get());
+        Assert.assertEquals("meow", first.get(1).getValue().get());
+        Assert.assertTrue(first.get(2) instanceof MessageTag.Time);
+        for (int i = 0; i < first.size(); i++) {
+            Assert.assertSame(first.get(i).getName(), second.get(i).getName());
+        }
+    }
+
+    /**
+     * Tests server time is read the same as {@link Instant#parse}, and that
+     * invalid times are not time tags.
+     */
+    @Test
+    public void timeTagFormats() {
+        ManagerMessageTag manager = new FakeClient().getMessageTagManager();
+        String[] times = {"1970-01-01T00:00:00.000Z", "1969-12-31T23:59:59.999Z", "2000-02-29T12:34:56.789Z", "2016-06-01T12:00:00.100Z", "0001-03-01T00:00:00.000Z", "9999-12-31T23:59:59.999Z", "2016-06-01T12:00:00Z", "2016-06-01T12:00:00.123456Z"};
+        for (String time : times) {
+            List<MessageTag> tags = manager.getTags("time=" + time);
+            Assert.assertTrue(time, tags.get(0) instanceof MessageTag.Time);
+            Assert.assertEquals(time, Instant.parse(time), ((MessageTag.Time) tags.get(0)).getTime());
+            Assert.assertEquals(time, tags.get(0).getValue().get());
+        }
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            Instant instant = Instant.ofEpochMilli(random.nextLong() % 100_000_000_000_000L);
+            if (instant.getEpochSecond() < -62135596800L) { // Before year 1
+                continue;
+            }
+            String time = DateTimeFormatter.ISO_INSTANT.format(instant);
+            Assert.assertEquals(time, instant, ((MessageTag.Time) manager.getTags("time=" + time).get(0)).getTime());
+        }
+        for (String time : new String[]{"2015-02-29T00:00:00.000Z", "2016-13-01T00:00:00.000Z", "2016-06-01T12:00:0a.000Z", "yesterday"}) {
+            Assert.assertFalse(time, manager.getTags("time=" + time).get(0) instanceof MessageTag.Time);
+        }
+    }
+
+    /**
+     * Tests tags left in a message are parsed with the creators registered
+     * when the message was received, and not by {@link Object#toString()}.
+     */
+    @Test
+    public void deferredTags() {
+        FakeClient client = new FakeClient();
+        String line = "@example.com/cat=meow :kitteh!kitteh@kitteh.example PRIVMSG #kitteh :meow";
+        ServerMessage message = new IRCServerMessage(line, client.getMessageTagManager(), line.indexOf(' '));
+        AtomicInteger created = new AtomicInteger();
+        client.getMessageTagManager().registerTagCreator("example", "example.com/cat", (c, name, value) -> {
+            created.incrementAndGet();
+            return null;
+        });
+        Assert.assertTrue(message.toString().contains("tags=null"));
+        Assert.assertEquals("meow", message.getTags().get(0).getValue().get());
+        Assert.assertEquals(0, created.get());
+    }
 }
@@ -0,0 +1,172 @@
+package org.kitteh.irc.client.library.implementation;
+
+import net.engio.mbassy.listener.Filter;
+import net.engio.mbassy.listener.Filters;
+import net.engio.mbassy.listener.Handler;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.element.Actor;
+import org.kitteh.irc.client.library.element.ServerMessage;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.event.helper.ClientEvent;
+import org.kitteh.irc.client.library.exception.KittehEventException;
+import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.filter.NumericFilter;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the native event bus.
+ */
+public class NativeEventBusTest {
+    public static class Event {
+    }
+
+    public static class SubEvent extends Event {
+    }
+
+    public static class Recorder {
+        private final List<String> calls = new ArrayList<>();
+
+        @Handler(priority = Integer.MIN_VALUE)
+        public void lowest(Event event) {
+            this.calls.add("lowest");
+        }
+
+        @Handler(priority = 10)
+        public void first(Event event) {
+            this.calls.add("first");
+        }
+
+        @Handler
+        public void sub(SubEvent event) {
+            this.calls.add("sub");
+        }
+
+        @Handler(rejectSubtypes = true)
+        public void exact(Event event) {
+            this.calls.add("exact");
+        }
+
+        @Handler(enabled = false)
+        public void disabled(Event event) {
+            this.calls.add("disabled");
+        }
+
+        @NumericFilter(1)
+        @Handler
+        public void welcome(ClientReceiveNumericEvent event) {
+            this.calls.add("welcome");
+        }
+
+        @Handler(priority = -1)
+        public void client(ClientEvent event) {
+            this.calls.add("client");
+        }
+    }
+
+    public static class Failing {
+        @Handler
+        public void fail(Event event) {
+            throw new IllegalStateException("meow");
+        }
+    }
+
+    public static class Unsupported {
+        @Handler(filters = @Filter(Filters.RejectSubtypes.class))
+        public void filtered(Event event) {
+        }
+    }
+
+    private InternalClient client;
+    private Listener<Exception> exceptionListener;
+    private ManagerEvent eventManager;
+
+    /**
+     * Sets up a manager on the native bus.
+     */
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        this.client = Mockito.mock(InternalClient.class);
+        this.exceptionListener = Mockito.mock(Listener.class);
+        Mockito.when(this.client.getName()).thenReturn("Test");
+        Mockito.when(this.client.getExceptionListener()).thenReturn(this.exceptionListener);
+        Config config = new Config();
+        config.set(Config.EVENT_BUS, EventManager.Bus.NATIVE);
+        this.eventManager = new ManagerEvent(this.client, config);
+    }
+
+    /**
+     * Tests priority order, subtypes and disabled handlers.
+     */
+    @Test
+    public void testDispatch() {
+        Recorder listener = new Recorder();
+        this.eventManager.registerEventListener(listener);
+
+        this.eventManager.callEvent(new Event());
+        Assert.assertEquals(Arrays.asList("first", "exact", "lowest"), listener.calls);
+
+        listener.calls.clear();
+        this.eventManager.callEvent(new SubEvent());
+        Assert.assertEquals(Arrays.asList("first", "sub", "lowest"), listener.calls);
+
+        listener.calls.clear();
+        this.eventManager.unregisterEventListener(listener);
+        this.eventManager.callEvent(new SubEvent());
+        Assert.assertTrue(listener.calls.isEmpty());
+    }
+
+    /**
+     * Tests annotation filters and interface event types.
+     */
+    @Test
+    public void testFilters() {
+        Recorder listener = new Recorder();
+        this.eventManager.registerEventListener(listener);
+        Actor server = Mockito.mock(Actor.class);
+        Mockito.when(server.getClient()).thenReturn(this.client);
+
+        this.eventManager.callEvent(new ClientReceiveNumericEvent(this.client, Mockito.mock(ServerMessage.class), server, "001", 1, Collections.emptyList()));
+        this.eventManager.callEvent(new ClientReceiveNumericEvent(this.client, Mockito.mock(ServerMessage.class), server, "002", 2, Collections.emptyList()));
+        Assert.assertEquals(Arrays.asList("welcome", "client", "client"), listener.calls);
+    }
+
+    /**
+     * Tests subscriber queries follow registration.
+     */
+    @Test
+    public void testHasSubscribers() {
+        Assert.assertFalse(this.eventManager.hasSubscribers(Event.class));
+        Failing failing = new Failing();
+        this.eventManager.registerEventListener(failing);
+        Assert.assertTrue(this.eventManager.hasSubscribers(SubEvent.class));
+        Assert.assertFalse(this.eventManager.hasSubscribers(String.class));
+        this.eventManager.unregisterEventListener(failing);
+        Assert.assertFalse(this.eventManager.hasSubscribers(SubEvent.class));
+    }
+
+    /**
+     * Tests handler exceptions reach the exception listener.
+     */
+    @Test
+    public void testException() {
+        this.eventManager.registerEventListener(new Failing());
+        this.eventManager.callEvent(new Event());
+        Mockito.verify(this.exceptionListener).queue(Mockito.any(KittehEventException.class));
+    }
+
+    /**
+     * Tests handlers needing MBassador are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupported() {
+        this.eventManager.registerEventListener(new Unsupported());
+    }
+}
@@ -0,0 +1,89 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.feature.Latency;
+
+import java.time.Duration;
+
+/**
+ * Tests the ping tracker.
+ */
+public class PingTrackerTest {
+    /**
+     * Tests tokens are unique and counted until answered.
+     */
+    @Test
+    public void unanswered() {
+        PingTracker tracker = new PingTracker();
+        String first = tracker.nextToken();
+        String second = tracker.nextToken();
+        Assert.assertNotEquals(first, second);
+        Assert.assertEquals(2, tracker.getUnanswered());
+        tracker.checkLine(":irc.network PONG irc.network :nope");
+        Assert.assertEquals(2, tracker.getUnanswered());
+        tracker.checkLine("@time=2016-01-01T00:00:00.000Z :irc.network PONG irc.network :" + second);
+        Assert.assertEquals(0, tracker.getUnanswered());
+        Assert.assertEquals(1, tracker.getLatency().getSampleCount());
+    }
+
+    /**
+     * Tests only PONG commands are taken as answers, with the token from
+     * the last parameter.
+     */
+    @Test
+    public void pongToken() {
+        Assert.assertEquals("token", PingTracker.getPongToken("PONG token"));
+        Assert.assertEquals("token", PingTracker.getPongToken("PONG :token"));
+        Assert.assertEquals("token", PingTracker.getPongToken(":irc.network PONG irc.network token"));
+        Assert.assertEquals("token", PingTracker.getPongToken("@time=2016-01-01T00:00:00.000Z :irc.network PONG irc.network :token"));
+        Assert.assertNull(PingTracker.getPongToken(":cat!cat@kitteh.example PRIVMSG #kitteh :lol PONG token"));
+        Assert.assertNull(PingTracker.getPongToken("@a=PONG :cat!cat@kitteh.example NOTICE Kitteh :PONG token"));
+        Assert.assertNull(PingTracker.getPongToken(":irc.network"));
+
+        PingTracker tracker = new PingTracker();
+        String token = tracker.nextToken();
+        tracker.checkLine(":cat!cat@kitteh.example PRIVMSG #kitteh :lol PONG " + token);
+        Assert.assertEquals(1, tracker.getUnanswered());
+    }
+
+    /**
+     * Tests the smoothing of round trip times.
+     */
+    @Test
+    public void smoothing() {
+        PingTracker tracker = new PingTracker();
+        Assert.assertFalse(tracker.getLatency().getSmoothedRoundTripTime().isPresent());
+
+        String token = tracker.nextToken(1000);
+        tracker.pong(token, 1800);
+        Latency latency = tracker.getLatency();
+        Assert.assertEquals(Duration.ofNanos(800), latency.getSmoothedRoundTripTime().get());
+        Assert.assertEquals(Duration.ofNanos(400), latency.getRoundTripTimeVariation().get());
+
+        token = tracker.nextToken(2000);
+        tracker.pong(token, 3600);
+        latency = tracker.getLatency();
+        Assert.assertEquals(Duration.ofNanos(1600), latency.getLastRoundTripTime().get());
+        Assert.assertEquals(Duration.ofNanos(900), latency.getSmoothedRoundTripTime().get());
+        Assert.assertEquals(Duration.ofNanos(500), latency.getRoundTripTimeVariation().get());
+    }
+
+    /**
+     * Tests PINGs come due on the interval, or sooner in silence.
+     */
+    @Test
+    public void due() {
+        long second = 1_000_000_000L;
+        PingTracker tracker = new PingTracker();
+        long start = System.nanoTime();
+        Assert.assertFalse(tracker.isPingDue(start, 10 * second, 50 * second));
+        Assert.assertTrue(tracker.isPingDue(start + (10 * second), 10 * second, 50 * second)); // Silent since creation
+
+        tracker.checkLine(":irc.network NOTICE * :hello");
+        tracker.nextToken(start + (10 * second));
+        Assert.assertFalse(tracker.isPingDue(start + (15 * second), 10 * second, 50 * second));
+        Assert.assertTrue(tracker.isPingDue(start + (25 * second), 10 * second, 50 * second)); // Silent again
+        Assert.assertTrue(tracker.isPingDue(start + (60 * second), 100 * second, 50 * second)); // Interval passed
+    }
+}
@@ -0,0 +1,101 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.element.Actor;
+import org.kitteh.irc.client.library.element.ServerMessage;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.mockito.Mockito;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests reading parameters from a line.
+ */
+public class ServerMessageParametersTest {
+    /**
+     * Tests middle and trailing parameters.
+     */
+    @Test
+    public void testParameters() {
+        Assert.assertEquals(Arrays.asList("#kitteh", "meow meow :3"), parameters("PRIVMSG #kitteh :meow meow :3"));
+        Assert.assertEquals(Arrays.asList("Kitteh", "=", "#kitteh", "@Cat +Dog"), parameters("353 Kitteh = #kitteh :@Cat +Dog"));
+        Assert.assertEquals(Arrays.asList("#kitteh", "+o", "Cat"), parameters("MODE #kitteh +o Cat"));
+        Assert.assertEquals(Collections.singletonList(""), parameters("TOPIC :"));
+        Assert.assertEquals(Collections.emptyList(), parameters("AWAY"));
+    }
+
+    /**
+     * Tests empty parameters between repeated spaces are kept.
+     */
+    @Test
+    public void testEmptyParameters() {
+        Assert.assertEquals(Arrays.asList("a", "", "b"), parameters("CMD a  b"));
+    }
+
+    /**
+     * Tests parameters are read once and reused.
+     */
+    @Test
+    public void testCached() {
+        List<String> parameters = parameters("PRIVMSG #kitteh :meow");
+        Assert.assertSame(parameters.get(1), parameters.get(1));
+    }
+
+    /**
+     * Tests reading past the last parameter.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() {
+        parameters("PRIVMSG #kitteh :meow").get(2);
+    }
+
+    /**
+     * Tests events copy the parameters given to them.
+     */
+    @Test
+    public void testEventCopies() {
+        Client client = Mockito.mock(Client.class);
+        Actor actor = Mockito.mock(Actor.class);
+        Mockito.when(actor.getClient()).thenReturn(client);
+        List<String> args = new ArrayList<>(parameters("PRIVMSG #kitteh :meow"));
+        ClientReceiveCommandEvent event = new ClientReceiveCommandEvent(client, Mockito.mock(ServerMessage.class), actor, "PRIVMSG", args);
+        args.set(1, "purr");
+        Assert.assertEquals(Arrays.asList("#kitteh", "meow"), event.getParameters());
+        Assert.assertEquals(event.getParameters(), new ClientReceiveCommandEvent(client, Mockito.mock(ServerMessage.class), actor, "PRIVMSG", parameters("PRIVMSG #kitteh :meow")).getParameters());
+    }
+
+    /**
+     * Tests events can keep the parameters given to them, without reading
+     * any.
+     */
+    @Test
+    public void testEventKeeps() {
+        Client client = Mockito.mock(Client.class);
+        Actor actor = Mockito.mock(Actor.class);
+        Mockito.when(actor.getClient()).thenReturn(client);
+        List<String> args = new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                throw new AssertionError("Read parameter " + index);
+            }
+
+            @Override
+            public int size() {
+                throw new AssertionError("Read size");
+            }
+        };
+        ClientReceiveCommandEvent event = new ClientReceiveCommandEvent(client, Mockito.mock(ServerMessage.class), actor, "PRIVMSG", args, false);
+        Assert.assertSame(args, event.getParameters());
+    }
+
+    private static List<String> parameters(String line) {
+        int start = line.indexOf(' ');
+        return new ServerMessageParameters(line, (start < 0) ? line.length() : (start + 1), line.length());
+    }
+}
@@ -0,0 +1,82 @@
+package org.kitteh.irc.client.library.implementation;
+
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.security.KeyStore;
+
+/**
+ * Tests the SslContext cache shared between connections.
+ */
+public class SslContextCacheTest {
+    /**
+     * Tests the same settings share a context, and different trust does
+     * not.
+     *
+     * @throws Exception if a context cannot be built
+     */
+    @Test
+    public void testHit() throws Exception {
+        TrustManagerFactory factory = trustManagerFactory();
+        Config config = new Config();
+        config.set(Config.SSL_TRUST_MANAGER_FACTORY, factory);
+        Config sameConfig = new Config();
+        sameConfig.set(Config.SSL_TRUST_MANAGER_FACTORY, factory);
+        SslContext context = NettyManager.getSslContext(config);
+        Assert.assertSame(context, NettyManager.getSslContext(sameConfig));
+
+        Config otherConfig = new Config();
+        otherConfig.set(Config.SSL_TRUST_MANAGER_FACTORY, trustManagerFactory());
+        Assert.assertNotSame(context, NettyManager.getSslContext(otherConfig));
+    }
+
+    /**
+     * Tests a changed certificate replaces the cached context.
+     *
+     * @throws Exception if a context cannot be built
+     */
+    @Test
+    public void testInvalidation() throws Exception {
+        SelfSignedCertificate certificate = new SelfSignedCertificate();
+        try {
+            Config config = new Config();
+            config.set(Config.SSL_KEY_CERT_CHAIN, certificate.certificate());
+            config.set(Config.SSL_KEY, certificate.privateKey());
+            SslContext context = NettyManager.getSslContext(config);
+            int count = NettyManager.getSslContextCount();
+            Assert.assertSame(context, NettyManager.getSslContext(config));
+
+            File file = certificate.certificate();
+            Assert.assertTrue(file.setLastModified(file.lastModified() + 10000));
+            Assert.assertNotSame(context, NettyManager.getSslContext(config));
+            Assert.assertEquals(count, NettyManager.getSslContextCount());
+        } finally {
+            certificate.delete();
+        }
+    }
+
+    /**
+     * Tests the cache does not grow without bound.
+     *
+     * @throws Exception if a context cannot be built
+     */
+    @Test
+    public void testBounded() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            Config config = new Config();
+            config.set(Config.SSL_TRUST_MANAGER_FACTORY, trustManagerFactory());
+            NettyManager.getSslContext(config);
+        }
+        Assert.assertEquals(16, NettyManager.getSslContextCount());
+    }
+
+    private static TrustManagerFactory trustManagerFactory() throws Exception {
+        TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init((KeyStore) null);
+        return factory;
+    }
+}
@@ -0,0 +1,107 @@
+package org.kitteh.irc.client.library.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Tests capture logs.
+ */
+public class CaptureLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Tests lines and their times read back as written, across index blocks
+     * and mapped regions.
+     *
+     * @throws IOException if the log fails
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        File file = this.folder.newFile();
+        String padding = new String(new char[400]).replace('\0', 'x');
+        int lines = 50000; // Over 16MB, so past the first mapped region
+        try (CaptureLog.Writer writer = new CaptureLog.Writer(file)) {
+            for (int i = 0; i < lines; i++) {
+                writer.append(1000L + (i * 1500L), line(i, padding));
+            }
+            Assert.assertEquals(lines, writer.getLines());
+        }
+        try (CaptureLog.Reader reader = new CaptureLog.Reader(file)) {
+            for (int i = 0; i < lines; i++) {
+                CaptureLog.Entry entry = reader.next();
+                Assert.assertNotNull(entry);
+                Assert.assertEquals(1000L + (i * 1500L), entry.getNanos());
+                Assert.assertEquals(line(i, padding), entry.getLine());
+            }
+            Assert.assertNull(reader.next());
+        }
+    }
+
+    /**
+     * Tests seeking lands on the index block before the time sought.
+     *
+     * @throws IOException if the log fails
+     */
+    @Test
+    public void testSeek() throws IOException {
+        File file = this.folder.newFile();
+        int lines = CaptureLog.INDEX_INTERVAL * 3;
+        try (CaptureLog.Writer writer = new CaptureLog.Writer(file)) {
+            for (int i = 0; i < lines; i++) {
+                writer.append(i * 10L, "line " + i);
+            }
+        }
+        try (CaptureLog.Reader reader = new CaptureLog.Reader(file)) {
+            reader.seek(((CaptureLog.INDEX_INTERVAL * 2) + 5) * 10L);
+            Assert.assertEquals("line " + (CaptureLog.INDEX_INTERVAL * 2), reader.next().getLine());
+            reader.seek(-1);
+            Assert.assertEquals("line 0", reader.next().getLine());
+        }
+    }
+
+    /**
+     * Tests a log still being written can be read up to its last line.
+     *
+     * @throws IOException if the log fails
+     */
+    @Test
+    public void testUnclosed() throws IOException {
+        File file = this.folder.newFile();
+        try (CaptureLog.Writer writer = new CaptureLog.Writer(file)) {
+            writer.append(5, ":irc.example 001 Kitteh :Welcome, ünïcödé");
+            writer.append(7, ":Cat!cat@cat.example PRIVMSG #kitteh :meow");
+            try (CaptureLog.Reader reader = new CaptureLog.Reader(file)) {
+                Assert.assertEquals(":irc.example 001 Kitteh :Welcome, ünïcödé", reader.next().getLine());
+                CaptureLog.Entry entry = reader.next();
+                Assert.assertEquals(7, entry.getNanos());
+                Assert.assertNull(reader.next());
+                reader.seek(6);
+                Assert.assertEquals(5, reader.next().getNanos());
+            }
+        }
+        Assert.assertTrue(file.length() < 200);
+    }
+
+    /**
+     * Tests other files are refused.
+     *
+     * @throws IOException if the test fails
+     */
+    @Test(expected = IOException.class)
+    public void testNotALog() throws IOException {
+        File file = this.folder.newFile();
+        Files.write(file.toPath(), "PRIVMSG #kitteh :meow\r\n".getBytes("UTF-8"));
+        new CaptureLog.Reader(file).close();
+    }
+
+    private static String line(int i, String padding) {
+        return ":User" + i + "!user@host.example PRIVMSG #kitteh :" + i + ' ' + padding;
+    }
+}
@@ -0,0 +1,79 @@
+package org.kitteh.irc.client.library.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the queue processing thread.
+ */
+public class QueueProcessingThreadTest {
+    private static class Recorder extends QueueProcessingThread<Integer> {
+        private final List<Integer> processed = new ArrayList<>();
+        private final CountDownLatch latch;
+        private final CountDownLatch cleanedUp = new CountDownLatch(1);
+
+        private Recorder(int expected) {
+            super("Test");
+            this.latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        protected void processElement(Integer element) {
+            this.processed.add(element);
+            this.latch.countDown();
+        }
+
+        @Override
+        protected void cleanup(Queue<Integer> remainingQueue) {
+            this.cleanedUp.countDown();
+        }
+    }
+
+    /**
+     * Tests every item from several producers is processed, each
+     * producer's items in order.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testProducers() throws InterruptedException {
+        int producers = 4;
+        int items = 10000;
+        Recorder recorder = new Recorder(producers * items);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < items; i++) {
+                    recorder.queue((producer * items) + i);
+                    if ((i % 1000) == 0) {
+                        Thread.yield(); // Give the consumer a chance to park
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(recorder.latch.await(10, TimeUnit.SECONDS));
+        int[] last = new int[producers];
+        Arrays.fill(last, -1);
+        for (int element : recorder.processed) {
+            int producer = element / items;
+            Assert.assertTrue(element > last[producer]);
+            last[producer] = element;
+        }
+
+        recorder.interrupt();
+        Assert.assertTrue(recorder.cleanedUp.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,34 @@
+package org.kitteh.irc.client.library.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests virtual thread support, whichever Java version is running.
+ */
+public class VirtualThreadsTest {
+    /**
+     * Tests the factory runs tasks where supported and refuses otherwise.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testFactory() throws InterruptedException {
+        if (!VirtualThreads.isSupported()) {
+            try {
+                VirtualThreads.factory("test-");
+                Assert.fail("Created virtual threads without support");
+            } catch (UnsupportedOperationException expected) {
+                return;
+            }
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = VirtualThreads.factory("test-").newThread(latch::countDown);
+        Assert.assertEquals("test-0", thread.getName());
+        thread.start();
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+}